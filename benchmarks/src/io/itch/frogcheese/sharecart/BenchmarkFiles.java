@@ -0,0 +1,95 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Locates the test fixtures of the library, and sets up and removes the directories the benchmarks work in.
+ */
+final class BenchmarkFiles {
+
+    private static final String FIXTURES_PROPERTY = "sharecart.fixtures";
+    private static final String DEFAULT_FIXTURES_PATH = "library/test/resources";
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * @param name the file name of the fixture, such as {@code sharecart_correct.ini}.
+     * @return The fixture with the given name.
+     * @throws IllegalStateException if the fixture could not be found.
+     */
+    static File fixture(String name) {
+        File fixture = new File(System.getProperty(FIXTURES_PROPERTY, DEFAULT_FIXTURES_PATH), name);
+        if (!fixture.isFile())
+            throw new IllegalStateException("Fixture " + fixture.getAbsolutePath() + " could not be found. Set the "
+                    + FIXTURES_PROPERTY + " system property to the library's test resources directory.");
+        return fixture;
+    }
+
+    /**
+     * Creates a directory with a {@code dat/o_o.ini} copied from the given fixture, and an application directory
+     * the given number of levels below it.
+     *
+     * @return The application directory.
+     */
+    static File createApplicationDirectory(File root, String fixture, int levels) throws IOException {
+        File dat = new File(root, "dat");
+        if (!dat.mkdirs())
+            throw new IOException("Could not create " + dat);
+        Files.copy(fixture(fixture).toPath(), new File(dat, "o_o.ini").toPath());
+
+        File application = root;
+        for (int i = 0; i < levels; i++) {
+            application = new File(application, "level" + i);
+        }
+        if (levels > 0 && !application.mkdirs())
+            throw new IOException("Could not create " + application);
+        return application;
+    }
+
+    /**
+     * Moves the modification times of a directory tree into the past, so that the discovery cache considers it
+     * settled and caches what it finds there.
+     */
+    static void settle(File root) throws IOException {
+        final long past = System.currentTimeMillis() - 60000;
+        Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                file.toFile().setLastModified(past);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                dir.toFile().setLastModified(past);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    static void delete(File root) throws IOException {
+        if (root == null || !root.exists())
+            return;
+
+        Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
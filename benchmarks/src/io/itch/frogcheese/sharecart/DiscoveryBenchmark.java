@@ -0,0 +1,68 @@
+package io.itch.frogcheese.sharecart;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches for the sharecart file from an application directory the given number of levels below the dat directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    @Param({"0", "2", "4", "8"})
+    public int depth;
+
+    private File root;
+    private String applicationPath;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sharecart_discovery_benchmark").toFile();
+        applicationPath = BenchmarkFiles.createApplicationDirectory(root, "sharecart_correct.ini", depth).getPath();
+        BenchmarkFiles.settle(root);
+
+        if (SharecartFileInterface.get().findIniFile(depth, applicationPath) == null)
+            throw new IllegalStateException("No sharecart file found from " + applicationPath);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(root);
+    }
+
+    /**
+     * Searches through the file interface, which answers repeated searches from its discovery cache.
+     */
+    @Benchmark
+    public Object findIniFile() {
+        return SharecartFileInterface.get().findIniFile(depth, applicationPath);
+    }
+
+    /**
+     * Searches the directories every time.
+     */
+    @Benchmark
+    public Object findIniFileUncached() {
+        return new SharecartDiscoveryCache("dat", "o_o.ini").find(depth, applicationPath, false);
+    }
+}
@@ -0,0 +1,103 @@
+package io.itch.frogcheese.sharecart;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gets and sets parameters of a loaded sharecart through the manager. Setters cycle through different values, so
+ * that every call is a change.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManagerBenchmark {
+
+    private static final String[] NAMES = {"FIRST NAME", "SECOND NAME"};
+
+    @Param({"false", "true"})
+    public boolean concurrent;
+
+    private File root;
+    private SharecartManager manager;
+    private int counter;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("sharecart_manager_benchmark").toFile();
+        File application = BenchmarkFiles.createApplicationDirectory(root, "sharecart_correct.ini", 1);
+
+        SharecartManager.initialize(new SharecartConfig.Builder()
+                .setApplicationPath(application.getPath())
+                .setDirectoryLevelsToCheck(1)
+                .setAutoCreateFile(false)
+                .setConcurrentMode(concurrent)
+                .build());
+        manager = SharecartManager.get();
+        if (!manager.validateSharecartFile() || !manager.load())
+            throw new IllegalStateException("Could not load the sharecart file in " + root);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+        BenchmarkFiles.delete(root);
+    }
+
+    @Benchmark
+    public int getX() {
+        return manager.x();
+    }
+
+    @Benchmark
+    public int getMisc() {
+        return manager.misc(2);
+    }
+
+    @Benchmark
+    public String getName() {
+        return manager.name();
+    }
+
+    @Benchmark
+    public boolean getSwitch() {
+        return manager.switchValue(5);
+    }
+
+    @Benchmark
+    public void setX() {
+        manager.x(++counter & Constraints.MAX_SIZE_X);
+    }
+
+    @Benchmark
+    public void setMisc() {
+        manager.misc(2, ++counter & Constraints.MAX_SIZE_MISC);
+    }
+
+    @Benchmark
+    public void setName() {
+        manager.name(NAMES[++counter & 1]);
+    }
+
+    @Benchmark
+    public void setSwitch() {
+        manager.switchValue(5, (++counter & 1) == 0);
+    }
+}
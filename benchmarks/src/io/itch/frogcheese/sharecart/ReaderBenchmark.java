@@ -0,0 +1,122 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.SharecartException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the library's test fixtures, valid and malformed, with strict and lenient readers. Strict reads of
+ * malformed fixtures measure how quickly the reader fails.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({
+            "sharecart_correct.ini",
+            "sharecart_unordered.ini",
+            "sharecart_missing_parameter.ini",
+            "sharecart_constraint_failure.ini",
+            "sharecart_invalid_parameter_definition.ini",
+            "sharecart_invalid_parameter_name.ini"
+    })
+    public String fixture;
+
+    @Param({"false", "true"})
+    public boolean strict;
+
+    private File file;
+    private ByteBuffer contents;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = BenchmarkFiles.fixture(fixture);
+        contents = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Opens, reads and closes the fixture file, as the manager does when loading.
+     */
+    @Benchmark
+    public Object read() throws IOException {
+        SharecartFileReader reader = new SharecartFileReader(file);
+        try {
+            reader.setIsStrict(strict);
+            return reader.read();
+        } catch (SharecartException e) {
+            return e;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the fixture lazily, decoding only the x parameter.
+     */
+    @Benchmark
+    public Object readLazy() throws IOException {
+        SharecartFileReader reader = new SharecartFileReader(file);
+        try {
+            reader.setIsStrict(strict);
+            return reader.readLazy().x();
+        } catch (SharecartException e) {
+            return e;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Parses the fixture from memory, without any file access.
+     */
+    @Benchmark
+    public Object parse() throws IOException {
+        SharecartFileReader reader = SharecartFileReader.stored(file, new ConstantStorage(contents));
+        try {
+            reader.setIsStrict(strict);
+            return reader.read();
+        } catch (SharecartException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Serves the same contents for every file.
+     */
+    private static class ConstantStorage implements SharecartStorage {
+        private final ByteBuffer contents;
+
+        ConstantStorage(ByteBuffer contents) {
+            this.contents = contents;
+        }
+
+        @Override
+        public ByteBuffer read(File file) {
+            return contents.duplicate();
+        }
+
+        @Override
+        public void write(File file, ByteBuffer contents) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
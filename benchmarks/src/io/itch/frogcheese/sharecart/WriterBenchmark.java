@@ -0,0 +1,72 @@
+package io.itch.frogcheese.sharecart;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the parameters of the valid fixture to a temporary file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+
+    private File file;
+    private Sharecart sharecart;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("sharecart_writer_benchmark", ".ini");
+
+        SharecartFileReader reader = new SharecartFileReader(BenchmarkFiles.fixture("sharecart_correct.ini"));
+        try {
+            sharecart = reader.read();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    /**
+     * Opens, writes and closes the file, as the manager does when saving.
+     */
+    @Benchmark
+    public Object write() throws IOException {
+        SharecartFileWriter writer = new SharecartFileWriter(file);
+        try {
+            writer.write(sharecart);
+        } finally {
+            writer.close();
+        }
+        return writer.getLayout();
+    }
+
+    /**
+     * Encodes the parameters without writing them anywhere.
+     */
+    @Benchmark
+    public Object encode() {
+        return SharecartFileWriter.encode(sharecart);
+    }
+}
@@ -0,0 +1,298 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.InvalidParameterException;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.INDEX_MISC;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.INDEX_NAME;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.INDEX_SWITCH;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.INDEX_X;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.INDEX_Y;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.PARAMETER_MISC;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.PARAMETER_SWITCH;
+
+/**
+ * Immutable, bit-packed copy of all sharecart parameters.
+ * <p/>
+ * The misc values are packed into one long, x and y into one int and the switches into a byte mask, next to
+ * the name. This makes a compact sharecart a fraction of the size of the sharecart it was taken from, and lets
+ * it be compared and hashed without walking any arrays. It is meant for holding many sharecart states at once,
+ * such as an undo history.
+ *
+ * @see SharecartManager#snapshot()
+ * @see SharecartManager#restore(CompactSharecart)
+ */
+public final class CompactSharecart {
+
+    private static final int BITS_PER_VALUE = 16;
+    private static final int VALUE_MASK = (1 << BITS_PER_VALUE) - 1;
+
+    /**
+     * The misc values, 16 bits each, with misc0 in the lowest bits.
+     */
+    private final long misc;
+    /**
+     * X in the lower 16 bits, y in the upper 16 bits.
+     */
+    private final int position;
+    private final byte switches;
+    private final String name;
+    private final int hash;
+    /**
+     * The limits that the values were checked against, and that copies are checked against. Not part of equality.
+     */
+    private final ConstraintProfile constraints;
+
+    private CompactSharecart(long misc, int position, byte switches, String name, ConstraintProfile constraints) {
+        this.misc = misc;
+        this.position = position;
+        this.switches = switches;
+        this.name = name;
+        this.constraints = constraints;
+
+        int result = (int) (misc ^ (misc >>> 32));
+        result = 31 * result + position;
+        result = 31 * result + switches;
+        this.hash = 31 * result + name.hashCode();
+    }
+
+    /**
+     * Packs the parameters of a sharecart.
+     *
+     * @param sharecart   the sharecart to pack.
+     * @param constraints the limits to check the parameters against.
+     * @return A compact copy of the sharecart.
+     * @throws InvalidParameterException if any of the parameters do not fulfill the constraints.
+     */
+    static CompactSharecart of(Sharecart sharecart, ConstraintProfile constraints) {
+        long misc = 0;
+        for (int i = 0; i < PARAMETER_MISC.length; i++) {
+            misc |= (long) checkValue("misc" + i, sharecart.misc(i), constraints.validMisc(sharecart.misc(i)))
+                    << (i * BITS_PER_VALUE);
+        }
+
+        int x = checkValue("x", sharecart.x(), constraints.validX(sharecart.x()));
+        int y = checkValue("y", sharecart.y(), constraints.validY(sharecart.y()));
+
+        int switches = 0;
+        for (int i = 0; i < PARAMETER_SWITCH.length; i++) {
+            if (sharecart.switchValue(i))
+                switches |= 1 << i;
+        }
+
+        String name = sharecart.name();
+        if (!constraints.validName(name))
+            throw new InvalidParameterException("name", name);
+
+        return new CompactSharecart(misc, x | y << BITS_PER_VALUE, (byte) switches, name, constraints);
+    }
+
+    private static int checkValue(String parameter, int value, boolean valid) {
+        // Values are packed into 16 bits, which also holds when the constraints have been raised
+        if (!valid || value > VALUE_MASK)
+            throw new InvalidParameterException(parameter, value);
+        return value;
+    }
+
+    /**
+     * Checks the parameters against constraints other than the ones this copy was made with.
+     *
+     * @param constraints  the limits to check the parameters against.
+     * @param clamp        whether to clamp values that do not fit, rather than throw.
+     * @param preallocated whether to throw preallocated exceptions.
+     * @return This copy if all parameters fit, otherwise a copy with the values clamped.
+     * @throws InvalidParameterException if a value does not fit the constraints and clamping is off.
+     */
+    CompactSharecart constrainTo(ConstraintProfile constraints, boolean clamp, boolean preallocated) {
+        if (constraints.equals(this.constraints))
+            return this;
+
+        int x = x();
+        if (!constraints.validX(x))
+            x = clamped(INDEX_X, 0, x, constraints.clampX(x), clamp, preallocated);
+        int y = y();
+        if (!constraints.validY(y))
+            y = clamped(INDEX_Y, 0, y, constraints.clampY(y), clamp, preallocated);
+
+        long misc = 0;
+        for (int i = 0; i < PARAMETER_MISC.length; i++) {
+            int value = misc(i);
+            if (!constraints.validMisc(value))
+                value = clamped(INDEX_MISC, i, value, constraints.clampMisc(value), clamp, preallocated);
+            misc |= (long) value << (i * BITS_PER_VALUE);
+        }
+
+        String name = this.name;
+        if (!constraints.validName(name)) {
+            if (!clamp)
+                throw SharecartFailures.failure(SharecartResult.INVALID_VALUE, INDEX_NAME, 0, name, preallocated);
+            name = constraints.clampName(name);
+        }
+
+        return new CompactSharecart(misc, x | y << BITS_PER_VALUE, switches, name, constraints);
+    }
+
+    private static int clamped(int parameter, int index, int value, int clampedValue, boolean clamp,
+                               boolean preallocated) {
+        if (!clamp)
+            throw SharecartFailures.failure(SharecartResult.INVALID_VALUE, parameter, index, String.valueOf(value),
+                    preallocated);
+        return clampedValue;
+    }
+
+    /**
+     * Copies the parameters that differ into the given sharecart.
+     *
+     * @param sharecart the sharecart to assign the parameters to.
+     * @return The parameters that were assigned a different value, as {@link SharecartFields} bits.
+     */
+    int copyTo(Sharecart sharecart) {
+        int changed = 0;
+        if (!sharecart.isReadable(INDEX_X) || sharecart.x() != x()) {
+            sharecart.x(x());
+            changed |= SharecartFields.X;
+        }
+        if (!sharecart.isReadable(INDEX_Y) || sharecart.y() != y()) {
+            sharecart.y(y());
+            changed |= SharecartFields.Y;
+        }
+        for (int i = 0; i < PARAMETER_MISC.length; i++) {
+            if (!sharecart.isReadable(INDEX_MISC + i) || sharecart.misc(i) != misc(i)) {
+                sharecart.misc(i, misc(i));
+                changed |= SharecartFields.misc(i);
+            }
+        }
+        if (!sharecart.isReadable(INDEX_NAME) || !sharecart.name().equals(name)) {
+            sharecart.name(name);
+            changed |= SharecartFields.NAME;
+        }
+        for (int i = 0; i < PARAMETER_SWITCH.length; i++) {
+            if (!sharecart.isReadable(INDEX_SWITCH + i) || sharecart.switchValue(i) != switchValue(i)) {
+                sharecart.switchValue(i, switchValue(i));
+                changed |= SharecartFields.switchValue(i);
+            }
+        }
+        return changed;
+    }
+
+    public int x() {
+        return position & VALUE_MASK;
+    }
+
+    public int y() {
+        return position >>> BITS_PER_VALUE;
+    }
+
+    /**
+     * @param index the index of the misc value.
+     * @return The misc value with the given index.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to the amount of misc values.
+     */
+    public int misc(int index) {
+        if (index < 0 || index >= PARAMETER_MISC.length)
+            throw new IndexOutOfBoundsException("misc" + index);
+        return (int) (misc >>> (index * BITS_PER_VALUE)) & VALUE_MASK;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @param index the index of the switch value.
+     * @return The switch value with the given index.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to the amount of switches.
+     */
+    public boolean switchValue(int index) {
+        if (index < 0 || index >= PARAMETER_SWITCH.length)
+            throw new IndexOutOfBoundsException("switch" + index);
+        return (switches & (1 << index)) != 0;
+    }
+
+    /**
+     * @return All switch values as a bit mask, with switch0 in the lowest bit.
+     */
+    public int switchMask() {
+        return switches & 0xFF;
+    }
+
+    /**
+     * @return A copy with the x parameter set to the given value.
+     * @throws InvalidParameterException if the value does not fulfill the constraints.
+     */
+    public CompactSharecart withX(int x) {
+        checkValue("x", x, constraints.validX(x));
+        return new CompactSharecart(misc, position & ~VALUE_MASK | x, switches, name, constraints);
+    }
+
+    /**
+     * @return A copy with the y parameter set to the given value.
+     * @throws InvalidParameterException if the value does not fulfill the constraints.
+     */
+    public CompactSharecart withY(int y) {
+        checkValue("y", y, constraints.validY(y));
+        return new CompactSharecart(misc, position & VALUE_MASK | y << BITS_PER_VALUE, switches, name, constraints);
+    }
+
+    /**
+     * @return A copy with the misc parameter with the given index set to the given value.
+     * @throws InvalidParameterException if the value does not fulfill the constraints.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to the amount of misc values.
+     */
+    public CompactSharecart withMisc(int index, int value) {
+        if (index < 0 || index >= PARAMETER_MISC.length)
+            throw new IndexOutOfBoundsException("misc" + index);
+        checkValue("misc" + index, value, constraints.validMisc(value));
+
+        int shift = index * BITS_PER_VALUE;
+        long packed = misc & ~((long) VALUE_MASK << shift) | (long) value << shift;
+        return new CompactSharecart(packed, position, switches, name, constraints);
+    }
+
+    /**
+     * @return A copy with the name parameter set to the given value.
+     * @throws InvalidParameterException if the value does not fulfill the constraints.
+     */
+    public CompactSharecart withName(String name) {
+        if (!constraints.validName(name))
+            throw new InvalidParameterException("name", name);
+        return new CompactSharecart(misc, position, switches, name, constraints);
+    }
+
+    /**
+     * @return A copy with the switch parameter with the given index set to the given value.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to the amount of switches.
+     */
+    public CompactSharecart withSwitchValue(int index, boolean value) {
+        if (index < 0 || index >= PARAMETER_SWITCH.length)
+            throw new IndexOutOfBoundsException("switch" + index);
+
+        int mask = value ? switches | 1 << index : switches & ~(1 << index);
+        return new CompactSharecart(misc, position, (byte) mask, name, constraints);
+    }
+
+    /**
+     * @param mask all switch values as a bit mask, with switch0 in the lowest bit. Higher bits are ignored.
+     * @return A copy with the switch parameters set to the given mask.
+     */
+    public CompactSharecart withSwitchMask(int mask) {
+        return new CompactSharecart(misc, position, (byte) mask, name, constraints);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactSharecart)) return false;
+
+        CompactSharecart that = (CompactSharecart) o;
+        return hash == that.hash
+                && misc == that.misc
+                && position == that.position
+                && switches == that.switches
+                && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
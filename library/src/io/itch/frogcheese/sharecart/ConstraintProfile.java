@@ -0,0 +1,202 @@
+package io.itch.frogcheese.sharecart;
+
+/**
+ * Immutable set of limits that sharecart parameter values are validated and clamped against.
+ * <p/>
+ * The {@link #STANDARD standard profile} holds the limits of the sharecart 1000 specification, which are also
+ * available as the constants in {@link Constraints}. Other profiles are derived from it, for games that agree on
+ * different limits. The amount of misc and switch parameters is set by the file format and is the same for every
+ * profile.
+ *
+ * @see SharecartConfig.Builder#setConstraintProfile(ConstraintProfile)
+ */
+public final class ConstraintProfile {
+
+    /**
+     * Largest value any profile may allow for x, y and misc, since those are stored in 16 bits when packed.
+     */
+    public static final int MAX_VALUE_LIMIT = 65535;
+
+    /**
+     * The limits of the sharecart 1000 specification.
+     */
+    public static final ConstraintProfile STANDARD = new ConstraintProfile(Constraints.MAX_SIZE_X,
+            Constraints.MAX_SIZE_Y, Constraints.MAX_SIZE_MISC, Constraints.MAX_SIZE_NAME_LENGTH);
+
+    private final int maxX;
+    private final int maxY;
+    private final int maxMisc;
+    private final int maxNameLength;
+
+    private ConstraintProfile(int maxX, int maxY, int maxMisc, int maxNameLength) {
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxMisc = maxMisc;
+        this.maxNameLength = maxNameLength;
+    }
+
+    /**
+     * @param maxX the maximum value of the x parameter. Must be between zero and {@link #MAX_VALUE_LIMIT}.
+     * @return A copy of this profile with the given maximum for the x parameter.
+     */
+    public ConstraintProfile withMaxX(int maxX) {
+        return new ConstraintProfile(checkLimit("x", maxX), maxY, maxMisc, maxNameLength);
+    }
+
+    /**
+     * @param maxY the maximum value of the y parameter. Must be between zero and {@link #MAX_VALUE_LIMIT}.
+     * @return A copy of this profile with the given maximum for the y parameter.
+     */
+    public ConstraintProfile withMaxY(int maxY) {
+        return new ConstraintProfile(maxX, checkLimit("y", maxY), maxMisc, maxNameLength);
+    }
+
+    /**
+     * @param maxMisc the maximum value of the misc parameters. Must be between zero and {@link #MAX_VALUE_LIMIT}.
+     * @return A copy of this profile with the given maximum for the misc parameters.
+     */
+    public ConstraintProfile withMaxMisc(int maxMisc) {
+        return new ConstraintProfile(maxX, maxY, checkLimit("misc", maxMisc), maxNameLength);
+    }
+
+    /**
+     * @param maxNameLength the maximum length of the name parameter. Cannot be negative.
+     * @return A copy of this profile with the given maximum length for the name parameter.
+     */
+    public ConstraintProfile withMaxNameLength(int maxNameLength) {
+        if (maxNameLength < 0)
+            throw new IllegalArgumentException("Maximum name length cannot be negative.");
+        return new ConstraintProfile(maxX, maxY, maxMisc, maxNameLength);
+    }
+
+    private static int checkLimit(String parameter, int max) {
+        if (max < 0 || max > MAX_VALUE_LIMIT)
+            throw new IllegalArgumentException("Maximum " + parameter + " must be between 0 and " + MAX_VALUE_LIMIT + ".");
+        return max;
+    }
+
+    /**
+     * @return The maximum value of the x parameter.
+     */
+    public int getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * @return The maximum value of the y parameter.
+     */
+    public int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return The maximum value of the misc parameters.
+     */
+    public int getMaxMisc() {
+        return maxMisc;
+    }
+
+    /**
+     * @return The maximum length of the name parameter.
+     */
+    public int getMaxNameLength() {
+        return maxNameLength;
+    }
+
+    /**
+     * @param x the value to check.
+     * @return Whether or not the given value conforms to the constraints for the x parameter.
+     */
+    public boolean validX(int x) {
+        return x >= 0 && x <= maxX;
+    }
+
+    /**
+     * Clamps the given value to within the constraints for the x parameter.
+     *
+     * @param x the value to check.
+     * @return the provided value, clamped to be within the constraints for x.
+     */
+    public int clampX(int x) {
+        return x < 0 ? 0 : Math.min(x, maxX);
+    }
+
+    /**
+     * @param y the value to check.
+     * @return Whether or not the given value conforms to the constraints for the y parameter.
+     */
+    public boolean validY(int y) {
+        return y >= 0 && y <= maxY;
+    }
+
+    /**
+     * Clamps the given value to within the constraints for the y parameter.
+     *
+     * @param y the value to check.
+     * @return the provided value, clamped to be within the constraints for y.
+     */
+    public int clampY(int y) {
+        return y < 0 ? 0 : Math.min(y, maxY);
+    }
+
+    /**
+     * @param misc the value to check.
+     * @return Whether or not the given value conforms to the constraints for the misc parameters.
+     */
+    public boolean validMisc(int misc) {
+        return misc >= 0 && misc <= maxMisc;
+    }
+
+    /**
+     * Clamps the given value to within the constraints for the misc parameters.
+     *
+     * @param misc the value to check.
+     * @return the provided value, clamped to be within the constraints for misc.
+     */
+    public int clampMisc(int misc) {
+        return misc < 0 ? 0 : Math.min(misc, maxMisc);
+    }
+
+    /**
+     * @param name the value to check.
+     * @return Whether or not the given value conforms to the constraints for the name parameter.
+     */
+    public boolean validName(String name) {
+        return name != null && name.length() <= maxNameLength;
+    }
+
+    /**
+     * Clamps the given value to within the constraints for the name parameter.
+     *
+     * @param name the value to check.
+     * @return the provided value. If the value is null, an empty string is returned. If the value is too long, a
+     * substring of the maximum length will be returned.
+     */
+    public String clampName(String name) {
+        if (name == null)
+            return "";
+        if (name.length() > maxNameLength)
+            return name.substring(0, maxNameLength);
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ConstraintProfile)) return false;
+
+        ConstraintProfile that = (ConstraintProfile) o;
+        return maxX == that.maxX
+                && maxY == that.maxY
+                && maxMisc == that.maxMisc
+                && maxNameLength == that.maxNameLength;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = maxX;
+        result = 31 * result + maxY;
+        result = 31 * result + maxMisc;
+        return 31 * result + maxNameLength;
+    }
+}
@@ -1,34 +1,36 @@
 package io.itch.frogcheese.sharecart;
 
 /**
- * Utility that handles constraints for the sharecart parameters.
+ * Utility that handles constraints for the sharecart parameters, using the limits of the
+ * {@link ConstraintProfile#STANDARD standard profile}. The constants are final, so they can't be changed for
+ * everyone at once; a manager or reader is given a {@link ConstraintProfile} with different limits instead.
  */
 public class Constraints {
 
     /**
      * Constant: maximum size for the X parameter.
      */
-    public static int MAX_SIZE_X = 1023;
+    public static final int MAX_SIZE_X = 1023;
     /**
      * Constant: maximum size for the y parameter.
      */
-    public static int MAX_SIZE_Y = 1023;
+    public static final int MAX_SIZE_Y = 1023;
     /**
      * Constant: maximum size for the misc parameters.
      */
-    public static int MAX_SIZE_MISC = 65535;
+    public static final int MAX_SIZE_MISC = 65535;
     /**
      * Constant: maximum length for the name parameter.
      */
-    public static int MAX_SIZE_NAME_LENGTH = 1023;
+    public static final int MAX_SIZE_NAME_LENGTH = 1023;
     /**
      * Constant: amount of misc parameters.
      */
-    public static int MISC_ITEMS_LENGTH = 4;
+    public static final int MISC_ITEMS_LENGTH = 4;
     /**
      * Constant: amount of switch parameters.
      */
-    public static int SWITCH_ITEMS_LENGTH = 8;
+    public static final int SWITCH_ITEMS_LENGTH = 8;
 
     /**
      * @param x the value to check.
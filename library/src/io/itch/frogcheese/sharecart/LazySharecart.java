@@ -0,0 +1,164 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.SharecartException;
+
+import java.nio.ByteBuffer;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+
+/**
+ * Sharecart that decodes its parameters from the raw file contents when they are first accessed.
+ * Parameters that are assigned before being accessed are never decoded.
+ *
+ * @see SharecartFileReader#readLazy()
+ */
+class LazySharecart extends Sharecart {
+
+    private final SharecartFileReader reader;
+    private final ByteBuffer contents;
+
+    private final int[] valueStarts = new int[PARAMETER_COUNT];
+    private final int[] valueEnds = new int[PARAMETER_COUNT];
+
+    /**
+     * Bit mask of the parameters that hold their final value, by index.
+     */
+    private int decoded = (1 << PARAMETER_COUNT) - 1;
+
+    LazySharecart(SharecartFileReader reader, ByteBuffer contents) {
+        this.reader = reader;
+        this.contents = contents;
+
+        // Parameters missing from the file keep these values
+        super.name("");
+    }
+
+    /**
+     * Records where the value for a parameter can be found in the contents.
+     */
+    void setValueBounds(int index, int start, int end) {
+        valueStarts[index] = start;
+        valueEnds[index] = end;
+        decoded &= ~(1 << index);
+    }
+
+    /**
+     * @param index the index of the parameter.
+     * @return Whether or not the parameter holds its final value.
+     */
+    boolean isDecoded(int index) {
+        return (decoded & (1 << index)) != 0;
+    }
+
+    @Override
+    public int x() {
+        ensureDecoded(INDEX_X);
+        return super.x();
+    }
+
+    @Override
+    public void x(int x) {
+        super.x(x);
+        decoded |= 1 << INDEX_X;
+    }
+
+    @Override
+    public int y() {
+        ensureDecoded(INDEX_Y);
+        return super.y();
+    }
+
+    @Override
+    public void y(int y) {
+        super.y(y);
+        decoded |= 1 << INDEX_Y;
+    }
+
+    @Override
+    public int misc(int index) {
+        if (index >= 0 && index < PARAMETER_MISC.length)
+            ensureDecoded(INDEX_MISC + index);
+        return super.misc(index);
+    }
+
+    @Override
+    public void misc(int index, int value) {
+        super.misc(index, value);
+        decoded |= 1 << (INDEX_MISC + index);
+    }
+
+    @Override
+    public void miscValues(int[] dst) {
+        for (int i = 0; i < PARAMETER_MISC.length; i++) {
+            ensureDecoded(INDEX_MISC + i);
+        }
+        super.miscValues(dst);
+    }
+
+    @Override
+    public void setMiscValues(int[] src) {
+        super.setMiscValues(src);
+        decoded |= ((1 << PARAMETER_MISC.length) - 1) << INDEX_MISC;
+    }
+
+    @Override
+    public String name() {
+        ensureDecoded(INDEX_NAME);
+        return super.name();
+    }
+
+    @Override
+    public void name(String name) {
+        super.name(name);
+        decoded |= 1 << INDEX_NAME;
+    }
+
+    @Override
+    public boolean switchValue(int index) {
+        if (index >= 0 && index < PARAMETER_SWITCH.length)
+            ensureDecoded(INDEX_SWITCH + index);
+        return super.switchValue(index);
+    }
+
+    @Override
+    public void switchValue(int index, boolean value) {
+        super.switchValue(index, value);
+        decoded |= 1 << (INDEX_SWITCH + index);
+    }
+
+    @Override
+    public int switchMask() {
+        for (int i = 0; i < PARAMETER_SWITCH.length; i++) {
+            ensureDecoded(INDEX_SWITCH + i);
+        }
+        return super.switchMask();
+    }
+
+    @Override
+    public void switchMask(int mask) {
+        super.switchMask(mask);
+        decoded |= ((1 << PARAMETER_SWITCH.length) - 1) << INDEX_SWITCH;
+    }
+
+    @Override
+    boolean isReadable(int index) {
+        try {
+            ensureDecoded(index);
+            return true;
+        } catch (SharecartException e) {
+            return false;
+        }
+    }
+
+    private void ensureDecoded(int index) {
+        if (!isDecoded(index)) {
+            try {
+                reader.decode(this, contents, index, valueStarts[index], valueEnds[index]);
+            } catch (RuntimeException e) {
+                // The value is assigned before it is checked, so a strict reader has to fail on the next access too
+                decoded &= ~(1 << index);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps sharecart files mapped into memory, so that reads and writes are plain memory accesses once a file has been
+ * mapped. A file is mapped again when it is no longer the file that was mapped, or when its size or modification
+ * time changed, whether by a write of different length or by another application replacing or rewriting it.
+ * Contents are copied when read, since writes change the mapping in place.
+ * <p/>
+ * Writes are forced to the storage device according to the {@link SharecartConfig.Durability durability} the
+ * storage was created with. Mappings are held until they are {@link #release(File) released}, which a
+ * {@link SharecartManager} does when it is closed; the storage maps the file again when it is used after that.
+ * <p/>
+ * Java offers no supported way to unmap a buffer. Releasing a mapping only drops the storage's reference to it, and
+ * the mapping itself lasts until the buffer is garbage collected. Until then, some platforms such as Windows keep
+ * other applications from truncating, replacing or deleting the file.
+ */
+class MappedSharecartStorage implements SharecartStorage {
+
+    private final Map<File, Mapping> mappings = new HashMap<File, Mapping>();
+    private final SharecartConfig.Durability durability;
+
+    MappedSharecartStorage() {
+        this(SharecartConfig.Durability.NONE);
+    }
+
+    /**
+     * @param durability how far writes are forced to the storage device before they complete.
+     */
+    MappedSharecartStorage(SharecartConfig.Durability durability) {
+        if (durability == null)
+            throw new IllegalArgumentException("Durability cannot be null");
+        this.durability = durability;
+    }
+
+    SharecartConfig.Durability getDurability() {
+        return durability;
+    }
+
+    @Override
+    public synchronized ByteBuffer read(File file) throws IOException {
+        MappedByteBuffer mapping = mapping(file, -1);
+        ByteBuffer copy = ByteBuffer.allocate(mapping.capacity());
+        copy.put(mapping.duplicate());
+        copy.flip();
+        return copy;
+    }
+
+    @Override
+    public synchronized void write(File file, ByteBuffer contents) throws IOException {
+        MappedByteBuffer mapping = mapping(file, contents.remaining());
+        ByteBuffer target = mapping.duplicate();
+        target.put(contents.duplicate());
+
+        File key = file.getAbsoluteFile();
+        if (durability != SharecartConfig.Durability.NONE) {
+            mapping.force();
+            if (durability == SharecartConfig.Durability.DATA_AND_METADATA) {
+                RandomAccessFile randomAccessFile = new RandomAccessFile(key, "rw");
+                try {
+                    randomAccessFile.getChannel().force(true);
+                } finally {
+                    randomAccessFile.close();
+                }
+            }
+        }
+        // The write itself may have changed the modification time, which is no reason to map the file again
+        mappings.put(key, new Mapping(mapping, attributes(key)));
+    }
+
+    @Override
+    public long length(File file) {
+        return file.getAbsoluteFile().length();
+    }
+
+    @Override
+    public long lastModified(File file) {
+        return file.getAbsoluteFile().lastModified();
+    }
+
+    /**
+     * Drops the mapping of a file, if it is mapped, so that it can be garbage collected. The file is mapped again
+     * when it is used after that.
+     *
+     * @param file the sharecart file.
+     */
+    synchronized void release(File file) {
+        mappings.remove(file.getAbsoluteFile());
+    }
+
+    synchronized boolean isMapped(File file) {
+        return mappings.containsKey(file.getAbsoluteFile());
+    }
+
+    /**
+     * Returns the mapping of a file, mapping it again if it is no longer the mapped file.
+     *
+     * @param length the length the file should have, or -1 to keep its current length.
+     */
+    private MappedByteBuffer mapping(File file, long length) throws IOException {
+        File key = file.getAbsoluteFile();
+        if (!key.isFile())
+            throw new FileNotFoundException(key.getPath() + " could not be found");
+
+        BasicFileAttributes attributes = attributes(key);
+        long currentLength = attributes.size();
+        long targetLength = length < 0 ? currentLength : length;
+        Mapping mapping = mappings.get(key);
+        if (mapping != null && mapping.buffer.capacity() == targetLength && mapping.isOf(attributes))
+            return mapping.buffer;
+
+        if (mapping != null) {
+            mappings.remove(key);
+        }
+
+        MappedByteBuffer buffer;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(key, "rw");
+        try {
+            if (currentLength != targetLength) {
+                randomAccessFile.setLength(targetLength);
+            }
+            // The mapping stays valid after the file has been closed
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, targetLength);
+        } finally {
+            randomAccessFile.close();
+        }
+        mappings.put(key, new Mapping(buffer, attributes(key)));
+        return buffer;
+    }
+
+    private static BasicFileAttributes attributes(File file) throws IOException {
+        return Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    }
+
+    /**
+     * A mapped buffer along with the identity, size and modification time of the file when it was mapped.
+     */
+    private static class Mapping {
+
+        final MappedByteBuffer buffer;
+        final Object fileKey;
+        final long length;
+        final long lastModified;
+
+        Mapping(MappedByteBuffer buffer, BasicFileAttributes attributes) {
+            this.buffer = buffer;
+            this.fileKey = attributes.fileKey();
+            this.length = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+        }
+
+        boolean isOf(BasicFileAttributes attributes) {
+            // Not every platform has file keys, in which case a replaced file shows in its modification time
+            Object otherKey = attributes.fileKey();
+            if (fileKey != null ? !fileKey.equals(otherKey) : otherKey != null)
+                return false;
+            return length == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
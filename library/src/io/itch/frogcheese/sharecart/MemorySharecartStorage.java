@@ -0,0 +1,61 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the contents of sharecart files in memory, without touching the file system. Files that have not been
+ * written yet read as empty, which a lenient reader turns into the default parameters. Instead of a modification
+ * time, every write is numbered.
+ */
+class MemorySharecartStorage implements SharecartStorage {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final ConcurrentMap<File, Entry> entries = new ConcurrentHashMap<File, Entry>();
+    private final AtomicLong writeCount = new AtomicLong();
+
+    @Override
+    public ByteBuffer read(File file) {
+        Entry entry = entries.get(file.getAbsoluteFile());
+        // Written contents are never changed, only replaced, so readers can share them
+        return entry != null ? entry.contents.asReadOnlyBuffer() : EMPTY.duplicate();
+    }
+
+    @Override
+    public void write(File file, ByteBuffer contents) {
+        ByteBuffer copy = ByteBuffer.allocate(contents.remaining());
+        copy.put(contents.duplicate());
+        copy.flip();
+        this.entries.put(file.getAbsoluteFile(), new Entry(copy, writeCount.incrementAndGet()));
+    }
+
+    @Override
+    public long length(File file) {
+        Entry entry = entries.get(file.getAbsoluteFile());
+        return entry != null ? entry.contents.remaining() : 0;
+    }
+
+    @Override
+    public long lastModified(File file) {
+        Entry entry = entries.get(file.getAbsoluteFile());
+        return entry != null ? entry.write : 0;
+    }
+
+    /**
+     * The contents of a file, along with the number of the write that stored them.
+     */
+    private static class Entry {
+
+        final ByteBuffer contents;
+        final long write;
+
+        Entry(ByteBuffer contents, long write) {
+            this.contents = contents;
+            this.write = write;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package io.itch.frogcheese.sharecart;
 
-import java.util.Arrays;
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
 
 /**
  * Wrapper around the sharecart parameters.
@@ -14,6 +14,32 @@ class Sharecart {
     private String name = DEFAULT_NAME;
     private boolean[] switches = new boolean[Constraints.SWITCH_ITEMS_LENGTH];
 
+    /**
+     * Bit mask of the parameters that differ from the file, by parameter index.
+     */
+    private int dirty = (1 << PARAMETER_COUNT) - 1;
+
+    Sharecart() {
+
+    }
+
+    /**
+     * Copy constructor. Copies the parameters through the accessors, so lazily decoded parameters are decoded.
+     *
+     * @param other the sharecart to copy.
+     */
+    Sharecart(Sharecart other) {
+        this.x = other.x();
+        this.y = other.y();
+        for (int i = 0; i < misc.length; i++) {
+            this.misc[i] = other.misc(i);
+        }
+        this.name = other.name();
+        for (int i = 0; i < switches.length; i++) {
+            this.switches[i] = other.switchValue(i);
+        }
+        this.dirty = other.dirtyMask();
+    }
 
     public static Sharecart withDefaults() {
         Sharecart sharecart = new Sharecart();
@@ -35,6 +61,7 @@ class Sharecart {
 
     public void x(int x) {
         this.x = x;
+        this.dirty |= 1 << INDEX_X;
     }
 
     public int y() {
@@ -43,6 +70,7 @@ class Sharecart {
 
     public void y(int y) {
         this.y = y;
+        this.dirty |= 1 << INDEX_Y;
     }
 
     public int misc(int index) {
@@ -51,18 +79,39 @@ class Sharecart {
 
     public void misc(int index, int value) {
         this.misc[index] = value;
+        this.dirty |= 1 << (INDEX_MISC + index);
     }
 
     public int miscLength() {
         return this.misc.length;
     }
 
+    /**
+     * Copies all misc values into the given array.
+     *
+     * @param dst the array to copy into, at least {@link #miscLength()} long.
+     */
+    public void miscValues(int[] dst) {
+        System.arraycopy(this.misc, 0, dst, 0, this.misc.length);
+    }
+
+    /**
+     * Assigns all misc values from the given array.
+     *
+     * @param src the array to copy from, at least {@link #miscLength()} long.
+     */
+    public void setMiscValues(int[] src) {
+        System.arraycopy(src, 0, this.misc, 0, this.misc.length);
+        this.dirty |= ((1 << this.misc.length) - 1) << INDEX_MISC;
+    }
+
     public String name() {
         return this.name;
     }
 
     public void name(String name) {
         this.name = name;
+        this.dirty |= 1 << INDEX_NAME;
     }
 
     public boolean switchValue(int index) {
@@ -71,33 +120,131 @@ class Sharecart {
 
     public void switchValue(int index, boolean value) {
         this.switches[index] = value;
+        this.dirty |= 1 << (INDEX_SWITCH + index);
     }
 
     public int switchLength() {
         return this.switches.length;
     }
 
+    /**
+     * @return All switch values as a bit mask, with switch0 in the lowest bit.
+     */
+    public int switchMask() {
+        int mask = 0;
+        for (int i = 0; i < this.switches.length; i++) {
+            if (this.switches[i])
+                mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Assigns all switch values from a bit mask, with switch0 in the lowest bit.
+     *
+     * @param mask the switch values.
+     */
+    public void switchMask(int mask) {
+        for (int i = 0; i < this.switches.length; i++) {
+            this.switches[i] = (mask & (1 << i)) != 0;
+        }
+        this.dirty |= ((1 << this.switches.length) - 1) << INDEX_SWITCH;
+    }
+
+    /**
+     * @return Bit mask of the parameters that have been changed since they were last read from or written to file,
+     * by parameter index. A new Sharecart has all of its parameters marked as changed.
+     */
+    public int dirtyMask() {
+        return this.dirty;
+    }
+
+    /**
+     * @param dirty bit mask of the parameters that differ from the file, by parameter index.
+     */
+    public void setDirtyMask(int dirty) {
+        this.dirty = dirty;
+    }
+
+    /**
+     * Marks all parameters as matching the file.
+     */
+    public void clearDirty() {
+        this.dirty = 0;
+    }
+
+    /**
+     * @param index the index of the parameter.
+     * @return Whether or not the value of the parameter can be read. Only a lazily decoded value that turns out
+     * faulty in strict mode cannot, and is then repaired by assigning it.
+     */
+    boolean isReadable(int index) {
+        return true;
+    }
+
+    /**
+     * @param other the sharecart to compare to.
+     * @return Bit mask of the parameters whose values differ from those of the other sharecart, by parameter index.
+     */
+    int differences(Sharecart other) {
+        if (other == this)
+            return 0;
+
+        int differences = 0;
+        if (x() != other.x())
+            differences |= 1 << INDEX_X;
+        if (y() != other.y())
+            differences |= 1 << INDEX_Y;
+        for (int i = 0; i < miscLength(); i++) {
+            if (misc(i) != other.misc(i))
+                differences |= 1 << (INDEX_MISC + i);
+        }
+        if (!name().equals(other.name()))
+            differences |= 1 << INDEX_NAME;
+        for (int i = 0; i < switchLength(); i++) {
+            if (switchValue(i) != other.switchValue(i))
+                differences |= 1 << (INDEX_SWITCH + i);
+        }
+        return differences;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Sharecart)) return false;
 
         Sharecart sharecart = (Sharecart) o;
 
-        return x == sharecart.x
-                && y == sharecart.y
-                && Arrays.equals(misc, sharecart.misc)
-                && name.equals(sharecart.name)
-                && Arrays.equals(switches, sharecart.switches);
+        // Compared through the accessors, since subclasses may decode their values on access
+        if (x() != sharecart.x()
+                || y() != sharecart.y()
+                || miscLength() != sharecart.miscLength()
+                || switchLength() != sharecart.switchLength()
+                || !name().equals(sharecart.name()))
+            return false;
+
+        for (int i = 0; i < miscLength(); i++) {
+            if (misc(i) != sharecart.misc(i))
+                return false;
+        }
+        for (int i = 0; i < switchLength(); i++) {
+            if (switchValue(i) != sharecart.switchValue(i))
+                return false;
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        int result = x;
-        result = 31 * result + y;
-        result = 31 * result + Arrays.hashCode(misc);
-        result = 31 * result + name.hashCode();
-        result = 31 * result + Arrays.hashCode(switches);
+        int result = x();
+        result = 31 * result + y();
+        for (int i = 0; i < miscLength(); i++) {
+            result = 31 * result + misc(i);
+        }
+        result = 31 * result + name().hashCode();
+        for (int i = 0; i < switchLength(); i++) {
+            result = 31 * result + (switchValue(i) ? 1231 : 1237);
+        }
         return result;
     }
 }
@@ -0,0 +1,296 @@
+package io.itch.frogcheese.sharecart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the changes made through a {@link SharecartManager} on a background thread.
+ * <p/>
+ * Changes are coalesced: a save is held back until no change has been made for the auto save delay, unless the
+ * oldest unsaved change has waited for the maximum delay or the maximum number of unsaved changes is reached.
+ * A save that fails keeps the changes pending and is tried again, waiting twice as long after each failure.
+ * Unsaved changes are saved when the JVM shuts down, unless the auto saver has been stopped.
+ * <p/>
+ * The background thread only lives while a save is scheduled, and ends once it has been idle for a while. An auto
+ * saver that is never stopped therefore does not keep its thread, or its manager, alive after the last save.
+ */
+class SharecartAutoSaver {
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Shortest and longest wait before a failed save is tried again.
+     */
+    static final long MIN_RETRY_DELAY_MILLIS = 100;
+    static final long MAX_RETRY_DELAY_MILLIS = 30000;
+
+    /**
+     * How long the background thread waits for another save to be scheduled before it ends.
+     */
+    static final long IDLE_THREAD_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * Auto savers whose unsaved changes are saved when the JVM shuts down. They are held weakly, and share one
+     * shutdown hook that is only registered while there are any, so that managers dropped by a
+     * {@link SharecartRegistry} are not kept alive by the runtime.
+     */
+    private static final Set<SharecartAutoSaver> SAVED_ON_SHUTDOWN =
+            Collections.newSetFromMap(new WeakHashMap<SharecartAutoSaver, Boolean>());
+    private static Thread shutdownHook;
+
+    private final SharecartManager manager;
+    private final long delayNanos;
+    private final long maxDelayNanos;
+    private final int maxChanges;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Runnable saveTask = new Runnable() {
+        @Override
+        public void run() {
+            onScheduledSave();
+        }
+    };
+
+    /**
+     * Number of changes since the last save.
+     */
+    private int unsavedChanges;
+    private long firstChangeTime;
+    /**
+     * When the pending changes are due to be saved.
+     */
+    private long deadline;
+    /**
+     * When the earliest scheduled save task runs, if one is scheduled.
+     */
+    private long scheduledTime;
+    private boolean scheduled;
+    /**
+     * How long to wait before trying a failed save again, or zero if the last save did not fail.
+     */
+    private long retryDelayNanos;
+    /**
+     * Pending changes are not saved before this while failed saves are being retried.
+     */
+    private long retryTime;
+
+    private long saveCount;
+    private long failedSaveCount;
+    private long coalescedSaveCount;
+
+    SharecartAutoSaver(SharecartManager manager, SharecartConfig config) {
+        this.manager = manager;
+        this.delayNanos = config.getAutoSaveDelay() * NANOS_PER_MILLI;
+        this.maxDelayNanos = config.getAutoSaveMaxDelay() * NANOS_PER_MILLI;
+        this.maxChanges = config.getAutoSaveMaxChanges();
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new SharecartThreadFactory("sharecart-autosave"));
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setKeepAliveTime(IDLE_THREAD_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+
+        saveOnShutdown(this);
+    }
+
+    /**
+     * Registers a change to the sharecart and schedules it to be saved.
+     */
+    synchronized void onChanged() {
+        long now = System.nanoTime();
+        if (unsavedChanges++ == 0) {
+            firstChangeTime = now;
+        }
+
+        if (unsavedChanges >= maxChanges) {
+            deadline = now;
+        } else {
+            deadline = Math.min(now + delayNanos, firstChangeTime + maxDelayNanos);
+        }
+        if (retryDelayNanos > 0) {
+            // Further changes do not cut the wait after a failed save short
+            deadline = Math.max(deadline, retryTime);
+        }
+
+        // A scheduled task that runs before the deadline reschedules itself, so only an earlier deadline needs a new one
+        if (!scheduled || deadline < scheduledTime) {
+            schedule(deadline - now);
+        }
+    }
+
+    /**
+     * Registers that the sharecart has been saved, by this auto saver or otherwise.
+     */
+    synchronized void onSaved() {
+        if (unsavedChanges > 0) {
+            saveCount++;
+            coalescedSaveCount += unsavedChanges - 1;
+        }
+        unsavedChanges = 0;
+        retryDelayNanos = 0;
+    }
+
+    /**
+     * Forgets about unsaved changes, for instance because the sharecart was loaded again.
+     */
+    synchronized void discard() {
+        unsavedChanges = 0;
+        retryDelayNanos = 0;
+    }
+
+    /**
+     * Saves any unsaved changes on the calling thread.
+     */
+    void flush() {
+        if (hasUnsavedChanges()) {
+            manager.autoSave();
+        }
+    }
+
+    /**
+     * Saves any unsaved changes and stops the background thread.
+     */
+    void stop() {
+        executor.shutdownNow();
+        noLongerSaveOnShutdown(this);
+        flush();
+    }
+
+    synchronized boolean hasUnsavedChanges() {
+        return unsavedChanges > 0;
+    }
+
+    /**
+     * @return The number of saves that included at least one change.
+     */
+    synchronized long getSaveCount() {
+        return saveCount;
+    }
+
+    /**
+     * @return The number of changes that were saved together with an earlier change instead of on their own.
+     */
+    synchronized long getCoalescedSaveCount() {
+        return coalescedSaveCount;
+    }
+
+    /**
+     * @return The number of automatic saves that failed and were tried again.
+     */
+    synchronized long getFailedSaveCount() {
+        return failedSaveCount;
+    }
+
+    /**
+     * @return Whether or not the background thread is running.
+     */
+    boolean hasThread() {
+        return executor.getPoolSize() > 0;
+    }
+
+    boolean isSavedOnShutdown() {
+        synchronized (SAVED_ON_SHUTDOWN) {
+            return SAVED_ON_SHUTDOWN.contains(this);
+        }
+    }
+
+    private void onScheduledSave() {
+        synchronized (this) {
+            scheduled = false;
+            if (unsavedChanges == 0)
+                return;
+
+            long now = System.nanoTime();
+            if (now < deadline) {
+                // Changes were made since the task was scheduled
+                schedule(deadline - now);
+                return;
+            }
+        }
+
+        // Saved outside of the lock, since the manager holds its own lock when it calls into the auto saver
+        boolean saved;
+        try {
+            saved = manager.autoSave();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            saved = false;
+        }
+        if (!saved) {
+            retry();
+        }
+    }
+
+    /**
+     * Schedules the pending changes to be saved again after a failed save, backing off further with each failure.
+     */
+    private synchronized void retry() {
+        if (unsavedChanges == 0)
+            return;
+
+        failedSaveCount++;
+        if (retryDelayNanos == 0) {
+            retryDelayNanos = Math.max(delayNanos, MIN_RETRY_DELAY_MILLIS * NANOS_PER_MILLI);
+        } else {
+            retryDelayNanos = Math.min(retryDelayNanos * 2, MAX_RETRY_DELAY_MILLIS * NANOS_PER_MILLI);
+        }
+
+        long now = System.nanoTime();
+        retryTime = now + retryDelayNanos;
+        deadline = retryTime;
+        if (!scheduled || deadline < scheduledTime) {
+            schedule(retryDelayNanos);
+        }
+    }
+
+    private void schedule(long delay) {
+        if (executor.isShutdown())
+            return;
+
+        scheduled = true;
+        scheduledTime = System.nanoTime() + delay;
+        executor.schedule(saveTask, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private static void saveOnShutdown(SharecartAutoSaver autoSaver) {
+        synchronized (SAVED_ON_SHUTDOWN) {
+            SAVED_ON_SHUTDOWN.add(autoSaver);
+            if (shutdownHook == null) {
+                shutdownHook = new Thread("sharecart-autosave-shutdown") {
+                    @Override
+                    public void run() {
+                        List<SharecartAutoSaver> autoSavers;
+                        synchronized (SAVED_ON_SHUTDOWN) {
+                            autoSavers = new ArrayList<SharecartAutoSaver>(SAVED_ON_SHUTDOWN);
+                        }
+                        for (SharecartAutoSaver autoSaver : autoSavers) {
+                            autoSaver.flush();
+                        }
+                    }
+                };
+                Runtime.getRuntime().addShutdownHook(shutdownHook);
+            }
+        }
+    }
+
+    private static void noLongerSaveOnShutdown(SharecartAutoSaver autoSaver) {
+        synchronized (SAVED_ON_SHUTDOWN) {
+            SAVED_ON_SHUTDOWN.remove(autoSaver);
+            if (SAVED_ON_SHUTDOWN.isEmpty() && shutdownHook != null) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                    shutdownHook = null;
+                } catch (IllegalStateException ignored) {
+                    // The JVM is already shutting down, in which case the hook is running
+                }
+            }
+        }
+    }
+}
@@ -1,16 +1,138 @@
 package io.itch.frogcheese.sharecart;
 
+import java.util.concurrent.Executor;
+
 /**
  * Configuration for the {@link SharecartManager}.
  */
 public class SharecartConfig {
 
     static final int DEFAULT_LEVELS_TO_CHECK = 4;
+    static final long DEFAULT_AUTO_SAVE_DELAY_MILLIS = 500;
+    static final long DEFAULT_AUTO_SAVE_MAX_DELAY_MILLIS = 5000;
+    static final int DEFAULT_AUTO_SAVE_MAX_CHANGES = 100;
+    static final long DEFAULT_HOT_RELOAD_DELAY_MILLIS = 200;
+    static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 1000;
+    static final long DEFAULT_CHANGE_DISPATCH_INTERVAL_MILLIS = 16;
+
+    /**
+     * How far a saved sharecart file is forced to the storage device before a save completes.
+     */
+    public enum Durability {
+        /**
+         * The file is left to the operating system to flush.
+         */
+        NONE,
+        /**
+         * The contents of the file are forced to the storage device.
+         */
+        DATA,
+        /**
+         * The contents and the metadata of the file, such as its size and modification time,
+         * are forced to the storage device.
+         */
+        DATA_AND_METADATA
+    }
+
+    /**
+     * How the sharecart file is locked while it is read or written, to keep other applications that lock it from
+     * seeing a half written file. Readers take a shared lock and writers an exclusive one. On most Unix systems the
+     * locks are advisory, so applications that do not lock the file are not kept out. On Windows they are mandatory,
+     * so other games that read or write the file while it is locked fail to, which is why the lock is only held for
+     * the read or write itself.
+     */
+    public enum LockStrategy {
+        /**
+         * The file is not locked.
+         */
+        NONE,
+        /**
+         * The file is locked, waiting for as long as another application holds a conflicting lock.
+         */
+        WAIT,
+        /**
+         * The file is locked, waiting at most for the lock timeout before the read or write fails.
+         */
+        TRY_LOCK
+    }
+
+    /**
+     * Where the contents of the sharecart file are read from and written to.
+     */
+    public enum StorageBackend {
+        /**
+         * The sharecart file is read and written directly. All of the read and save modes apply.
+         */
+        FILE,
+        /**
+         * The contents are kept in memory and never written to the file system, for instance for tests. Each built
+         * configuration has its own storage, which starts out empty. The file system is not searched for a sharecart
+         * file either, and hot reloading does not apply.
+         */
+        MEMORY,
+        /**
+         * The sharecart file is kept mapped into memory and read and written through the mapping. Writes to the
+         * mapping are forced according to the {@link Builder#setSaveDurability(Durability) save durability}.
+         */
+        MEMORY_MAPPED;
+
+        SharecartStorage createStorage(Durability durability) {
+            switch (this) {
+                case MEMORY:
+                    return new MemorySharecartStorage();
+                case MEMORY_MAPPED:
+                    return new MappedSharecartStorage(durability);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * When {@link SharecartListener listeners} are notified of changes. Changes that have not been reported yet
+     * are always reported together.
+     */
+    public enum ChangeDispatchMode {
+        /**
+         * After each change, on the thread that made it.
+         */
+        IMMEDIATE,
+        /**
+         * When {@link SharecartManager#dispatchChanges()} is called, for instance once per frame.
+         */
+        MANUAL,
+        /**
+         * Every change dispatch interval, on a background thread.
+         */
+        PERIODIC
+    }
 
     private boolean createSharecartIfNotExists = false;
     private int directoryLevelsToCheck = DEFAULT_LEVELS_TO_CHECK;
     private boolean clampToConstraints = false;
+    private ConstraintProfile constraintProfile = ConstraintProfile.STANDARD;
     private boolean strictFileMode = false;
+    private boolean memoryMappedReadMode = false;
+    private boolean lazyDecodingMode = false;
+    private boolean atomicSaveMode = false;
+    private boolean patchSaveMode = false;
+    private boolean autoSaveMode = false;
+    private long autoSaveDelayMillis = DEFAULT_AUTO_SAVE_DELAY_MILLIS;
+    private long autoSaveMaxDelayMillis = DEFAULT_AUTO_SAVE_MAX_DELAY_MILLIS;
+    private int autoSaveMaxChanges = DEFAULT_AUTO_SAVE_MAX_CHANGES;
+    private Executor asyncExecutor;
+    private boolean concurrentMode = false;
+    private boolean hotReloadMode = false;
+    private long hotReloadDelayMillis = DEFAULT_HOT_RELOAD_DELAY_MILLIS;
+    private boolean snapshotMode = false;
+    private boolean preallocatedExceptionMode = false;
+    private Durability saveDurability = Durability.NONE;
+    private LockStrategy lockStrategy = LockStrategy.NONE;
+    private long lockTimeoutMillis = DEFAULT_LOCK_TIMEOUT_MILLIS;
+    private ChangeDispatchMode changeDispatchMode = ChangeDispatchMode.IMMEDIATE;
+    private long changeDispatchIntervalMillis = DEFAULT_CHANGE_DISPATCH_INTERVAL_MILLIS;
+    private StorageBackend storageBackend = StorageBackend.FILE;
+    private SharecartStorage storage;
     private String applicationPath;
 
     /**
@@ -47,6 +169,312 @@ public class SharecartConfig {
             return this;
         }
 
+        /**
+         * Sets whether the sharecart file should be read by mapping it into memory instead of through a stream.
+         * This avoids setting up buffered streams on every load, which is useful when the file is read often.
+         *
+         * @param memoryMapped if true, the file will be memory mapped when it is loaded.
+         * @return This Builder instance.
+         */
+        public Builder setMemoryMappedReadMode(boolean memoryMapped) {
+            config.memoryMappedReadMode = memoryMapped;
+            return this;
+        }
+
+        /**
+         * Sets whether the sharecart parameters should only be decoded when they are first accessed.
+         * Loading will then only scan the file, which is cheaper when just a few parameters are needed.
+         * Note that in strict file read mode, errors in a parameter's value will be thrown when that parameter
+         * is first accessed, rather than when the file is loaded.
+         *
+         * @param lazy if true, each parameter will be decoded from the file on first access.
+         * @return This Builder instance.
+         */
+        public Builder setLazyDecodingMode(boolean lazy) {
+            config.lazyDecodingMode = lazy;
+            return this;
+        }
+
+        /**
+         * Sets whether the sharecart file should be saved atomically. The contents are then written to a temporary
+         * file next to the sharecart file, which is moved over the sharecart file once it is complete. A crash during
+         * a save will then leave the previous contents in place, instead of a truncated file.
+         *
+         * @param atomic if true, saves will write a temporary file and move it over the sharecart file.
+         * @return This Builder instance.
+         */
+        public Builder setAtomicSaveMode(boolean atomic) {
+            config.atomicSaveMode = atomic;
+            return this;
+        }
+
+        /**
+         * Sets whether or not saves should only overwrite the values that changed since the file was last
+         * loaded or saved. This is only possible while every changed value takes up as many bytes as before,
+         * otherwise the whole file is written. Patching is not used in atomic save mode.
+         *
+         * @param patch if true, saves will patch changed values in place when possible.
+         * @return This Builder instance.
+         */
+        public Builder setPatchSaveMode(boolean patch) {
+            config.patchSaveMode = patch;
+            return this;
+        }
+
+        /**
+         * Sets whether or not changes to the sharecart should be saved automatically on a background thread.
+         * Changes made in quick succession are saved together once no further change has been made for the
+         * {@link #setAutoSaveDelay(long) auto save delay}. A failed save keeps the changes, and is tried again with
+         * an increasing delay. Unsaved changes are also saved when the JVM shuts down, unless the manager has been
+         * closed.
+         * <p/>
+         * Call {@link SharecartManager#close()} once a manager is no longer used. Closing saves pending changes right
+         * away and stops the background thread. Without it, pending changes are only saved when they are due, and
+         * the background thread lingers until it has been idle for a second.
+         *
+         * @param autoSave if true, changes will be saved automatically.
+         * @return This Builder instance.
+         */
+        public Builder setAutoSaveMode(boolean autoSave) {
+            config.autoSaveMode = autoSave;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait after a change before it is saved automatically. Every further change restarts the wait.
+         *
+         * @param delayMillis the delay in milliseconds. Defaults to {@value #DEFAULT_AUTO_SAVE_DELAY_MILLIS}.
+         * @return This Builder instance.
+         */
+        public Builder setAutoSaveDelay(long delayMillis) {
+            if (delayMillis < 0) {
+                throw new IllegalArgumentException("Auto save delay cannot be a negative number. Number was " + delayMillis);
+            }
+            config.autoSaveDelayMillis = delayMillis;
+            return this;
+        }
+
+        /**
+         * Sets the longest time an unsaved change is held back while further changes keep restarting the
+         * {@link #setAutoSaveDelay(long) auto save delay}.
+         *
+         * @param maxDelayMillis the maximum delay in milliseconds. Defaults to {@value #DEFAULT_AUTO_SAVE_MAX_DELAY_MILLIS}.
+         * @return This Builder instance.
+         */
+        public Builder setAutoSaveMaxDelay(long maxDelayMillis) {
+            if (maxDelayMillis < 0) {
+                throw new IllegalArgumentException("Auto save max delay cannot be a negative number. Number was " + maxDelayMillis);
+            }
+            config.autoSaveMaxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * Sets how many unsaved changes cause an automatic save right away, without waiting for the delay.
+         *
+         * @param maxChanges the maximum number of unsaved changes. Defaults to {@value #DEFAULT_AUTO_SAVE_MAX_CHANGES}.
+         * @return This Builder instance.
+         */
+        public Builder setAutoSaveMaxChanges(int maxChanges) {
+            if (maxChanges < 1) {
+                throw new IllegalArgumentException("Auto save max changes must be at least one. Number was " + maxChanges);
+            }
+            config.autoSaveMaxChanges = maxChanges;
+            return this;
+        }
+
+        /**
+         * Sets whether or not the sharecart parameters may be read from several threads while they are changed.
+         * Reads never block in this mode, and never see a change half made, but every change copies the sharecart.
+         * Parameters are also decoded right away in this mode, even in {@link #setLazyDecodingMode(boolean) lazy
+         * decoding mode}.
+         *
+         * @param concurrent if true, changes will replace a copy of the sharecart instead of changing it in place.
+         * @return This Builder instance.
+         */
+        public Builder setConcurrentMode(boolean concurrent) {
+            config.concurrentMode = concurrent;
+            return this;
+        }
+
+        /**
+         * Sets whether or not the sharecart file should be reloaded when another application changes it. Once the file
+         * has been loaded, its directory is watched on a background thread, and
+         * {@link SharecartReloadListener reload listeners} are notified after each reload. Unsaved changes are lost
+         * when the file is reloaded.
+         *
+         * @param hotReload if true, the sharecart file will be reloaded when it is changed by another application.
+         * @return This Builder instance.
+         */
+        public Builder setHotReloadMode(boolean hotReload) {
+            config.hotReloadMode = hotReload;
+            return this;
+        }
+
+        /**
+         * Sets whether or not a binary snapshot of the parameters should be kept next to the sharecart file. The
+         * snapshot records the size, modification time and checksum of the sharecart file it was taken from, and is
+         * written whenever the file has been loaded or saved. As long as the file has not changed since, loading
+         * restores the parameters from the snapshot without parsing the file. Otherwise the file is parsed as usual
+         * and the snapshot is replaced. Taking a snapshot decodes all parameters, even when decoding lazily. Only
+         * applies to the {@link StorageBackend#FILE file storage backend}.
+         *
+         * @param snapshot if true, a snapshot will be kept next to the sharecart file.
+         * @return This Builder instance.
+         */
+        public Builder setSnapshotMode(boolean snapshot) {
+            config.snapshotMode = snapshot;
+            return this;
+        }
+
+        /**
+         * Sets whether or not the manager should throw preallocated exceptions when a parameter can't be accessed
+         * or set. Preallocated exceptions have no stack trace and don't name the invalid value, but throwing them
+         * costs no allocation, which matters to games that access parameters every frame. The {@code tryGet} and
+         * {@code trySet} methods of the manager avoid exceptions altogether.
+         *
+         * @param preallocated if true, the manager will throw preallocated exceptions.
+         * @return This Builder instance.
+         */
+        public Builder setPreallocatedExceptionMode(boolean preallocated) {
+            config.preallocatedExceptionMode = preallocated;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for changes to the sharecart file to settle before it is reloaded.
+         *
+         * @param delayMillis the delay in milliseconds. Defaults to {@value #DEFAULT_HOT_RELOAD_DELAY_MILLIS}.
+         * @return This Builder instance.
+         */
+        public Builder setHotReloadDelay(long delayMillis) {
+            if (delayMillis < 0) {
+                throw new IllegalArgumentException("Hot reload delay cannot be a negative number. Number was " + delayMillis);
+            }
+            config.hotReloadDelayMillis = delayMillis;
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs {@link SharecartManager#loadAsync()}, {@link SharecartManager#saveAsync()}
+         * and {@link SharecartManager#validateSharecartFileAsync()}. An executor with more than one thread may run
+         * these operations in a different order than they were requested in.
+         * <p/>
+         * The library targets Java 7, so these operations return a plain {@link java.util.concurrent.Future} that
+         * nothing can be chained onto. Poll {@link java.util.concurrent.Future#isDone()}, for instance once per
+         * frame, or block on {@link java.util.concurrent.Future#get()} to get the result.
+         *
+         * @param executor the executor for asynchronous operations. If null, which is the default, they run one at
+         *                 a time on a background thread owned by the manager.
+         * @return This Builder instance.
+         */
+        public Builder setAsyncExecutor(Executor executor) {
+            config.asyncExecutor = executor;
+            return this;
+        }
+
+        /**
+         * Sets how far the saved sharecart file is forced to the storage device before a save completes.
+         * Stronger durability makes saves slower.
+         *
+         * @param durability the durability of saves. Defaults to {@link Durability#NONE}.
+         * @return This Builder instance.
+         */
+        public Builder setSaveDurability(Durability durability) {
+            if (durability == null) {
+                throw new IllegalArgumentException("Save durability cannot be null.");
+            }
+            config.saveDurability = durability;
+            return this;
+        }
+
+        /**
+         * Sets how the sharecart file is locked while it is read or written.
+         *
+         * @param strategy the lock strategy. Defaults to {@link LockStrategy#NONE}.
+         * @return This Builder instance.
+         */
+        public Builder setLockStrategy(LockStrategy strategy) {
+            if (strategy == null) {
+                throw new IllegalArgumentException("Lock strategy cannot be null.");
+            }
+            config.lockStrategy = strategy;
+            return this;
+        }
+
+        /**
+         * Sets how long to wait for a lock on the sharecart file with {@link LockStrategy#TRY_LOCK}.
+         *
+         * @param timeoutMillis the timeout in milliseconds. Defaults to {@value #DEFAULT_LOCK_TIMEOUT_MILLIS}.
+         * @return This Builder instance.
+         */
+        public Builder setLockTimeout(long timeoutMillis) {
+            if (timeoutMillis < 0) {
+                throw new IllegalArgumentException("Lock timeout cannot be a negative number. Number was " + timeoutMillis);
+            }
+            config.lockTimeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        /**
+         * Sets where the contents of the sharecart file are read from and written to. Except for
+         * {@link StorageBackend#MEMORY}, the sharecart file is still searched for on the file system, and is used as
+         * the key of the contents. Other backends than
+         * {@link StorageBackend#FILE} always read and write the whole contents, so the memory mapped read, atomic
+         * save, patch save and lock settings do not apply to them. Durability only applies to
+         * {@link StorageBackend#MEMORY_MAPPED}.
+         *
+         * @param backend the storage backend. Defaults to {@link StorageBackend#FILE}.
+         * @return This Builder instance.
+         */
+        public Builder setStorageBackend(StorageBackend backend) {
+            if (backend == null) {
+                throw new IllegalArgumentException("Storage backend cannot be null.");
+            }
+            config.storageBackend = backend;
+            return this;
+        }
+
+        /**
+         * Sets a storage of your own to read and write the contents of the sharecart file with, instead of one of the
+         * {@link #setStorageBackend(StorageBackend) storage backends}.
+         *
+         * @param storage the storage to use. If null, which is the default, the storage backend is used.
+         * @return This Builder instance.
+         */
+        public Builder setStorage(SharecartStorage storage) {
+            config.storage = storage;
+            return this;
+        }
+
+        /**
+         * Sets when {@link SharecartListener listeners} are notified of changes to the sharecart parameters.
+         *
+         * @param mode the change dispatch mode. Defaults to {@link ChangeDispatchMode#IMMEDIATE}.
+         * @return This Builder instance.
+         */
+        public Builder setChangeDispatchMode(ChangeDispatchMode mode) {
+            if (mode == null) {
+                throw new IllegalArgumentException("Change dispatch mode cannot be null.");
+            }
+            config.changeDispatchMode = mode;
+            return this;
+        }
+
+        /**
+         * Sets how often changes are dispatched to listeners with {@link ChangeDispatchMode#PERIODIC}.
+         *
+         * @param intervalMillis the interval in milliseconds. Defaults to {@value #DEFAULT_CHANGE_DISPATCH_INTERVAL_MILLIS}.
+         * @return This Builder instance.
+         */
+        public Builder setChangeDispatchInterval(long intervalMillis) {
+            if (intervalMillis <= 0) {
+                throw new IllegalArgumentException("Change dispatch interval must be at least one. Number was " + intervalMillis);
+            }
+            config.changeDispatchIntervalMillis = intervalMillis;
+            return this;
+        }
+
         /**
          * Sets the amount of directories above the application path to check for the existence of a sharecart file.
          *
@@ -72,6 +500,21 @@ public class SharecartConfig {
             return this;
         }
 
+        /**
+         * Sets the limits that parameter values are validated and clamped against, both when reading the sharecart
+         * file and when setting parameters. The default is {@link ConstraintProfile#STANDARD}.
+         *
+         * @param profile the limits to use.
+         * @return This Builder instance.
+         */
+        public Builder setConstraintProfile(ConstraintProfile profile) {
+            if (profile == null) {
+                throw new IllegalArgumentException("Constraint profile cannot be null.");
+            }
+            config.constraintProfile = profile;
+            return this;
+        }
+
         /**
          * Sets the file system path to the running application. This will be used when searching for the sharecart file.
          * This can also be assigned through the System property "application.dir".
@@ -104,7 +547,29 @@ public class SharecartConfig {
         createSharecartIfNotExists = other.createSharecartIfNotExists;
         directoryLevelsToCheck = other.directoryLevelsToCheck;
         clampToConstraints = other.clampToConstraints;
+        constraintProfile = other.constraintProfile;
         strictFileMode = other.strictFileMode;
+        memoryMappedReadMode = other.memoryMappedReadMode;
+        lazyDecodingMode = other.lazyDecodingMode;
+        atomicSaveMode = other.atomicSaveMode;
+        patchSaveMode = other.patchSaveMode;
+        autoSaveMode = other.autoSaveMode;
+        autoSaveDelayMillis = other.autoSaveDelayMillis;
+        autoSaveMaxDelayMillis = other.autoSaveMaxDelayMillis;
+        autoSaveMaxChanges = other.autoSaveMaxChanges;
+        asyncExecutor = other.asyncExecutor;
+        concurrentMode = other.concurrentMode;
+        hotReloadMode = other.hotReloadMode;
+        hotReloadDelayMillis = other.hotReloadDelayMillis;
+        snapshotMode = other.snapshotMode;
+        preallocatedExceptionMode = other.preallocatedExceptionMode;
+        saveDurability = other.saveDurability;
+        lockStrategy = other.lockStrategy;
+        lockTimeoutMillis = other.lockTimeoutMillis;
+        changeDispatchMode = other.changeDispatchMode;
+        changeDispatchIntervalMillis = other.changeDispatchIntervalMillis;
+        storageBackend = other.storageBackend;
+        storage = other.storage != null ? other.storage : other.storageBackend.createStorage(other.saveDurability);
         applicationPath = other.applicationPath;
 
         if (applicationPath == null) {
@@ -133,6 +598,13 @@ public class SharecartConfig {
         return clampToConstraints;
     }
 
+    /**
+     * @return The limits that parameter values are validated and clamped against.
+     */
+    public ConstraintProfile getConstraintProfile() {
+        return constraintProfile;
+    }
+
     /**
      * @return Whether default values will be assigned when encountering errors in the sharecart file,
      * or exceptions will be thrown. If true, exceptions will be thrown for faulty files.
@@ -141,6 +613,154 @@ public class SharecartConfig {
         return strictFileMode;
     }
 
+    /**
+     * @return Whether or not the sharecart file will be memory mapped when it is loaded.
+     */
+    public boolean isMemoryMappedReadMode() {
+        return memoryMappedReadMode;
+    }
+
+    /**
+     * @return Whether or not the sharecart parameters will be decoded from the file when they are first accessed.
+     */
+    public boolean isLazyDecodingMode() {
+        return lazyDecodingMode;
+    }
+
+    /**
+     * @return Whether or not the sharecart file will be saved through a temporary file that replaces it atomically.
+     */
+    public boolean isAtomicSaveMode() {
+        return atomicSaveMode;
+    }
+
+    /**
+     * @return Whether or not saves will only overwrite the values that changed, when possible.
+     */
+    public boolean isPatchSaveMode() {
+        return patchSaveMode;
+    }
+
+    /**
+     * @return Whether or not changes to the sharecart will be saved automatically.
+     */
+    public boolean isAutoSaveMode() {
+        return autoSaveMode;
+    }
+
+    /**
+     * @return How long to wait after a change before it is saved automatically, in milliseconds.
+     */
+    public long getAutoSaveDelay() {
+        return autoSaveDelayMillis;
+    }
+
+    /**
+     * @return The longest time an unsaved change is held back before it is saved automatically, in milliseconds.
+     */
+    public long getAutoSaveMaxDelay() {
+        return autoSaveMaxDelayMillis;
+    }
+
+    /**
+     * @return How many unsaved changes cause an automatic save right away.
+     */
+    public int getAutoSaveMaxChanges() {
+        return autoSaveMaxChanges;
+    }
+
+    /**
+     * @return Whether or not the sharecart parameters may be read from several threads while they are changed.
+     */
+    public boolean isConcurrentMode() {
+        return concurrentMode;
+    }
+
+    /**
+     * @return Whether or not the sharecart file will be reloaded when another application changes it.
+     */
+    public boolean isHotReloadMode() {
+        return hotReloadMode;
+    }
+
+    /**
+     * @return Whether or not a binary snapshot of the parameters will be kept next to the sharecart file.
+     */
+    public boolean isSnapshotMode() {
+        return snapshotMode;
+    }
+
+    /**
+     * @return Whether or not the manager will throw preallocated exceptions without a stack trace.
+     */
+    public boolean isPreallocatedExceptionMode() {
+        return preallocatedExceptionMode;
+    }
+
+    /**
+     * @return How long to wait for changes to the sharecart file to settle before it is reloaded, in milliseconds.
+     */
+    public long getHotReloadDelay() {
+        return hotReloadDelayMillis;
+    }
+
+    /**
+     * @return The executor for asynchronous operations, or null if the manager runs them on its own background thread.
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * @return How far the saved sharecart file is forced to the storage device before a save completes.
+     */
+    public Durability getSaveDurability() {
+        return saveDurability;
+    }
+
+    /**
+     * @return How the sharecart file is locked while it is read or written.
+     */
+    public LockStrategy getLockStrategy() {
+        return lockStrategy;
+    }
+
+    /**
+     * @return How long to wait for a lock on the sharecart file with {@link LockStrategy#TRY_LOCK}, in milliseconds.
+     */
+    public long getLockTimeout() {
+        return lockTimeoutMillis;
+    }
+
+    /**
+     * @return Where the contents of the sharecart file are read from and written to.
+     */
+    public StorageBackend getStorageBackend() {
+        return storageBackend;
+    }
+
+    /**
+     * @return The storage that the contents of the sharecart file are read from and written to, or null if the
+     * sharecart file is read and written directly.
+     */
+    public SharecartStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * @return When listeners are notified of changes to the sharecart parameters.
+     */
+    public ChangeDispatchMode getChangeDispatchMode() {
+        return changeDispatchMode;
+    }
+
+    /**
+     * @return How often changes are dispatched to listeners with {@link ChangeDispatchMode#PERIODIC}, in milliseconds.
+     */
+    public long getChangeDispatchInterval() {
+        return changeDispatchIntervalMillis;
+    }
+
     /**
      * @return The absolute path of the running application.
      */
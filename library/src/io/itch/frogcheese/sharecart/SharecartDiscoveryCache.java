@@ -0,0 +1,172 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers where the sharecart file was found above a starting path, so that searching again does not walk and
+ * check every directory level.
+ * <p/>
+ * Searches walk up the canonical starting path one parent at a time, stopping at the root of the file system, so the
+ * files found have canonical paths as well.
+ * <p/>
+ * Besides the file that was found, a search remembers each directory level where no dat directory was found, and
+ * each dat directory without a sharecart file, together with their modification times. Creating a dat directory or
+ * a sharecart file changes those times, so a remembered result is reused only while none of them have changed and
+ * the file that was found still exists. Results of searches that ran shortly after one of the directories changed
+ * are not remembered, since file systems with a coarse modification time could hide a second change.
+ */
+class SharecartDiscoveryCache {
+
+    /**
+     * How recently a directory may have changed for a search result to still be remembered. Covers the two second
+     * modification time resolution of the coarsest file systems.
+     */
+    static final long UNSTABLE_MILLIS = 2000;
+
+    private final String datDirectoryName;
+    private final String fileName;
+    private final Map<String, Result> results = new HashMap<String, Result>();
+
+    private long hitCount;
+    private long missCount;
+
+    SharecartDiscoveryCache(String datDirectoryName, String fileName) {
+        this.datDirectoryName = datDirectoryName;
+        this.fileName = fileName;
+    }
+
+    /**
+     * Searches for the sharecart file in a dat directory in or above the starting path.
+     *
+     * @param levels             the number of directory levels above the starting path to check.
+     * @param startingPath       the path to start searching from.
+     * @param stopAtDatDirectory whether the search stops at the first dat directory, even if it has no sharecart file.
+     * @return The result of the search.
+     */
+    synchronized Result find(int levels, String startingPath, boolean stopAtDatDirectory) {
+        String key = levels + (stopAtDatDirectory ? ":dat:" : ":") + startingPath;
+        Result result = results.get(key);
+        if (result != null && result.isCurrent()) {
+            hitCount++;
+            return result;
+        }
+
+        missCount++;
+        result = search(levels, startingPath, stopAtDatDirectory);
+        if (result.isStable(System.currentTimeMillis())) {
+            results.put(key, result);
+        } else {
+            results.remove(key);
+        }
+        return result;
+    }
+
+    /**
+     * Forgets all search results, for instance after creating a sharecart file.
+     */
+    synchronized void invalidate() {
+        results.clear();
+    }
+
+    synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private Result search(int levels, String startingPath, boolean stopAtDatDirectory) {
+        List<Path> checked = new ArrayList<Path>();
+        Path directory = SharecartFileUtils.getCanonicalPath(startingPath);
+        for (int i = 0; i <= levels && directory != null; i++, directory = directory.getParent()) {
+            Path datDirectory = directory.resolve(datDirectoryName);
+            if (!Files.isDirectory(datDirectory)) {
+                // Creating a dat directory at this level changes the modification time of its parent
+                checked.add(directory);
+                continue;
+            }
+
+            Path file = datDirectory.resolve(fileName);
+            if (Files.isRegularFile(file)) {
+                return new Result(file, datDirectory, checked);
+            }
+            checked.add(datDirectory);
+            if (stopAtDatDirectory) {
+                return new Result(null, datDirectory, checked);
+            }
+        }
+        return new Result(null, null, checked);
+    }
+
+    /**
+     * Outcome of a search.
+     */
+    static class Result {
+        private final Path file;
+        private final Path datDirectory;
+        private final Path[] checked;
+        private final long[] lastModified;
+
+        private Result(Path file, Path datDirectory, List<Path> checked) {
+            this.file = file;
+            this.datDirectory = datDirectory;
+            this.checked = checked.toArray(new Path[checked.size()]);
+            this.lastModified = new long[this.checked.length];
+            for (int i = 0; i < this.checked.length; i++) {
+                this.lastModified[i] = lastModified(this.checked[i]);
+            }
+        }
+
+        /**
+         * @return The sharecart file, or null if none was found.
+         */
+        File getFile() {
+            return file != null ? file.toFile() : null;
+        }
+
+        /**
+         * @return The dat directory of the sharecart file, or the first dat directory found if the search stopped
+         * there. Null if no dat directory was found.
+         */
+        File getDatDirectory() {
+            return datDirectory != null ? datDirectory.toFile() : null;
+        }
+
+        private boolean isCurrent() {
+            if (file != null && !Files.isRegularFile(file))
+                return false;
+            for (int i = 0; i < checked.length; i++) {
+                if (lastModified(checked[i]) != lastModified[i])
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return The modification time of the file, or zero if it does not exist.
+         */
+        private static long lastModified(Path path) {
+            try {
+                return Files.getLastModifiedTime(path).toMillis();
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+
+        private boolean isStable(long now) {
+            for (long time : lastModified) {
+                if (time > now - UNSTABLE_MILLIS)
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.InvalidParameterException;
+import io.itch.frogcheese.sharecart.error.ParameterNotAccessibleException;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+
+/**
+ * Stages changes to several sharecart parameters, to apply them all at once.
+ * <p/>
+ * Nothing is validated or assigned until {@link #commit()} is called. The staged values are then validated
+ * together, and either all of them are applied as one change, or none are.
+ *
+ * @see SharecartManager#edit()
+ * @see SharecartManager#transaction(SharecartTransaction)
+ */
+public final class SharecartEditor {
+
+    private final SharecartManager manager;
+
+    private int x;
+    private int y;
+    private final int[] misc = new int[PARAMETER_MISC.length];
+    private String name;
+    private int switches;
+
+    /**
+     * Bit mask of the staged parameters, by parameter index.
+     */
+    private int staged;
+    private boolean committed;
+
+    SharecartEditor(SharecartManager manager) {
+        this.manager = manager;
+    }
+
+    /**
+     * Stages a new value for the x parameter.
+     *
+     * @param value x value. Must be between zero and {@link Constraints#MAX_SIZE_X} when committed.
+     * @return This editor.
+     */
+    public SharecartEditor x(int value) {
+        this.x = value;
+        return stage(INDEX_X);
+    }
+
+    /**
+     * Stages a new value for the y parameter.
+     *
+     * @param value y value. Must be between zero and {@link Constraints#MAX_SIZE_Y} when committed.
+     * @return This editor.
+     */
+    public SharecartEditor y(int value) {
+        this.y = value;
+        return stage(INDEX_Y);
+    }
+
+    /**
+     * Stages a new value for the misc parameter with the given index.
+     *
+     * @param index the index of the misc value.
+     * @param value misc value. Must be between zero and {@link Constraints#MAX_SIZE_MISC} when committed.
+     * @return This editor.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to {@link Constraints#MISC_ITEMS_LENGTH}.
+     */
+    public SharecartEditor misc(int index, int value) {
+        if (!Constraints.validMiscIndex(index))
+            throw new IndexOutOfBoundsException("misc" + index);
+
+        this.misc[index] = value;
+        return stage(INDEX_MISC + index);
+    }
+
+    /**
+     * Stages a new value for the name parameter.
+     *
+     * @param value name value. Must be shorter than {@link Constraints#MAX_SIZE_NAME_LENGTH} when committed.
+     * @return This editor.
+     */
+    public SharecartEditor name(String value) {
+        this.name = value;
+        return stage(INDEX_NAME);
+    }
+
+    /**
+     * Stages a new value for the switch parameter with the given index.
+     *
+     * @param index the index of the switch value.
+     * @param value switch value.
+     * @return This editor.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to {@link Constraints#SWITCH_ITEMS_LENGTH}.
+     */
+    public SharecartEditor switchValue(int index, boolean value) {
+        if (!Constraints.validSwitchIndex(index))
+            throw new IndexOutOfBoundsException("switch" + index);
+
+        this.switches = value ? this.switches | 1 << index : this.switches & ~(1 << index);
+        return stage(INDEX_SWITCH + index);
+    }
+
+    /**
+     * Stages new values for all switch parameters.
+     *
+     * @param mask all switch values as a bit mask, with switch0 in the lowest bit.
+     * @return This editor.
+     */
+    public SharecartEditor switchMask(int mask) {
+        checkNotCommitted();
+        this.switches = mask;
+        this.staged |= ((1 << PARAMETER_SWITCH.length) - 1) << INDEX_SWITCH;
+        return this;
+    }
+
+    /**
+     * Validates the staged values and applies them as one change. If any of the values do not fulfill the
+     * constraints, and the manager does not clamp them, nothing is applied.
+     *
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     * @throws InvalidParameterException       if one of the values did not fit the constraints.
+     * @throws IllegalStateException           if the editor has already been committed.
+     */
+    public void commit() {
+        checkNotCommitted();
+        manager.commit(this);
+        this.committed = true;
+    }
+
+    /**
+     * Commits the staged values and saves the sharecart file once, if anything was staged.
+     *
+     * @return {@code true} if the changes could be saved, or there was nothing to save.
+     * @see #commit()
+     */
+    public boolean commitAndSave() {
+        boolean changed = staged != 0;
+        commit();
+        return !changed || manager.save();
+    }
+
+    /**
+     * Checks the staged values against the constraints, clamping them if requested.
+     *
+     * @param preallocated whether to throw preallocated exceptions.
+     * @throws InvalidParameterException if a value did not fit the constraints and clamping is off.
+     */
+    void validate(ConstraintProfile constraints, boolean clamp, boolean preallocated) {
+        if (isStaged(INDEX_X) && !constraints.validX(x)) {
+            if (!clamp)
+                throw invalid(INDEX_X, 0, String.valueOf(x), preallocated);
+            x = constraints.clampX(x);
+        }
+        if (isStaged(INDEX_Y) && !constraints.validY(y)) {
+            if (!clamp)
+                throw invalid(INDEX_Y, 0, String.valueOf(y), preallocated);
+            y = constraints.clampY(y);
+        }
+        for (int i = 0; i < misc.length; i++) {
+            if (isStaged(INDEX_MISC + i) && !constraints.validMisc(misc[i])) {
+                if (!clamp)
+                    throw invalid(INDEX_MISC, i, String.valueOf(misc[i]), preallocated);
+                misc[i] = constraints.clampMisc(misc[i]);
+            }
+        }
+        if (isStaged(INDEX_NAME) && !constraints.validName(name)) {
+            if (!clamp)
+                throw invalid(INDEX_NAME, 0, name, preallocated);
+            name = constraints.clampName(name);
+        }
+    }
+
+    /**
+     * Assigns the staged values that differ from those of the given sharecart.
+     *
+     * @return The parameters that were assigned a different value, as {@link SharecartFields} bits.
+     */
+    int applyTo(Sharecart sharecart) {
+        int changed = 0;
+        if (isStaged(INDEX_X) && (!sharecart.isReadable(INDEX_X) || sharecart.x() != x)) {
+            sharecart.x(x);
+            changed |= SharecartFields.X;
+        }
+        if (isStaged(INDEX_Y) && (!sharecart.isReadable(INDEX_Y) || sharecart.y() != y)) {
+            sharecart.y(y);
+            changed |= SharecartFields.Y;
+        }
+        for (int i = 0; i < misc.length; i++) {
+            if (isStaged(INDEX_MISC + i)
+                    && (!sharecart.isReadable(INDEX_MISC + i) || sharecart.misc(i) != misc[i])) {
+                sharecart.misc(i, misc[i]);
+                changed |= SharecartFields.misc(i);
+            }
+        }
+        if (isStaged(INDEX_NAME) && (!sharecart.isReadable(INDEX_NAME) || !sharecart.name().equals(name))) {
+            sharecart.name(name);
+            changed |= SharecartFields.NAME;
+        }
+        for (int i = 0; i < PARAMETER_SWITCH.length; i++) {
+            boolean value = (switches & (1 << i)) != 0;
+            if (isStaged(INDEX_SWITCH + i)
+                    && (!sharecart.isReadable(INDEX_SWITCH + i) || sharecart.switchValue(i) != value)) {
+                sharecart.switchValue(i, value);
+                changed |= SharecartFields.switchValue(i);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return Whether or not any values have been staged.
+     */
+    boolean hasStagedValues() {
+        return staged != 0;
+    }
+
+    private boolean isStaged(int index) {
+        return (staged & (1 << index)) != 0;
+    }
+
+    private SharecartEditor stage(int index) {
+        checkNotCommitted();
+        this.staged |= 1 << index;
+        return this;
+    }
+
+    private static RuntimeException invalid(int parameter, int index, String value, boolean preallocated) {
+        return SharecartFailures.failure(SharecartResult.INVALID_VALUE, parameter, index, value, preallocated);
+    }
+
+    private void checkNotCommitted() {
+        if (committed)
+            throw new IllegalStateException("The editor has already been committed");
+    }
+}
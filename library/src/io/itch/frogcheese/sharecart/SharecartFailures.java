@@ -0,0 +1,173 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.InvalidParameterException;
+import io.itch.frogcheese.sharecart.error.ParameterNotAccessibleException;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+
+/**
+ * Creates the exceptions for parameters that could not be accessed or set.
+ * <p/>
+ * Parameters are identified by the index of their first parameter, such as {@code INDEX_MISC}, and the index
+ * within it for misc and switch parameters. Preallocated exceptions are shared instances without a stack trace or
+ * the invalid value, one per parameter and kind of failure, so throwing them allocates nothing. Accessors of several
+ * parameters at once name them as a group, such as {@link #ALL_SWITCHES}.
+ */
+final class SharecartFailures {
+
+    static final String ALL_SWITCHES = "switches";
+    static final String ALL_MISC = "misc";
+    static final String ALL_PARAMETERS = "sharecart";
+
+    private static final RuntimeException[] NOT_ACCESSIBLE = new RuntimeException[PARAMETER_COUNT];
+    private static final RuntimeException[] INVALID_VALUE = new RuntimeException[PARAMETER_COUNT];
+
+    /**
+     * For misc and switch indexes that are out of range.
+     */
+    private static final RuntimeException MISC_NOT_ACCESSIBLE = ParameterNotAccessibleException.withoutStackTrace("misc");
+    private static final RuntimeException MISC_INVALID_VALUE = InvalidParameterException.withoutStackTrace("misc");
+    private static final RuntimeException MISC_INVALID_INDEX = new StacklessIndexOutOfBoundsException("misc");
+    private static final RuntimeException SWITCH_NOT_ACCESSIBLE = ParameterNotAccessibleException.withoutStackTrace("switch");
+    private static final RuntimeException SWITCH_INVALID_INDEX = new StacklessIndexOutOfBoundsException("switch");
+
+    private static final RuntimeException ALL_SWITCHES_NOT_ACCESSIBLE =
+            ParameterNotAccessibleException.withoutStackTrace(ALL_SWITCHES);
+    private static final RuntimeException ALL_SWITCHES_INVALID_VALUE =
+            InvalidParameterException.withoutStackTrace(ALL_SWITCHES);
+    private static final RuntimeException ALL_MISC_NOT_ACCESSIBLE =
+            ParameterNotAccessibleException.withoutStackTrace(ALL_MISC);
+    private static final RuntimeException ALL_PARAMETERS_NOT_ACCESSIBLE =
+            ParameterNotAccessibleException.withoutStackTrace(ALL_PARAMETERS);
+
+    static {
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            String name = name(i);
+            NOT_ACCESSIBLE[i] = ParameterNotAccessibleException.withoutStackTrace(name);
+            INVALID_VALUE[i] = InvalidParameterException.withoutStackTrace(name);
+        }
+    }
+
+    private SharecartFailures() {
+    }
+
+    /**
+     * Returns the exception for a failure, preallocated or not.
+     *
+     * @see #create(SharecartResult, int, int, String)
+     * @see #preallocated(SharecartResult, int, int)
+     */
+    static RuntimeException failure(SharecartResult result, int parameter, int index, String value,
+                                    boolean preallocated) {
+        return preallocated ? preallocated(result, parameter, index) : create(result, parameter, index, value);
+    }
+
+    /**
+     * Returns the exception for a group of parameters that could not be accessed.
+     *
+     * @param parameters   {@link #ALL_SWITCHES}, {@link #ALL_MISC} or {@link #ALL_PARAMETERS}.
+     * @param preallocated whether to return the preallocated exception.
+     * @return The exception to throw.
+     */
+    static RuntimeException notAccessible(String parameters, boolean preallocated) {
+        if (!preallocated)
+            return new ParameterNotAccessibleException(parameters);
+        if (ALL_SWITCHES.equals(parameters))
+            return ALL_SWITCHES_NOT_ACCESSIBLE;
+        if (ALL_MISC.equals(parameters))
+            return ALL_MISC_NOT_ACCESSIBLE;
+        if (ALL_PARAMETERS.equals(parameters))
+            return ALL_PARAMETERS_NOT_ACCESSIBLE;
+        throw new IllegalArgumentException(parameters + " is not a group of parameters");
+    }
+
+    /**
+     * Returns the exception for a mask of switch values with bits set above the last switch.
+     *
+     * @param mask         the invalid mask.
+     * @param preallocated whether to return the preallocated exception.
+     * @return The exception to throw.
+     */
+    static RuntimeException invalidSwitches(int mask, boolean preallocated) {
+        return preallocated ? ALL_SWITCHES_INVALID_VALUE : new InvalidParameterException(ALL_SWITCHES, mask);
+    }
+
+    /**
+     * Creates a new exception for a failure.
+     *
+     * @param result    the failure.
+     * @param parameter the index of the parameter, or of the first misc or switch parameter.
+     * @param index     the index of the misc or switch parameter, otherwise zero.
+     * @param value     the invalid value, for {@link SharecartResult#INVALID_VALUE}.
+     * @return The exception to throw.
+     */
+    static RuntimeException create(SharecartResult result, int parameter, int index, String value) {
+        String name = parameter == INDEX_MISC || parameter == INDEX_SWITCH ? name(parameter) + index : name(parameter);
+        switch (result) {
+            case NOT_ACCESSIBLE:
+                return new ParameterNotAccessibleException(name);
+            case INVALID_VALUE:
+                return new InvalidParameterException(name, value);
+            case INVALID_INDEX:
+                return new IndexOutOfBoundsException(name);
+            default:
+                throw new IllegalArgumentException(result + " is not a failure");
+        }
+    }
+
+    /**
+     * Returns the preallocated exception for a failure.
+     *
+     * @see #create(SharecartResult, int, int, String)
+     */
+    static RuntimeException preallocated(SharecartResult result, int parameter, int index) {
+        boolean misc = parameter == INDEX_MISC;
+        boolean indexed = misc || parameter == INDEX_SWITCH;
+        boolean inRange = !indexed || (misc ? Constraints.validMiscIndex(index) : Constraints.validSwitchIndex(index));
+
+        switch (result) {
+            case NOT_ACCESSIBLE:
+                if (!inRange)
+                    return misc ? MISC_NOT_ACCESSIBLE : SWITCH_NOT_ACCESSIBLE;
+                return NOT_ACCESSIBLE[parameter + index];
+            case INVALID_VALUE:
+                // Switches have no invalid values
+                if (!inRange)
+                    return MISC_INVALID_VALUE;
+                return INVALID_VALUE[parameter + index];
+            case INVALID_INDEX:
+                return misc ? MISC_INVALID_INDEX : SWITCH_INVALID_INDEX;
+            default:
+                throw new IllegalArgumentException(result + " is not a failure");
+        }
+    }
+
+    /**
+     * @return The name of the parameter with the given index, without the index for misc and switch parameters.
+     */
+    private static String name(int parameter) {
+        if (parameter == INDEX_X)
+            return "x";
+        if (parameter == INDEX_Y)
+            return "y";
+        if (parameter == INDEX_NAME)
+            return "name";
+        if (parameter >= INDEX_SWITCH)
+            return parameter == INDEX_SWITCH ? "switch" : "switch" + (parameter - INDEX_SWITCH);
+        return parameter == INDEX_MISC ? "misc" : "misc" + (parameter - INDEX_MISC);
+    }
+
+    private static class StacklessIndexOutOfBoundsException extends IndexOutOfBoundsException {
+
+        private static final long serialVersionUID = 1L;
+
+        StacklessIndexOutOfBoundsException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
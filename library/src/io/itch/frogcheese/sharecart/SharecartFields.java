@@ -0,0 +1,59 @@
+package io.itch.frogcheese.sharecart;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+
+/**
+ * Bit masks for the sharecart parameters, as passed to {@link SharecartListener#onSharecartChanged}.
+ */
+public final class SharecartFields {
+
+    public static final int X = 1 << INDEX_X;
+    public static final int Y = 1 << INDEX_Y;
+    /**
+     * All misc parameters.
+     */
+    public static final int MISC = ((1 << PARAMETER_MISC.length) - 1) << INDEX_MISC;
+    public static final int NAME = 1 << INDEX_NAME;
+    /**
+     * All switch parameters.
+     */
+    public static final int SWITCHES = ((1 << PARAMETER_SWITCH.length) - 1) << INDEX_SWITCH;
+    /**
+     * All parameters.
+     */
+    public static final int ALL = (1 << PARAMETER_COUNT) - 1;
+
+    private SharecartFields() {
+
+    }
+
+    /**
+     * @param index the index of the misc value.
+     * @return The bit of the misc parameter with the given index.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to {@link Constraints#MISC_ITEMS_LENGTH}.
+     */
+    public static int misc(int index) {
+        if (!Constraints.validMiscIndex(index))
+            throw new IndexOutOfBoundsException("misc" + index);
+        return 1 << (INDEX_MISC + index);
+    }
+
+    /**
+     * @param index the index of the switch value.
+     * @return The bit of the switch parameter with the given index.
+     * @throws IndexOutOfBoundsException if the index is less than zero or greater or equal to {@link Constraints#SWITCH_ITEMS_LENGTH}.
+     */
+    public static int switchValue(int index) {
+        if (!Constraints.validSwitchIndex(index))
+            throw new IndexOutOfBoundsException("switch" + index);
+        return 1 << (INDEX_SWITCH + index);
+    }
+
+    /**
+     * @param switchMask switch values as a bit mask, with switch0 in the lowest bit.
+     * @return The bits of the switch parameters set in the given mask.
+     */
+    static int switches(int switchMask) {
+        return (switchMask << INDEX_SWITCH) & SWITCHES;
+    }
+}
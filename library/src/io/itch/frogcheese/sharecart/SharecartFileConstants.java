@@ -39,6 +39,47 @@ class SharecartFileConstants {
             "Switch0", "Switch1", "Switch2", "Switch3", "Switch4", "Switch5", "Switch6", "Switch7"
     };
 
+    /**
+     * Index of the X parameter, in the order that parameters appear in a sharecart file.
+     */
+    public static final int INDEX_X = 0;
+
+    /**
+     * Index of the Y parameter, in the order that parameters appear in a sharecart file.
+     */
+    public static final int INDEX_Y = 1;
+
+    /**
+     * Index of the first Misc parameter, in the order that parameters appear in a sharecart file.
+     */
+    public static final int INDEX_MISC = 2;
+
+    /**
+     * Index of the Name parameter, in the order that parameters appear in a sharecart file.
+     */
+    public static final int INDEX_NAME = INDEX_MISC + PARAMETER_MISC.length;
+
+    /**
+     * Index of the first Switch parameter, in the order that parameters appear in a sharecart file.
+     */
+    public static final int INDEX_SWITCH = INDEX_NAME + 1;
+
+    /**
+     * Total amount of parameters in a sharecart file.
+     */
+    public static final int PARAMETER_COUNT = INDEX_SWITCH + PARAMETER_SWITCH.length;
+
+    /**
+     * Keys for all parameters, ordered by their index.
+     */
+    public static final String[] PARAMETER_KEYS = new String[]{
+            PARAMETER_X, PARAMETER_Y,
+            PARAMETER_MISC[0], PARAMETER_MISC[1], PARAMETER_MISC[2], PARAMETER_MISC[3],
+            PARAMETER_NAME,
+            PARAMETER_SWITCH[0], PARAMETER_SWITCH[1], PARAMETER_SWITCH[2], PARAMETER_SWITCH[3],
+            PARAMETER_SWITCH[4], PARAMETER_SWITCH[5], PARAMETER_SWITCH[6], PARAMETER_SWITCH[7]
+    };
+
     /**
      * Delimiter between parameters. A CRLF line break.
      */
@@ -55,4 +96,18 @@ class SharecartFileConstants {
      */
     public static final String DELIMITER_VALUE = "=";
 
+    /**
+     * Converts a string of ASCII characters, such as the keys and delimiters above, to bytes.
+     *
+     * @param string the ASCII string.
+     * @return The bytes of the string.
+     */
+    static byte[] asciiBytes(String string) {
+        byte[] bytes = new byte[string.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) string.charAt(i);
+        }
+        return bytes;
+    }
+
 }
@@ -3,6 +3,8 @@ package io.itch.frogcheese.sharecart;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 
 public abstract class SharecartFileInterface {
@@ -27,26 +29,61 @@ public abstract class SharecartFileInterface {
 
     public abstract SharecartFileReader getNewSharecartFileReader(SharecartFile file) throws FileNotFoundException;
 
+    public abstract SharecartFileReader getNewMappedSharecartFileReader(SharecartFile file) throws IOException;
+
     public abstract SharecartFileWriter getNewSharecartFileWriter(SharecartFile file) throws FileNotFoundException;
 
+    public abstract SharecartFileWriter getNewAtomicSharecartFileWriter(SharecartFile file) throws IOException;
+
+    public abstract SharecartFileWriter getNewPatchingSharecartFileWriter(SharecartFile file) throws FileNotFoundException;
+
     public abstract SharecartFile findIniFile(int directoryLevelsToCheck, String startingPath);
 
     public abstract SharecartFile findOrCreateIniFile(int directoryLevelsToCheck, String startingPath);
 
+    /**
+     * Returns where the sharecart file of the application would be created, without looking at the file system.
+     *
+     * @param startingPath the path of the application.
+     * @return The sharecart file in the dat directory next to the application. It may not exist.
+     */
+    static SharecartFile virtualIniFile(String startingPath) {
+        File application = new File(startingPath).getAbsoluteFile();
+        File directory = application.getParentFile() != null ? application.getParentFile() : application;
+        return SharecartFile.fromFile(new File(new File(directory, DAT_DIRECTORY), SHARECART_FILE));
+    }
+
     /**
      * Default implementation.
      */
     private static class SharecartFileInterfaceImpl extends SharecartFileInterface {
+        private final SharecartDiscoveryCache discoveryCache = new SharecartDiscoveryCache(DAT_DIRECTORY, SHARECART_FILE);
+
         @Override
         public SharecartFileReader getNewSharecartFileReader(SharecartFile file) throws FileNotFoundException {
             return new SharecartFileReader(file.getFile());
         }
 
+        @Override
+        public SharecartFileReader getNewMappedSharecartFileReader(SharecartFile file) throws IOException {
+            return SharecartFileReader.mapped(file.getFile());
+        }
+
         @Override
         public SharecartFileWriter getNewSharecartFileWriter(SharecartFile file) throws FileNotFoundException {
             return new SharecartFileWriter(file.getFile());
         }
 
+        @Override
+        public SharecartFileWriter getNewAtomicSharecartFileWriter(SharecartFile file) throws IOException {
+            return SharecartFileWriter.atomic(file.getFile());
+        }
+
+        @Override
+        public SharecartFileWriter getNewPatchingSharecartFileWriter(SharecartFile file) throws FileNotFoundException {
+            return SharecartFileWriter.patching(file.getFile());
+        }
+
         public SharecartFile findIniFile(int directoryLevelsToCheck, String startingPath) {
             return findIniFile(directoryLevelsToCheck, startingPath, false);
         }
@@ -56,33 +93,33 @@ public abstract class SharecartFileInterface {
         }
 
         private SharecartFile findIniFile(int directoryLevelsToCheck, String startingPath, boolean createIfNotExists) {
-            for (int i = 0; i <= directoryLevelsToCheck; i++) {
-                File file = SharecartFileUtils.getFileAboveDirectory(i, startingPath, DAT_DIRECTORY);
-                if (file.exists()) {
-                    file = new File(file, SHARECART_FILE);
-                    if (file.exists()) {
-                        return SharecartFile.fromFile(file);
-                    }
-                    if (createIfNotExists) {
-                        return createIniFile(file);
-                    }
-                }
+            SharecartDiscoveryCache.Result result = discoveryCache.find(directoryLevelsToCheck, startingPath,
+                    createIfNotExists);
+            if (result.getFile() != null) {
+                return SharecartFile.fromFile(result.getFile());
             }
-            if(createIfNotExists) {
-                return createDatDirectory(directoryLevelsToCheck, startingPath);
+            if (!createIfNotExists) {
+                return null;
             }
-            return null;
+
+            // The directories are about to change, so earlier search results are no longer of use
+            discoveryCache.invalidate();
+            if (result.getDatDirectory() != null) {
+                return createIniFile(new File(result.getDatDirectory(), SHARECART_FILE));
+            }
+            return createDatDirectory(directoryLevelsToCheck, startingPath);
         }
 
         private SharecartFile createDatDirectory(int directoryLevelsToCheck, String startingPath) {
-            for (int i = 0; i <= directoryLevelsToCheck; i++) {
-                File dir = SharecartFileUtils.getFileAboveDirectory(i, startingPath, "../");
-                if (dir.exists() && dir.isDirectory()) {
-                    File dat = new File(dir, DAT_DIRECTORY);
-                    if (dat.mkdir()) {
-                        File iniFile = new File(dat, SHARECART_FILE);
-                        return createIniFile(iniFile);
-                    }
+            Path directory = SharecartFileUtils.getCanonicalPath(startingPath).getParent();
+            for (int i = 0; i <= directoryLevelsToCheck && directory != null; i++, directory = directory.getParent()) {
+                if (!Files.isDirectory(directory))
+                    continue;
+                try {
+                    Path dat = Files.createDirectory(directory.resolve(DAT_DIRECTORY));
+                    return createIniFile(dat.resolve(SHARECART_FILE).toFile());
+                } catch (IOException ignored) {
+                    // Already exists or could not be created, try the next level
                 }
             }
             return null;
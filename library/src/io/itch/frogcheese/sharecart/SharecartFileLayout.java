@@ -0,0 +1,131 @@
+package io.itch.frogcheese.sharecart;
+
+import java.util.Arrays;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.PARAMETER_COUNT;
+
+/**
+ * Byte offsets of the parameter values in a sharecart file, as of the last time it was read or written.
+ * Used to patch single values in place. The length and modification time of the file are recorded as well,
+ * so that a file changed by someone else is not patched with stale offsets.
+ */
+class SharecartFileLayout {
+
+    private final int[] valueStarts = new int[PARAMETER_COUNT];
+    private final int[] valueEnds = new int[PARAMETER_COUNT];
+
+    private long fileLength = -1;
+    private long fileLastModified = -1;
+    private long fileChecksum = -1;
+
+    SharecartFileLayout() {
+        Arrays.fill(valueStarts, -1);
+        Arrays.fill(valueEnds, -1);
+    }
+
+    /**
+     * Records the location of a parameter value in the file.
+     *
+     * @param index the index of the parameter.
+     * @param start offset of the first byte of the value.
+     * @param end   offset after the last byte of the value.
+     */
+    void setValueBounds(int index, int start, int end) {
+        valueStarts[index] = start;
+        valueEnds[index] = end;
+    }
+
+    /**
+     * Marks the location of a parameter value as unknown, for instance because the parameter is defined twice.
+     *
+     * @param index the index of the parameter.
+     */
+    void invalidate(int index) {
+        valueStarts[index] = -1;
+        valueEnds[index] = -1;
+    }
+
+    /**
+     * @param index the index of the parameter.
+     * @return Whether or not the location of the parameter value is known.
+     */
+    boolean hasValue(int index) {
+        return valueStarts[index] >= 0;
+    }
+
+    /**
+     * @param index the index of the parameter.
+     * @return Offset of the first byte of the value, or -1 if unknown.
+     */
+    int valueStart(int index) {
+        return valueStarts[index];
+    }
+
+    /**
+     * @param index the index of the parameter.
+     * @return Length of the value in bytes, or -1 if unknown.
+     */
+    int valueLength(int index) {
+        return hasValue(index) ? valueEnds[index] - valueStarts[index] : -1;
+    }
+
+    /**
+     * Records the state of the file that the offsets are valid for.
+     *
+     * @param length       the length of the file.
+     * @param lastModified the modification time of the file.
+     */
+    void setFileState(long length, long lastModified) {
+        setFileState(length, lastModified, -1);
+    }
+
+    /**
+     * Records the state of the file that the offsets are valid for, including the checksum of its contents.
+     *
+     * @param length       the length of the file.
+     * @param lastModified the modification time of the file.
+     * @param checksum     the CRC32 checksum of the contents of the file, or -1 if unknown.
+     */
+    void setFileState(long length, long lastModified, long checksum) {
+        this.fileLength = length;
+        this.fileLastModified = lastModified;
+        this.fileChecksum = checksum;
+    }
+
+    /**
+     * @return Whether or not the state of the file has been recorded.
+     */
+    boolean hasFileState() {
+        return fileLength >= 0;
+    }
+
+    /**
+     * @return The recorded length of the file, or -1 if unknown.
+     */
+    long fileLength() {
+        return fileLength;
+    }
+
+    /**
+     * @return The recorded modification time of the file, or -1 if unknown.
+     */
+    long fileLastModified() {
+        return fileLastModified;
+    }
+
+    /**
+     * @return The recorded CRC32 checksum of the contents of the file, or -1 if unknown.
+     */
+    long fileChecksum() {
+        return fileChecksum;
+    }
+
+    /**
+     * @param length       the current length of the file.
+     * @param lastModified the current modification time of the file.
+     * @return Whether or not the offsets are still valid for a file in the given state.
+     */
+    boolean matchesFileState(long length, long lastModified) {
+        return hasFileState() && fileLength == length && fileLastModified == lastModified;
+    }
+}
@@ -0,0 +1,98 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * Acquires locks on the sharecart file according to a {@link SharecartConfig.LockStrategy}.
+ * Readers take shared locks and writers exclusive ones, so that applications using these locks never read
+ * a file that is half written, or write it at the same time.
+ * <p/>
+ * Whether the locks keep out applications that do not lock the file depends on the platform. On most Unix systems
+ * they are advisory, and only applications that lock the file themselves wait for them. On Windows they are
+ * mandatory, so any other game that reads or writes the sharecart file while it is locked fails to do so.
+ * Readers and writers therefore hold a lock only while they read or write the file. Contents are parsed, encoded
+ * and forced outside of the lock, except by memory mapped readers, whose mapping would follow later writes.
+ */
+class SharecartFileLocks {
+
+    /**
+     * How long to wait before trying again when the lock is held by someone else.
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 5;
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private SharecartFileLocks() {
+
+    }
+
+    /**
+     * Locks the whole file of the given channel.
+     *
+     * @param channel       the channel of the file. Must be readable for shared locks, and writable for exclusive ones.
+     * @param shared        whether to take a shared lock instead of an exclusive one.
+     * @param strategy      how to acquire the lock.
+     * @param timeoutMillis how long to keep trying with {@link SharecartConfig.LockStrategy#TRY_LOCK}.
+     * @param statistics    counters to record the acquisition in.
+     * @return The lock, or null if the strategy is {@link SharecartConfig.LockStrategy#NONE}.
+     * @throws IOException if the lock could not be acquired in time.
+     */
+    static FileLock acquire(FileChannel channel, boolean shared, SharecartConfig.LockStrategy strategy,
+                            long timeoutMillis, SharecartLockStatistics statistics) throws IOException {
+        if (strategy == SharecartConfig.LockStrategy.NONE)
+            return null;
+
+        long start = System.nanoTime();
+        FileLock lock = tryLock(channel, shared);
+        boolean contended = lock == null;
+
+        while (lock == null) {
+            long waited = System.nanoTime() - start;
+            if (strategy == SharecartConfig.LockStrategy.TRY_LOCK && waited >= timeoutMillis * NANOS_PER_MILLI) {
+                statistics.recordFailed(waited);
+                throw new IOException("Timed out waiting " + timeoutMillis + " ms for a lock on the sharecart file");
+            }
+
+            if (strategy == SharecartConfig.LockStrategy.WAIT) {
+                try {
+                    lock = channel.lock(0, Long.MAX_VALUE, shared);
+                    break;
+                } catch (OverlappingFileLockException ignored) {
+                    // Held within this JVM, which lock() would not wait for
+                }
+            }
+
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a lock on the sharecart file");
+            }
+            lock = tryLock(channel, shared);
+        }
+
+        statistics.recordAcquired(contended, System.nanoTime() - start);
+        return lock;
+    }
+
+    /**
+     * Releases a lock returned by {@link #acquire}, if any.
+     */
+    static void release(FileLock lock) throws IOException {
+        if (lock != null && lock.isValid()) {
+            lock.release();
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel, boolean shared) throws IOException {
+        try {
+            return channel.tryLock(0, Long.MAX_VALUE, shared);
+        } catch (OverlappingFileLockException e) {
+            // Another thread of this JVM holds a lock on the file
+            return null;
+        }
+    }
+}
@@ -1,39 +1,183 @@
 package io.itch.frogcheese.sharecart;
 
 import io.itch.frogcheese.sharecart.error.SharecartFormatException;
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
 
 /**
  * Handles reading from a sharecart file.
+ * <p/>
+ * The file is read into a reusable byte buffer and parsed in place. Keys, values and line breaks are found by
+ * scanning the bytes, and numeric and boolean values are decoded without creating intermediate strings.
  */
 class SharecartFileReader implements Closeable {
 
-    private Scanner scanner;
+    /**
+     * Size of the per-thread buffer that file contents are read into. Files larger than this
+     * get a buffer of their own.
+     */
+    static final int READ_BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<byte[]> READ_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[READ_BUFFER_SIZE];
+        }
+    };
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte VALUE_DELIMITER = '=';
+    private static final byte QUOTE = '"';
+
+    private static final byte[] TRUE = asciiBytes("true");
+    private static final byte[] FALSE = asciiBytes("false");
+
+    /**
+     * Keys for all parameters, ordered by index.
+     */
+    private static final byte[][] KEYS = new byte[PARAMETER_COUNT][];
+
+    static {
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            KEYS[i] = asciiBytes(PARAMETER_KEYS[i]);
+        }
+    }
+
+    private File file;
+    private InputStream input;
+    /**
+     * Channel of the file, used to lock it and, for memory mapped readers, to map it.
+     */
+    private FileChannel channel;
+    private boolean memoryMapped;
+    /**
+     * Storage to read the contents from instead of the file, if any.
+     */
+    private SharecartStorage storage;
+    private SharecartFileLayout layout;
+
+    private SharecartConfig.LockStrategy lockStrategy = SharecartConfig.LockStrategy.NONE;
+    private long lockTimeoutMillis;
+    private SharecartLockStatistics lockStatistics;
 
     private boolean isStrict;
+    private ConstraintProfile constraints = ConstraintProfile.STANDARD;
+
+    /**
+     * The buffer currently being parsed, and the read position within it.
+     */
+    private ByteBuffer buffer;
+    private int position;
+
+    /**
+     * Bounds of the current token. Points into {@link #buffer}, or into {@link #scratch} when the token
+     * had carriage returns that needed to be stripped.
+     */
+    private ByteBuffer token;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Bounds of the key and value in the current token, set by {@link #findKeyValuePair()}.
+     */
+    private int keyEnd;
+    private int valueStart;
+    private int valueEnd;
 
-    private String latestToken;
+    /**
+     * Whether or not the last value read was faulty and had to be substituted with a default value.
+     */
+    private boolean valueDefaulted;
+
+    private ByteBuffer scratch;
 
     /**
      * Constructor.
      *
-     * @param file the file that should be written to.
+     * @param file the file that should be read from.
      * @throws FileNotFoundException
      */
     public SharecartFileReader(File file) throws FileNotFoundException {
         if (file == null)
             throw new IllegalArgumentException("File cannot be null");
 
-        this.scanner = new Scanner(file)
-                .useDelimiter(SharecartFileConstants.DELIMITER_PARAMETER_PATTERN);
-        this.scanner.next();
+        this.file = file;
+        FileInputStream input = new FileInputStream(file);
+        this.input = input;
+        this.channel = input.getChannel();
+    }
+
+    private SharecartFileReader(File file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.memoryMapped = true;
+    }
+
+    private SharecartFileReader(File file, SharecartStorage storage) {
+        this.file = file;
+        this.storage = storage;
+    }
+
+    /**
+     * Creates a reader that parses the contents a storage has for the file, instead of reading the file itself.
+     * Storages are not locked, and the layout that is read has no file state, so it cannot be patched.
+     *
+     * @param file    the file that should be read from.
+     * @param storage the storage to read the contents of the file from.
+     * @return A new reader for the stored file.
+     */
+    public static SharecartFileReader stored(File file, SharecartStorage storage) {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+        if (storage == null)
+            throw new IllegalArgumentException("Storage cannot be null");
+
+        return new SharecartFileReader(file, storage);
+    }
+
+    /**
+     * Creates a reader that maps the file into memory and parses the mapped bytes directly,
+     * instead of reading them through a stream.
+     *
+     * @param file the file that should be read from.
+     * @return A new reader for the mapped file.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException           if the file could not be mapped.
+     */
+    public static SharecartFileReader mapped(File file) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+
+        // The file is mapped when it is read, so that the mapping covers the file as it is while locked
+        return new SharecartFileReader(file, new RandomAccessFile(file, "r").getChannel());
+    }
+
+    /**
+     * Sets how the reader takes a shared lock on the file while reading it.
+     *
+     * @param strategy      how to acquire the lock.
+     * @param timeoutMillis how long to keep trying with {@link SharecartConfig.LockStrategy#TRY_LOCK}.
+     * @param statistics    counters to record the lock acquisitions in.
+     */
+    public void setLocking(SharecartConfig.LockStrategy strategy, long timeoutMillis, SharecartLockStatistics statistics) {
+        if (strategy == null)
+            throw new IllegalArgumentException("Lock strategy cannot be null");
+        this.lockStrategy = strategy;
+        this.lockTimeoutMillis = timeoutMillis;
+        this.lockStatistics = statistics;
     }
 
     /**
@@ -54,147 +198,578 @@ class SharecartFileReader implements Closeable {
         return isStrict;
     }
 
+    /**
+     * Sets the limits that parameter values are checked against, and clamped to when the reader isn't strict.
+     *
+     * @param profile the limits to use. The default is {@link ConstraintProfile#STANDARD}.
+     */
+    public void setConstraintProfile(ConstraintProfile profile) {
+        if (profile == null)
+            throw new IllegalArgumentException("Constraint profile cannot be null");
+        this.constraints = profile;
+    }
+
+    /**
+     * @return The limits that parameter values are checked against.
+     */
+    public ConstraintProfile getConstraintProfile() {
+        return constraints;
+    }
+
     /**
      * Reads the contents of the file into a Sharecart object.
      *
      * @return A new Sharecart containing the parameters of the file.
+     * @throws IOException if the file could not be read.
      */
-    public Sharecart read() {
-        Sharecart ret = new Sharecart();
+    public Sharecart read() throws IOException {
+        if (storage != null)
+            return parse(storage.read(file));
 
-        ret.x(readInt(SharecartFileConstants.PARAMETER_X));
-        ret.y(readInt(SharecartFileConstants.PARAMETER_Y));
-        for (int i = 0; i < SharecartFileConstants.PARAMETER_MISC.length; i++) {
-            ret.misc(i, readInt(SharecartFileConstants.PARAMETER_MISC[i]));
+        long lastModified;
+        ByteBuffer contents;
+        FileLock lock = SharecartFileLocks.acquire(channel, true, lockStrategy, lockTimeoutMillis, lockStatistics);
+        try {
+            lastModified = file.lastModified();
+            if (memoryMapped) {
+                // The mapping follows later writes to the file, so it is parsed while they are locked out
+                return parse(map(), lastModified);
+            }
+            contents = readFully();
+        } finally {
+            SharecartFileLocks.release(lock);
         }
-        ret.name(readString(SharecartFileConstants.PARAMETER_NAME));
-        for (int i = 0; i < SharecartFileConstants.PARAMETER_SWITCH.length; i++) {
-            ret.switchValue(i, readBoolean(SharecartFileConstants.PARAMETER_SWITCH[i]));
+        // Parsed once the lock is released, since the contents have been read into a buffer of our own
+        return parse(contents, lastModified);
+    }
+
+    /**
+     * @return The offsets of the parameter values in the file as of the last read, or null if nothing has been read.
+     */
+    public SharecartFileLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Reads the contents of the file into a Sharecart that only decodes each parameter when it is first accessed.
+     * The file is scanned once to find the parameters, but their values are neither decoded nor checked against
+     * the constraints until then. In strict mode, an invalid value will throw when its parameter is accessed.
+     * <p/>
+     * The returned Sharecart uses this reader to decode its values, and is not safe to share between threads.
+     *
+     * @return A new Sharecart containing the parameters of the file.
+     * @throws IOException if the file could not be read.
+     */
+    public Sharecart readLazy() throws IOException {
+        // Stored contents do not change once read, so they need no copy
+        if (storage != null)
+            return scan(storage.read(file));
+
+        long lastModified;
+        byte[] copy;
+        FileLock lock = SharecartFileLocks.acquire(channel, true, lockStrategy, lockTimeoutMillis, lockStatistics);
+        try {
+            lastModified = file.lastModified();
+            // Values are decoded long after the lock is released, so the lazy Sharecart needs its own copy of the
+            // contents: the read buffer is reused, and a mapping would follow whatever is written to the file later
+            ByteBuffer buffer = memoryMapped ? map() : readFully();
+            copy = new byte[buffer.remaining()];
+            buffer.get(copy);
+        } finally {
+            SharecartFileLocks.release(lock);
         }
+        return scan(ByteBuffer.wrap(copy), lastModified);
+    }
+
+    /**
+     * Parses the contents read from the file, and records the state of the file they were read from.
+     */
+    private Sharecart parse(ByteBuffer contents, long lastModified) {
+        int length = contents.remaining();
+        long checksum = SharecartFileUtils.checksum(contents);
+
+        Sharecart ret = parse(contents);
+        layout.setFileState(length, lastModified, checksum);
+        return ret;
+    }
 
-        checkConstraints(ret);
+    /**
+     * Scans the contents read from the file, and records the state of the file they were read from.
+     */
+    private Sharecart scan(ByteBuffer contents, long lastModified) {
+        int length = contents.remaining();
+        long checksum = SharecartFileUtils.checksum(contents);
 
+        Sharecart ret = scan(contents);
+        layout.setFileState(length, lastModified, checksum);
         return ret;
     }
 
-    private void checkConstraints(Sharecart sharecart) {
-        int x = sharecart.x();
-        if (!Constraints.validX(x)) {
+    /**
+     * Parses the sharecart contents between the position and limit of the given buffer.
+     * <p/>
+     * Parameters are parsed in a single pass. Each key is looked up in a fixed table, so a lenient reader
+     * accepts the parameters in any order. A strict reader still requires them in the order of the format.
+     *
+     * @param contents the raw contents of a sharecart file.
+     * @return A new Sharecart containing the parameters of the contents.
+     */
+    Sharecart parse(ByteBuffer contents) {
+        this.buffer = contents;
+        this.position = contents.position();
+
+        this.layout = new SharecartFileLayout();
+
+        Sharecart ret = new Sharecart();
+        ret.name("");
+
+        // Skip the title
+        nextToken();
+
+        // Parameters that are missing, faulty or clamped differ from the file
+        int found = 0;
+        int dirty = 0;
+        int expected = 0;
+        while (expected < PARAMETER_COUNT && nextToken()) {
+            if (!findKeyValuePair())
+                continue;
+
+            int index = indexOfKey(tokenStart, keyEnd);
+            if (isStrict() && index != expected)
+                throw new SharecartFormatException("Found '%s' where parameter '%s' was expected",
+                        string(token, tokenStart, keyEnd), PARAMETER_KEYS[expected]);
+            if (index < 0)
+                continue;
+
+            if (!readValue(ret, index))
+                dirty |= 1 << index;
+            recordValueBounds(index, found, contents.position());
+            found |= 1 << index;
             if (isStrict())
-                throwConstraintException(SharecartFileConstants.PARAMETER_X, x);
-            sharecart.x(Constraints.clampX(x));
+                expected++;
         }
 
-        int y = sharecart.y();
-        if (!Constraints.validY(y)) {
+        if (isStrict() && expected < PARAMETER_COUNT)
+            throw new SharecartFormatException("Parameter '%s' is missing", PARAMETER_KEYS[expected]);
+
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            if (checkConstraints(ret, i))
+                dirty |= 1 << i;
+        }
+        ret.setDirtyMask(dirty | ~found & ((1 << PARAMETER_COUNT) - 1));
+
+        this.buffer = null;
+        this.token = null;
+
+        return ret;
+    }
+
+    /**
+     * Scans the sharecart contents between the position and limit of the given buffer, recording where the value
+     * of each parameter can be found.
+     *
+     * @param contents the raw contents of a sharecart file. These must remain unchanged while the returned
+     *                 Sharecart is in use.
+     * @return A new Sharecart that decodes the parameters from the contents on first access.
+     */
+    LazySharecart scan(ByteBuffer contents) {
+        this.buffer = contents;
+        this.position = contents.position();
+
+        this.layout = new SharecartFileLayout();
+
+        LazySharecart ret = new LazySharecart(this, contents);
+        ret.setDirtyMask(0);
+
+        // Skip the title
+        nextToken();
+
+        int found = 0;
+        int expected = 0;
+        while (expected < PARAMETER_COUNT && nextToken()) {
+            if (!findKeyValuePair())
+                continue;
+
+            int index = indexOfKey(tokenStart, keyEnd);
+            if (isStrict() && index != expected)
+                throw new SharecartFormatException("Found '%s' where parameter '%s' was expected",
+                        string(token, tokenStart, keyEnd), PARAMETER_KEYS[expected]);
+            if (index < 0)
+                continue;
+
+            if (token == buffer) {
+                ret.setValueBounds(index, valueStart, valueEnd);
+            } else {
+                // The token was copied to strip carriage returns, so it has to be decoded right away
+                decode(ret, index);
+            }
+            recordValueBounds(index, found, contents.position());
+            found |= 1 << index;
             if (isStrict())
-                throwConstraintException(SharecartFileConstants.PARAMETER_Y, y);
-            sharecart.y(Constraints.clampY(y));
+                expected++;
+        }
+
+        if (isStrict() && expected < PARAMETER_COUNT)
+            throw new SharecartFormatException("Parameter '%s' is missing", PARAMETER_KEYS[expected]);
+
+        // Parameters that are not decoded yet match the file, missing ones do not
+        ret.setDirtyMask(ret.dirtyMask() | ~found & ((1 << PARAMETER_COUNT) - 1));
+
+        this.buffer = null;
+        this.token = null;
+
+        return ret;
+    }
+
+    /**
+     * Decodes the value of a single parameter from the contents of a lazy Sharecart,
+     * and checks it against the constraints.
+     */
+    void decode(LazySharecart sharecart, ByteBuffer contents, int index, int start, int end) {
+        this.token = contents;
+        this.valueStart = start;
+        this.valueEnd = end;
+        decode(sharecart, index);
+        this.token = null;
+    }
+
+    private void decode(Sharecart sharecart, int index) {
+        boolean exact = readValue(sharecart, index);
+        exact &= !checkConstraints(sharecart, index);
+
+        // The value was assigned through the setters, but only differs from the file if it had to be corrected
+        int mask = 1 << index;
+        sharecart.setDirtyMask(exact ? sharecart.dirtyMask() & ~mask : sharecart.dirtyMask() | mask);
+    }
+
+    /**
+     * Records the location of the current value in the layout. Values found more than once, or that had
+     * carriage returns stripped from them, can not be patched in place and are marked as unknown.
+     */
+    private void recordValueBounds(int index, int found, int contentsStart) {
+        if (token != buffer || (found & (1 << index)) != 0) {
+            layout.invalidate(index);
+        } else {
+            layout.setValueBounds(index, valueStart - contentsStart, valueEnd - contentsStart);
         }
+    }
+
+    private ByteBuffer map() throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    private ByteBuffer readFully() throws IOException {
+        byte[] bytes = READ_BUFFER.get();
+        int length = 0;
+        int read;
+        while ((read = input.read(bytes, length, bytes.length - length)) != -1) {
+            length += read;
+            if (length == bytes.length) {
+                byte[] larger = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, larger, 0, length);
+                bytes = larger;
+            }
+        }
+        return ByteBuffer.wrap(bytes, 0, length);
+    }
 
-        for (int i = 0; i < SharecartFileConstants.PARAMETER_MISC.length; i++) {
+    /**
+     * Checks a parameter against the constraints, clamping it in lenient mode.
+     *
+     * @return {@code true} if the parameter had to be clamped.
+     */
+    private boolean checkConstraints(Sharecart sharecart, int index) {
+        if (index == INDEX_X) {
+            int x = sharecart.x();
+            if (!constraints.validX(x)) {
+                if (isStrict())
+                    throwConstraintException(PARAMETER_X, x);
+                sharecart.x(constraints.clampX(x));
+                return true;
+            }
+        } else if (index == INDEX_Y) {
+            int y = sharecart.y();
+            if (!constraints.validY(y)) {
+                if (isStrict())
+                    throwConstraintException(PARAMETER_Y, y);
+                sharecart.y(constraints.clampY(y));
+                return true;
+            }
+        } else if (index < INDEX_NAME) {
+            int i = index - INDEX_MISC;
             int misc = sharecart.misc(i);
-            if (!Constraints.validMisc(misc)) {
+            if (!constraints.validMisc(misc)) {
                 if (isStrict())
-                    throwConstraintException(SharecartFileConstants.PARAMETER_MISC[i], misc);
-                sharecart.misc(i, Constraints.clampMisc(misc));
+                    throwConstraintException(PARAMETER_MISC[i], misc);
+                sharecart.misc(i, constraints.clampMisc(misc));
+                return true;
+            }
+        } else if (index == INDEX_NAME) {
+            String name = sharecart.name();
+            if (!constraints.validName(name)) {
+                if (isStrict())
+                    throwConstraintException(PARAMETER_NAME, name);
+                sharecart.name(constraints.clampName(name));
+                return true;
             }
         }
+        return false;
+    }
 
-        String name = sharecart.name();
-        if (!Constraints.validName(name)) {
-            if (isStrict())
-                throwConstraintException(SharecartFileConstants.PARAMETER_NAME, name);
-            sharecart.name(Constraints.clampName(name));
+    /**
+     * Decodes the current value into the given parameter.
+     *
+     * @return {@code false} if the value was faulty and a default value was assigned instead.
+     */
+    private boolean readValue(Sharecart sharecart, int index) {
+        valueDefaulted = false;
+        if (token.get(valueStart) == QUOTE && valueEnd - valueStart > 1) {
+            valueStart++;
+        }
+        if (token.get(valueEnd - 1) == QUOTE && valueEnd - valueStart > 1) {
+            valueEnd--;
+        }
+
+        if (index == INDEX_X) {
+            sharecart.x(readInt());
+        } else if (index == INDEX_Y) {
+            sharecart.y(readInt());
+        } else if (index < INDEX_NAME) {
+            sharecart.misc(index - INDEX_MISC, readInt());
+        } else if (index == INDEX_NAME) {
+            sharecart.name(valueString());
+        } else {
+            sharecart.switchValue(index - INDEX_SWITCH, readBoolean());
         }
+        return !valueDefaulted;
     }
 
-    private int readInt(String key) {
-        String str = readString(key);
-        if (str.length() == 0 || !StringUtils.isNumeric(str)) {
+    private int readInt() {
+        if (isAsciiNumeric(valueStart, valueEnd)) {
+            return parseInt(valueStart, valueEnd);
+        }
+
+        // Faulty values are rare, so they are left to the String rules
+        String str = valueString();
+        if (!isNumeric(str)) {
             if (isStrict()) {
                 throw new SharecartFormatException("The string '%s' is not a valid integer", str);
             }
+            valueDefaulted = true;
             return 0;
         }
 
         return Integer.valueOf(str);
     }
 
-    private String readString(String key) {
-        String token = getNextToken();
-        Pair<String, String> keyValue = getKeyValuePair(token);
-        if (keyValue == null)
-            return "";
-
-        if (!hasKey(keyValue, key)) {
-            if (isStrict())
-                throw new SharecartFormatException("Found '%s' where parameter '%s' was expected",
-                        keyValue.getKey(), key);
-
-            // If this is the second failure for this token, then the token is likely faulty.
-            // In that case, we should just skip to the next token.
-            if (latestToken != null) {
-                latestToken = null;
-                return readString(key);
+    private boolean readBoolean() {
+        if (isAsciiNumeric(valueStart, valueEnd)) {
+            if (isStrict()) {
+                throw new SharecartFormatException("The string '%s' is not a valid boolean", valueString());
             }
-            latestToken = token;
-            return "";
+            return parseInt(valueStart, valueEnd) != 0;
         }
-
-        String valueString = keyValue.getValue();
-        if (valueString.startsWith("\"") && valueString.length() > 1) {
-            valueString = valueString.substring(1);
+        if (matches(TRUE, valueStart, valueEnd, true)) {
+            return true;
         }
-        if (valueString.endsWith("\"") && valueString.length() > 1) {
-            valueString = valueString.substring(0, valueString.length() - 1);
+        if (matches(FALSE, valueStart, valueEnd, true)) {
+            return false;
         }
-        latestToken = null;
-        return valueString;
-    }
 
-    private boolean readBoolean(String key) {
-        String value = readString(key);
-        if (value.length() == 0) {
+        // Faulty values are rare, so they are left to the String rules
+        String value = valueString();
+        if (isNumeric(value)) {
             if (isStrict()) {
                 throw new SharecartFormatException("The string '%s' is not a valid boolean", value);
             }
+            return Integer.valueOf(value) != 0;
+        } else if (isStrict()) {
+            throw new SharecartFormatException("The string '%s' is not a valid boolean", value);
+        }
+        valueDefaulted = true;
+        return false;
+    }
+
+    /**
+     * Finds the parameter index for a key. The candidate is picked from the length and last character of the key,
+     * and is then compared to the key once. Case is ignored unless the reader is strict.
+     *
+     * @return the index of the parameter, or -1 if the key is unknown.
+     */
+    private int indexOfKey(int start, int end) {
+        int last = toLowerCase(token.get(end - 1));
+        int index;
+        switch (end - start) {
+            case 4: // MapX, MapY
+                index = last == 'x' ? INDEX_X : last == 'y' ? INDEX_Y : -1;
+                break;
+            case 5: // Misc0 - Misc3
+                index = last >= '0' && last < '0' + PARAMETER_MISC.length ? INDEX_MISC + last - '0' : -1;
+                break;
+            case 7: // Switch0 - Switch7
+                index = last >= '0' && last < '0' + PARAMETER_SWITCH.length ? INDEX_SWITCH + last - '0' : -1;
+                break;
+            case 10: // PlayerName
+                index = INDEX_NAME;
+                break;
+            default:
+                index = -1;
+        }
+
+        if (index < 0 || !matches(KEYS[index], start, end, !isStrict()))
+            return -1;
+        return index;
+    }
+
+    /**
+     * Moves to the next line of the contents. A single line feed before the token is skipped,
+     * and carriage returns within the token are ignored.
+     *
+     * @return {@code false} if there are no more lines.
+     */
+    private boolean nextToken() {
+        int limit = buffer.limit();
+        if (position < limit && buffer.get(position) == LINE_FEED)
+            position++;
+        if (position >= limit)
             return false;
+
+        int start = position;
+        int end = start;
+        boolean hasCarriageReturn = false;
+        while (end < limit) {
+            byte b = buffer.get(end);
+            if (b == LINE_FEED)
+                break;
+            if (b == CARRIAGE_RETURN)
+                hasCarriageReturn = true;
+            end++;
         }
-        if (StringUtils.isNumeric(value)) {
-            if (isStrict()) {
-                throw new SharecartFormatException("The string '%s' is not a valid boolean", value);
+        position = end;
+
+        // The common case is a CRLF line break, which only needs the end trimmed
+        if (hasCarriageReturn) {
+            while (end > start && buffer.get(end - 1) == CARRIAGE_RETURN) {
+                end--;
             }
-            return Integer.valueOf(value) != 0;
+            hasCarriageReturn = false;
+            for (int i = start; i < end && !hasCarriageReturn; i++) {
+                hasCarriageReturn = buffer.get(i) == CARRIAGE_RETURN;
+            }
+        }
+
+        if (hasCarriageReturn) {
+            stripCarriageReturns(start, end);
+        } else {
+            token = buffer;
+            tokenStart = start;
+            tokenEnd = end;
+        }
+        return true;
+    }
+
+    private void stripCarriageReturns(int start, int end) {
+        if (scratch == null || scratch.capacity() < end - start) {
+            scratch = ByteBuffer.allocate(end - start);
         }
-        if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
-            return Boolean.valueOf(value);
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b != CARRIAGE_RETURN)
+                scratch.put(length++, b);
+        }
+        token = scratch;
+        tokenStart = 0;
+        tokenEnd = length;
+    }
+
+    private boolean findKeyValuePair() {
+        int delimiter = -1;
+        for (int i = tokenStart; i < tokenEnd; i++) {
+            if (token.get(i) == VALUE_DELIMITER) {
+                delimiter = i;
+                break;
+            }
+        }
+
+        if (delimiter < tokenEnd - 1 && delimiter > tokenStart) {
+            keyEnd = delimiter;
+            valueStart = delimiter + 1;
+            valueEnd = tokenEnd;
+            return true;
         } else if (isStrict()) {
-            throw new SharecartFormatException("The string '%s' is not a valid boolean", value);
+            throw new SharecartFormatException("'%s' is not a valid parameter definition",
+                    string(token, tokenStart, tokenEnd));
         }
         return false;
     }
 
-    private String getNextToken() {
-        return latestToken != null ? latestToken : scanner.next().replaceAll("\r", "");
+    /**
+     * Compares the given ASCII bytes to a range of the current token.
+     */
+    private boolean matches(byte[] expected, int start, int end, boolean ignoreCase) {
+        if (end - start != expected.length)
+            return false;
+        for (int i = 0; i < expected.length; i++) {
+            int b = token.get(start + i);
+            int c = expected[i];
+            if (b != c && (!ignoreCase || toLowerCase(b) != toLowerCase(c)))
+                return false;
+        }
+        return true;
     }
 
-    private Pair<String, String> getKeyValuePair(String token) {
-        int firstIndex = token.indexOf(SharecartFileConstants.DELIMITER_VALUE);
-        if (firstIndex < token.length() - 1 && firstIndex > 0) {
-            String left = token.substring(0, firstIndex);
-            String right = token.substring(firstIndex + 1);
-            return Pair.of(left, right);
-        } else if (isStrict()) {
-            throw new SharecartFormatException("'%s' is not a valid parameter definition", token);
+    private boolean isAsciiNumeric(int start, int end) {
+        if (start == end)
+            return false;
+        for (int i = start; i < end; i++) {
+            byte b = token.get(i);
+            if (b < '0' || b > '9')
+                return false;
+        }
+        // Anything longer than nine digits may overflow, leave those to Integer.valueOf()
+        return end - start <= 9;
+    }
+
+    private int parseInt(int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (token.get(i) - '0');
+        }
+        return value;
+    }
+
+    private String valueString() {
+        return string(token, valueStart, valueEnd);
+    }
+
+    private static int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * Checks that the string is made up of digits only. Like {@code StringUtils.isNumeric}, this accepts
+     * any Unicode digits.
+     */
+    private static boolean isNumeric(String str) {
+        if (str.length() == 0)
+            return false;
+        for (int i = 0; i < str.length(); i++) {
+            if (!Character.isDigit(str.charAt(i)))
+                return false;
         }
-        return null;
+        return true;
     }
 
-    private boolean hasKey(Pair<String, String> keyValue, String key) {
-        if (isStrict())
-            return key.equals(keyValue.getKey());
-        return key.equalsIgnoreCase(keyValue.getKey());
+    private static String string(ByteBuffer buffer, int start, int end) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, Charset.defaultCharset());
+        }
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        return new String(bytes, Charset.defaultCharset());
     }
 
     private void throwConstraintException(String parameterName, Object value) throws SharecartFormatException {
@@ -204,7 +779,10 @@ class SharecartFileReader implements Closeable {
 
     @Override
     public void close() throws IOException {
-        this.scanner.close();
+        if (this.input != null)
+            this.input.close();
+        else if (this.channel != null)
+            this.channel.close();
     }
 
 }
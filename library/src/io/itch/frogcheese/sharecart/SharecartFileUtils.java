@@ -1,6 +1,13 @@
 package io.itch.frogcheese.sharecart;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
 
 /**
  * Some utilities for handling sharecart files.
@@ -80,4 +87,62 @@ class SharecartFileUtils {
 		}
 		return new File(directory, file.toString());
 	}
+
+	/**
+	 * Resolves a path to its canonical form: absolute, without "." or ".." segments, and with symbolic links resolved.
+	 * Paths that do not exist can not have their links resolved, and are only normalized.
+	 * @param path the path to resolve
+	 * @return The canonical path.
+	 */
+	static Path getCanonicalPath(String path) {
+		Path absolutePath = Paths.get(path).toAbsolutePath();
+		try {
+			return absolutePath.toRealPath();
+		} catch(IOException e) {
+			return absolutePath.normalize();
+		}
+	}
+
+	/**
+	 * @param file the file to read.
+	 * @return The CRC32 checksum of the contents of the file.
+	 * @throws IOException if the file could not be read.
+	 */
+	static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[SharecartFileReader.READ_BUFFER_SIZE];
+		InputStream input = new FileInputStream(file);
+		try {
+			int read;
+			while((read = input.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+			}
+		} finally {
+			input.close();
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Computes the CRC32 checksum of the contents between the position and limit of a buffer, which are left as
+	 * they are.
+	 *
+	 * @param contents the contents to compute the checksum of.
+	 * @return The checksum of the contents.
+	 */
+	static long checksum(ByteBuffer contents) {
+		CRC32 crc = new CRC32();
+		if (contents.hasArray()) {
+			crc.update(contents.array(), contents.arrayOffset() + contents.position(), contents.remaining());
+		} else {
+			ByteBuffer source = contents.duplicate();
+			byte[] buffer = new byte[Math.min(source.remaining(), SharecartFileReader.READ_BUFFER_SIZE)];
+			while (source.hasRemaining()) {
+				int read = Math.min(source.remaining(), buffer.length);
+				source.get(buffer, 0, read);
+				crc.update(buffer, 0, read);
+			}
+		}
+		return crc.getValue();
+	}
 }
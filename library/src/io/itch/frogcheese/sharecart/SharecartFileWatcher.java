@@ -0,0 +1,141 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the directory of the sharecart file for changes made by other applications, and has the
+ * {@link SharecartManager} reload the file when its contents changed.
+ * <p/>
+ * Bursts of events are debounced: the file is only checked once no event has arrived for the reload delay.
+ * A file with the size and modification time that the manager last read or wrote is ignored, which keeps the
+ * manager's own saves from causing reloads. Otherwise the contents are compared to those seen last, so that
+ * touching the file does not cause a reload either.
+ */
+class SharecartFileWatcher implements Runnable {
+
+    private final SharecartManager manager;
+    private final File file;
+    private final long delayMillis;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Checksum of the contents that were last reloaded, or -1 if unknown.
+     */
+    private volatile long lastChecksum = -1;
+
+    SharecartFileWatcher(SharecartManager manager, File file, long delayMillis) throws IOException {
+        this.manager = manager;
+        this.file = file.getAbsoluteFile();
+        this.delayMillis = delayMillis;
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        // Atomic saves replace the file, which shows up as a create rather than a modify
+        this.file.getParentFile().toPath().register(watchService,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+
+        this.thread = new SharecartThreadFactory("sharecart-watcher").newThread(this);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching the file. A reload that is in progress is completed.
+     */
+    void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Forgets the contents that were last reloaded, since the file has been written since.
+     */
+    void forgetContents() {
+        lastChecksum = -1;
+    }
+
+    /**
+     * @return The file that is being watched.
+     */
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public void run() {
+        try {
+            //noinspection InfiniteLoopStatement
+            while (true) {
+                if (!consumeEvents(watchService.take()))
+                    continue;
+
+                // Wait for the burst of events from a single save to end
+                WatchKey key;
+                while ((key = watchService.poll(delayMillis, TimeUnit.MILLISECONDS)) != null) {
+                    consumeEvents(key);
+                }
+
+                checkFile();
+            }
+        } catch (ClosedWatchServiceException ignored) {
+            // Stopped
+        } catch (InterruptedException ignored) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Consumes the events of a key.
+     *
+     * @return Whether or not any of the events concerned the sharecart file.
+     */
+    private boolean consumeEvents(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || context instanceof Path && file.getName().equals(context.toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void checkFile() {
+        // Looked at before the contents, so that a write landing in between is not taken for the contents checked
+        long length = file.length();
+        long lastModified = file.lastModified();
+        if (!file.isFile() || manager.isKnownFileState(length, lastModified))
+            return;
+
+        long checksum;
+        try {
+            checksum = SharecartFileUtils.checksum(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (checksum == lastChecksum) {
+            manager.setKnownFileState(length, lastModified);
+            return;
+        }
+
+        lastChecksum = checksum;
+        manager.reload();
+    }
+}
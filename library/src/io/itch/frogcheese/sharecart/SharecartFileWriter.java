@@ -1,15 +1,94 @@
 package io.itch.frogcheese.sharecart;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
 
 /**
  * Handles writing to a sharecart file.
+ * <p/>
+ * The file contents are encoded into a reusable direct buffer, with keys and boolean values copied from
+ * pre-encoded byte literals, and then written to the file's channel in one go.
+ * <p/>
+ * The offsets of the values written are kept in a {@link SharecartFileLayout}. A patching writer uses such a layout
+ * to overwrite only the values that changed, as long as their encoded width stays the same.
+ * <p/>
+ * Writers can take an exclusive {@link SharecartConfig.LockStrategy lock} on the file while writing. The file is
+ * therefore only truncated once the lock is held, never when the writer is opened. Atomic writers do not lock,
+ * since the file they replace is never seen half written.
  */
 class SharecartFileWriter implements Closeable {
 
-    private PrintWriter writer;
+    /**
+     * Size of the per-thread buffer that file contents are encoded into. Contents larger than this
+     * get a buffer of their own.
+     */
+    static final int WRITE_BUFFER_SIZE = 4096;
+
+    /**
+     * Room needed for everything but the name. The longest possible contents without the name are well below this.
+     */
+    private static final int CONTENTS_CAPACITY_WITHOUT_NAME = 512;
+
+    private static final ThreadLocal<ByteBuffer> WRITE_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        }
+    };
+
+    private static final byte[] TITLE_LINE = asciiBytes(TITLE + DELIMITER_PARAMETER);
+    private static final byte[] LINE_BREAK = asciiBytes(DELIMITER_PARAMETER);
+    private static final byte[] TRUE = asciiBytes("TRUE");
+    private static final byte[] FALSE = asciiBytes("FALSE");
+
+    /**
+     * Keys for all parameters, followed by the value delimiter, ordered by index.
+     */
+    private static final byte[][] KEYS = new byte[PARAMETER_COUNT][];
+
+    private static final int MAX_KEY_LENGTH;
+
+    static {
+        int maxKeyLength = 0;
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            KEYS[i] = asciiBytes(PARAMETER_KEYS[i] + DELIMITER_VALUE);
+            maxKeyLength = Math.max(maxKeyLength, KEYS[i].length);
+        }
+        MAX_KEY_LENGTH = maxKeyLength;
+    }
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private FileChannel channel;
+    private SharecartConfig.Durability durability = SharecartConfig.Durability.NONE;
+    private SharecartConfig.LockStrategy lockStrategy = SharecartConfig.LockStrategy.NONE;
+    private long lockTimeoutMillis;
+    private SharecartLockStatistics lockStatistics;
+
+    /**
+     * The sharecart file. For atomic writers, this is the file that the temporary file replaces when the
+     * writer is closed.
+     */
+    private File target;
+    private File temporaryFile;
+    private boolean written;
+    private long writtenChecksum;
+    private SharecartFileLayout layout;
+
+    /**
+     * Holds the bytes around a value that a patch checks before overwriting it. Allocated on the first patch.
+     */
+    private ByteBuffer keyBuffer;
 
     /**
      * Constructor.
@@ -22,10 +101,92 @@ class SharecartFileWriter implements Closeable {
             throw new IllegalArgumentException("File cannot be null");
         if (!file.exists() || !file.isFile())
             // This manual FileNotFoundException is here because
-            // PrintWriter creates the file instead of throwing an exception.
+            // RandomAccessFile creates the file instead of throwing an exception.
             throw new FileNotFoundException(file.getAbsolutePath() + " could not be found");
 
-        this.writer = new PrintWriter(file);
+        // Not truncated until written, since another application may hold a lock on it until then
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.target = file;
+    }
+
+    private SharecartFileWriter(File target, File temporaryFile) throws FileNotFoundException {
+        this.channel = new FileOutputStream(temporaryFile).getChannel();
+        this.target = target;
+        this.temporaryFile = temporaryFile;
+    }
+
+    private SharecartFileWriter(File file, FileChannel channel) {
+        this.channel = channel;
+        this.target = file;
+    }
+
+    /**
+     * Creates a writer that writes to a temporary file next to the given file. When the writer is closed after a
+     * successful write, the temporary file is moved over the given file. Until then, the file is left untouched.
+     *
+     * @param file the file that should be written to.
+     * @return A new writer for the file.
+     * @throws FileNotFoundException if the file does not exist.
+     * @throws IOException           if the temporary file could not be created.
+     */
+    public static SharecartFileWriter atomic(File file) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+        if (!file.exists() || !file.isFile())
+            throw new FileNotFoundException(file.getAbsolutePath() + " could not be found");
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        return new SharecartFileWriter(file, File.createTempFile(file.getName(), ".tmp", directory));
+    }
+
+    /**
+     * Creates a writer that does not truncate the file when opened, so that single values can be
+     * {@link #patch(Sharecart, SharecartFileLayout) patched} in place.
+     *
+     * @param file the file that should be written to.
+     * @return A new writer for the file.
+     * @throws FileNotFoundException if the file does not exist.
+     */
+    public static SharecartFileWriter patching(File file) throws FileNotFoundException {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+        if (!file.exists() || !file.isFile())
+            throw new FileNotFoundException(file.getAbsolutePath() + " could not be found");
+
+        return new SharecartFileWriter(file, new RandomAccessFile(file, "rw").getChannel());
+    }
+
+    /**
+     * Sets how far the written contents are forced to the storage device before {@link #write(Sharecart)} returns.
+     *
+     * @param durability the durability of the write.
+     */
+    public void setDurability(SharecartConfig.Durability durability) {
+        if (durability == null)
+            throw new IllegalArgumentException("Durability cannot be null");
+        this.durability = durability;
+    }
+
+    /**
+     * Sets how the writer takes an exclusive lock on the file while writing it. Ignored by atomic writers.
+     *
+     * @param strategy      how to acquire the lock.
+     * @param timeoutMillis how long to keep trying with {@link SharecartConfig.LockStrategy#TRY_LOCK}.
+     * @param statistics    counters to record the lock acquisitions in.
+     */
+    public void setLocking(SharecartConfig.LockStrategy strategy, long timeoutMillis, SharecartLockStatistics statistics) {
+        if (strategy == null)
+            throw new IllegalArgumentException("Lock strategy cannot be null");
+        this.lockStrategy = strategy;
+        this.lockTimeoutMillis = timeoutMillis;
+        this.lockStatistics = statistics;
+    }
+
+    /**
+     * @return How far the written contents are forced to the storage device.
+     */
+    public SharecartConfig.Durability getDurability() {
+        return durability;
     }
 
     /**
@@ -33,61 +194,363 @@ class SharecartFileWriter implements Closeable {
      *
      * @param sharecart container for the Sharecart file contents. All of the parameters in this object will be
      *                  committed to the file.
+     * @throws IOException if the contents could not be written.
      */
-    public void write(Sharecart sharecart) {
+    public void write(Sharecart sharecart) throws IOException {
+        this.written = false;
+        this.layout = null;
 
-        StringBuilder file = new StringBuilder(TITLE);
+        SharecartFileLayout layout = new SharecartFileLayout();
+        ByteBuffer buffer = encode(sharecart, layout);
+        long checksum = SharecartFileUtils.checksum(buffer);
 
-        file.append(DELIMITER_PARAMETER);
+        FileLock lock = lock();
+        try {
+            this.channel.position(0);
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+            // The file is not truncated when opened
+            this.channel.truncate(this.channel.position());
 
-        file.append(PARAMETER_X)
-                .append(DELIMITER_VALUE)
-                .append(intString(sharecart.x()));
+            if (temporaryFile == null) {
+                // Taken while the lock is held, so that no other write can come between ours and its recorded state
+                layout.setFileState(this.channel.size(), target.lastModified(), checksum);
+            }
+        } finally {
+            SharecartFileLocks.release(lock);
+        }
+        // Forcing does not change the contents, so it need not keep others waiting for the lock
+        force();
+        this.written = true;
+        this.layout = layout;
+        this.writtenChecksum = checksum;
+    }
+
+    /**
+     * Overwrites the values of the changed parameters in place, leaving the rest of the file untouched.
+     * This is only done if the file is still in the state described by the layout, with every changed value still
+     * on its own line right after its key, and if every changed value encodes to exactly as many bytes as the value
+     * it replaces. Otherwise nothing is written.
+     *
+     * @param sharecart container for the Sharecart file contents. Only the parameters marked as
+     *                  {@link Sharecart#dirtyMask() dirty} are written.
+     * @param layout    the layout of the file as it was last read or written. Updated to the new state of the file
+     *                  if the patch succeeds.
+     * @return Whether or not the file was patched. If not, the whole file has to be {@link #write(Sharecart) written}.
+     * @throws IOException if the contents could not be written.
+     */
+    public boolean patch(Sharecart sharecart, SharecartFileLayout layout) throws IOException {
+        if (temporaryFile != null)
+            throw new IllegalStateException("Atomic writers cannot patch files");
+        if (layout == null)
+            return false;
 
-        file.append(DELIMITER_PARAMETER);
+        // Encoded before locking, so that the lock is only held for the write itself
+        int dirty = sharecart.dirtyMask();
+        ByteBuffer buffer = encodePatch(sharecart, dirty, layout);
+        if (buffer == null)
+            return false;
 
-        file.append(PARAMETER_Y)
-                .append(DELIMITER_VALUE)
-                .append(intString(sharecart.y()));
+        FileLock lock = lock();
+        try {
+            long size = this.channel.size();
+            if (!layout.matchesFileState(size, target.lastModified()))
+                return false;
+            // Modification times can be as coarse as a second, so a file rewritten with the same length, for
+            // instance with its keys reordered, only shows in its contents
+            if (!hasKeysInPlace(dirty, layout, size))
+                return false;
 
-        file.append(DELIMITER_PARAMETER);
+            for (int i = 0; i < PARAMETER_COUNT; i++) {
+                if ((dirty & (1 << i)) == 0)
+                    continue;
 
-        for (int i = 0; i < PARAMETER_MISC.length; i++) {
-            file.append(PARAMETER_MISC[i])
-                    .append(DELIMITER_VALUE)
-                    .append(intString(sharecart.misc(i)));
+                ByteBuffer value = buffer.duplicate();
+                value.limit(value.position() + layout.valueLength(i));
+                long position = layout.valueStart(i);
+                while (value.hasRemaining()) {
+                    position += this.channel.write(value, position);
+                }
+                buffer.position(value.limit());
+            }
 
-            file.append(DELIMITER_PARAMETER);
+            // The checksum of the patched contents is unknown without reading the whole file back
+            layout.setFileState(this.channel.size(), target.lastModified());
+        } finally {
+            SharecartFileLocks.release(lock);
         }
-        file.append(PARAMETER_NAME)
-                .append(DELIMITER_VALUE)
-                .append(sharecart.name());
+        force();
+        return true;
+    }
 
-        file.append(DELIMITER_PARAMETER);
+    /**
+     * Encodes the values of the changed parameters, in order of their index.
+     *
+     * @return A buffer holding the encoded values between its position and limit, or null if a value cannot be
+     * patched. The buffer is reused by later calls on the same thread.
+     */
+    private static ByteBuffer encodePatch(Sharecart sharecart, int dirty, SharecartFileLayout layout) {
+        ByteBuffer buffer = WRITE_BUFFER.get();
+        buffer.clear();
+
+        // Encode all changed values first, so that the file is either patched completely or not at all
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            if ((dirty & (1 << i)) == 0)
+                continue;
+            if (!layout.hasValue(i))
+                return null;
+
+            int start = buffer.position();
+            if (i == INDEX_NAME) {
+                String name = sharecart.name();
+                byte[] encodedName = isAscii(name) ? null : name.getBytes(Charset.defaultCharset());
+                int nameLength = encodedName == null ? name.length() : encodedName.length;
+                if (nameLength != layout.valueLength(i) || buffer.remaining() < nameLength)
+                    return null;
+                putName(buffer, name, encodedName);
+            } else {
+                putValue(buffer, sharecart, i);
+            }
+            if (buffer.position() - start != layout.valueLength(i))
+                return null;
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Checks that each changed value is still preceded by its key at the start of a line, and followed by a line
+     * break or the end of the file.
+     */
+    private boolean hasKeysInPlace(int dirty, SharecartFileLayout layout, long size) throws IOException {
+        if (keyBuffer == null)
+            keyBuffer = ByteBuffer.allocate(MAX_KEY_LENGTH + 1);
+
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            if ((dirty & (1 << i)) == 0)
+                continue;
+
+            byte[] key = KEYS[i];
+            long keyStart = layout.valueStart(i) - key.length;
+            long valueEnd = layout.valueStart(i) + layout.valueLength(i);
+            if (keyStart < 1 || valueEnd > size)
+                return false;
+
+            // The line feed ending the previous line, then the key and delimiter
+            keyBuffer.clear();
+            keyBuffer.limit(key.length + 1);
+            if (!readFully(keyBuffer, keyStart - 1) || keyBuffer.get(0) != LINE_FEED)
+                return false;
+            for (int j = 0; j < key.length; j++) {
+                if (toLowerCase(keyBuffer.get(j + 1)) != toLowerCase(key[j]))
+                    return false;
+            }
+
+            if (valueEnd < size) {
+                keyBuffer.clear();
+                keyBuffer.limit(1);
+                if (!readFully(keyBuffer, valueEnd))
+                    return false;
+                byte next = keyBuffer.get(0);
+                if (next != CARRIAGE_RETURN && next != LINE_FEED)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = this.channel.read(buffer, position);
+            if (read < 0)
+                return false;
+            position += read;
+        }
+        return true;
+    }
+
+    private static int toLowerCase(int c) {
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    /**
+     * @return The offsets of the values in the file as of the last successful {@link #write(Sharecart) write},
+     * or null if nothing has been written. For atomic writers, the layout describes the file after it has
+     * been replaced by closing the writer.
+     */
+    public SharecartFileLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Locks the file for writing, unless this is an atomic writer.
+     *
+     * @return The lock, or null if the file was not locked.
+     */
+    private FileLock lock() throws IOException {
+        if (temporaryFile != null)
+            return null;
+        return SharecartFileLocks.acquire(this.channel, false, lockStrategy, lockTimeoutMillis, lockStatistics);
+    }
+
+    private void force() throws IOException {
+        if (durability != SharecartConfig.Durability.NONE) {
+            this.channel.force(durability == SharecartConfig.Durability.DATA_AND_METADATA);
+        }
+    }
+
+    /**
+     * Encodes the contents of the Sharecart in the sharecart file format.
+     *
+     * @param sharecart container for the Sharecart file contents.
+     * @return A buffer holding the encoded contents between its position and limit. The buffer is reused
+     * by later calls on the same thread.
+     */
+    static ByteBuffer encode(Sharecart sharecart) {
+        return encode(sharecart, null);
+    }
+
+    /**
+     * Encodes the contents of the Sharecart in the sharecart file format.
+     *
+     * @param sharecart container for the Sharecart file contents.
+     * @param layout    receives the offsets of the values in the contents, may be null.
+     * @return A buffer holding the encoded contents between its position and limit. The buffer is reused
+     * by later calls on the same thread.
+     */
+    private static ByteBuffer encode(Sharecart sharecart, SharecartFileLayout layout) {
+        String name = sharecart.name();
+        // Plain ASCII names are encoded directly, others in the platform charset like the file always has been
+        byte[] encodedName = isAscii(name) ? null : name.getBytes(Charset.defaultCharset());
+        int nameLength = encodedName == null ? name.length() : encodedName.length;
+
+        ByteBuffer buffer = WRITE_BUFFER.get();
+        if (buffer.capacity() < CONTENTS_CAPACITY_WITHOUT_NAME + nameLength) {
+            buffer = ByteBuffer.allocateDirect(CONTENTS_CAPACITY_WITHOUT_NAME + nameLength);
+        }
+        buffer.clear();
 
-        for (int i = 0; i < PARAMETER_SWITCH.length; i++) {
-            file.append(PARAMETER_SWITCH[i])
-                    .append(DELIMITER_VALUE)
-                    .append(booleanString(sharecart.switchValue(i)));
+        buffer.put(TITLE_LINE);
 
-            file.append(DELIMITER_PARAMETER);
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            buffer.put(KEYS[i]);
+            int start = buffer.position();
+            if (i == INDEX_NAME) {
+                putName(buffer, name, encodedName);
+            } else {
+                putValue(buffer, sharecart, i);
+            }
+            if (layout != null) {
+                layout.setValueBounds(i, start, buffer.position());
+            }
+            buffer.put(LINE_BREAK);
         }
 
+        buffer.flip();
+        return buffer;
+    }
 
-        this.writer.write(file.toString());
+    private static void putName(ByteBuffer buffer, String name, byte[] encodedName) {
+        if (encodedName == null) {
+            for (int i = 0; i < name.length(); i++) {
+                buffer.put((byte) name.charAt(i));
+            }
+        } else {
+            buffer.put(encodedName);
+        }
     }
 
-    private String intString(int value) {
-        return String.valueOf(value);
+    /**
+     * Puts the value of any parameter but the name.
+     */
+    private static void putValue(ByteBuffer buffer, Sharecart sharecart, int index) {
+        if (index == INDEX_X) {
+            putInt(buffer, sharecart.x());
+        } else if (index == INDEX_Y) {
+            putInt(buffer, sharecart.y());
+        } else if (index < INDEX_NAME) {
+            putInt(buffer, sharecart.misc(index - INDEX_MISC));
+        } else {
+            buffer.put(sharecart.switchValue(index - INDEX_SWITCH) ? TRUE : FALSE);
+        }
     }
 
-    private String booleanString(boolean value) {
-        return String.valueOf(value).toUpperCase();
+    private static void putInt(ByteBuffer buffer, int value) {
+        long remaining = value;
+        if (remaining < 0) {
+            buffer.put((byte) '-');
+            remaining = -remaining;
+        }
+
+        long divisor = 1;
+        while (divisor * 10 <= remaining) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + remaining / divisor % 10));
+        }
+    }
+
+    private static boolean isAscii(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) >= 0x80)
+                return false;
+        }
+        return true;
     }
 
     @Override
     public void close() throws IOException {
-        this.writer.close();
+        this.channel.close();
+
+        if (temporaryFile != null) {
+            if (written) {
+                replaceTarget();
+            } else {
+                // Nothing complete was written, so the sharecart file is left as it was
+                //noinspection ResultOfMethodCallIgnored
+                temporaryFile.delete();
+            }
+            temporaryFile = null;
+        }
+    }
+
+    private void replaceTarget() throws IOException {
+        // Moving keeps the size and modification time, and nobody else writes the temporary file
+        long length = temporaryFile.length();
+        long lastModified = temporaryFile.lastModified();
+        try {
+            Files.move(temporaryFile.toPath(), target.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (durability == SharecartConfig.Durability.DATA_AND_METADATA) {
+            forceDirectory(target.getAbsoluteFile().getParentFile());
+        }
+        if (layout != null) {
+            layout.setFileState(length, lastModified, writtenChecksum);
+        }
+    }
+
+    /**
+     * Forces the directory entry of a moved file to the storage device. Not all platforms allow directories
+     * to be opened, so this is done on a best effort basis.
+     */
+    private static void forceDirectory(File directory) {
+        try {
+            FileChannel directoryChannel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+            try {
+                directoryChannel.force(true);
+            } finally {
+                directoryChannel.close();
+            }
+        } catch (IOException ignored) {
+
+        }
     }
 
 }
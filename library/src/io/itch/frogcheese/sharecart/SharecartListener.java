@@ -0,0 +1,22 @@
+package io.itch.frogcheese.sharecart;
+
+/**
+ * Notified when sharecart parameters have changed, whether they were set through the manager, loaded from the file
+ * or reloaded because another application changed it.
+ * <p/>
+ * Changes are batched: a transaction or an editor commit is reported once, and depending on the
+ * {@link SharecartConfig.ChangeDispatchMode change dispatch mode}, all changes made since the last notification
+ * may be reported together.
+ *
+ * @see SharecartManager#addListener(SharecartListener)
+ */
+public interface SharecartListener {
+
+    /**
+     * Called after parameters have changed. Setting a parameter to the value it already has is not a change.
+     *
+     * @param manager       the manager whose parameters changed.
+     * @param changedFields the changed parameters, as a combination of the masks in {@link SharecartFields}.
+     */
+    void onSharecartChanged(SharecartManager manager, int changedFields);
+}
@@ -0,0 +1,61 @@
+package io.itch.frogcheese.sharecart;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters for the file locks taken on the sharecart file, to see how often other applications hold it.
+ *
+ * @see SharecartConfig.LockStrategy
+ * @see SharecartManager#getLockStatistics()
+ */
+public final class SharecartLockStatistics {
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong contended = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    SharecartLockStatistics() {
+
+    }
+
+    void recordAcquired(boolean wasContended, long waitedNanos) {
+        acquired.incrementAndGet();
+        if (wasContended)
+            contended.incrementAndGet();
+        waitNanos.addAndGet(waitedNanos);
+    }
+
+    void recordFailed(long waitedNanos) {
+        failed.incrementAndGet();
+        waitNanos.addAndGet(waitedNanos);
+    }
+
+    /**
+     * @return The number of locks that were acquired.
+     */
+    public long getAcquiredCount() {
+        return acquired.get();
+    }
+
+    /**
+     * @return The number of acquired locks that were held by someone else at first.
+     */
+    public long getContendedCount() {
+        return contended.get();
+    }
+
+    /**
+     * @return The number of locks that could not be acquired before the timeout.
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return The total time spent acquiring locks, or waiting for them until the timeout, in nanoseconds.
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.get();
+    }
+}
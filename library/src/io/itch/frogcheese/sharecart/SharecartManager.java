@@ -6,9 +6,31 @@ import io.itch.frogcheese.sharecart.error.SharecartException;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
 
 /**
  * Manager for the sharecart file. Handles read/write operations and sharecart changes.
+ * <p/>
+ * Loading, saving and changes are serialized. In {@link SharecartConfig#isConcurrentMode() concurrent mode},
+ * parameters can also be read from any thread without blocking: every change is made to a copy of the sharecart,
+ * which then replaces the current one.
+ * <p/>
+ * IO can be moved off the calling thread with the asynchronous variants of {@link #loadAsync() load},
+ * {@link #saveAsync() save} and {@link #validateSharecartFileAsync() validate}. While they run, the parameter
+ * accessors keep returning the state from before the operation, until it completes.
  */
 public class SharecartManager {
 
@@ -18,18 +40,70 @@ public class SharecartManager {
 
     private SharecartFileInterface fileInterface;
     private SharecartConfig config;
+    /**
+     * The constraint profile of the config, held in a final field so validating values does not go through it.
+     */
+    private final ConstraintProfile constraints;
+
+    // Volatile, since asynchronous operations publish these from another thread
+    private volatile Sharecart sharecart;
+    private SharecartFileLayout layout;
+    private volatile boolean valid = false;
+    private volatile boolean loaded = false;
+    private volatile boolean saved = true;
+
+    private Executor asyncExecutor;
+    /**
+     * The executor created for asynchronous operations if none was configured, or null.
+     */
+    private ExecutorService ownedAsyncExecutor;
+
+    /**
+     * Saves changes in the background, or null if auto save mode is off.
+     */
+    private SharecartAutoSaver autoSaver;
+
+    /**
+     * Watches the sharecart file for changes by other applications, or null if hot reload mode is off.
+     */
+    private SharecartFileWatcher watcher;
+    private final List<SharecartReloadListener> reloadListeners = new CopyOnWriteArrayList<SharecartReloadListener>();
 
-    private Sharecart sharecart;
-    private boolean valid = false;
-    private boolean loaded = false;
-    private boolean saved = true;
+    /**
+     * Size and modification time of the sharecart file when it was last loaded or saved.
+     */
+    private long knownFileLength = -1;
+    private long knownFileLastModified = -1;
 
     /**
-     * Initializes the manager with the given configuration.
+     * The parameters as they were when the sharecart file was last loaded or saved, or null if unknown. Saves are
+     * skipped while the parameters and the file are the same as then.
+     */
+    private CompactSharecart persistedState;
+    private volatile long skippedSaveCount;
+
+    private final SharecartLockStatistics lockStatistics = new SharecartLockStatistics();
+
+    private final List<SharecartListener> listeners = new CopyOnWriteArrayList<SharecartListener>();
+    /**
+     * Bit mask of the parameters that changed since the listeners were last notified.
+     */
+    private final AtomicInteger pendingChanges = new AtomicInteger();
+    /**
+     * Notifies the listeners in the background, or null if the change dispatch mode is not periodic.
+     */
+    private ScheduledExecutorService changeDispatcher;
+
+    /**
+     * Initializes the manager with the given configuration. To have several sharecarts open at once,
+     * use a {@link SharecartRegistry} instead.
      *
      * @param config configuration for how the sharecart file should be handled.
      */
     public static void initialize(SharecartConfig config) {
+        if (INSTANCE != null) {
+            INSTANCE.close();
+        }
         INSTANCE = new SharecartManager(config);
     }
 
@@ -45,9 +119,35 @@ public class SharecartManager {
         return INSTANCE;
     }
 
-    private SharecartManager(SharecartConfig config) {
+    SharecartManager(SharecartConfig config) {
         this.config = config;
+        this.constraints = config.getConstraintProfile();
         this.fileInterface = SharecartFileInterface.get();
+        if (config.isAutoSaveMode()) {
+            this.autoSaver = new SharecartAutoSaver(this, config);
+        }
+
+        this.asyncExecutor = config.getAsyncExecutor();
+        if (this.asyncExecutor == null) {
+            this.ownedAsyncExecutor = Executors.newSingleThreadExecutor(new SharecartThreadFactory("sharecart-io"));
+            this.asyncExecutor = this.ownedAsyncExecutor;
+        }
+
+        if (config.getChangeDispatchMode() == SharecartConfig.ChangeDispatchMode.PERIODIC) {
+            this.changeDispatcher = Executors.newSingleThreadScheduledExecutor(
+                    new SharecartThreadFactory("sharecart-listeners"));
+            this.changeDispatcher.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        dispatchChanges();
+                    } catch (RuntimeException e) {
+                        // An exception would cancel all later dispatches
+                        e.printStackTrace();
+                    }
+                }
+            }, config.getChangeDispatchInterval(), config.getChangeDispatchInterval(), TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -56,21 +156,75 @@ public class SharecartManager {
      *
      * @return {@code true} if there was a valid file, or if the file was successfully created. {@code false} otherwise.
      */
-    public boolean validateSharecartFile() {
-        if (this.config.willAutoCreateFile()) {
-            this.shareCartFile = this.fileInterface.findOrCreateIniFile(this.config.getDirectoryLevelsToCheck(),
-                    this.config.getApplicationPath());
+    public synchronized boolean validateSharecartFile() {
+        return useSharecartFile(findSharecartFile(this.fileInterface, this.config));
+    }
+
+    /**
+     * Uses a sharecart file that has already been found, instead of searching for it.
+     *
+     * @param file the sharecart file, or null if none was found.
+     * @return Whether or not there is a valid file.
+     * @see #validateSharecartFile()
+     */
+    synchronized boolean useSharecartFile(SharecartFile file) {
+        if (file == null || !file.equals(this.shareCartFile)) {
+            // Nothing is known about the contents of another file
+            this.persistedState = null;
+            setKnownFileState(-1, -1);
+        }
+        this.shareCartFile = file;
+        this.valid = file != null;
+        return this.valid;
+    }
+
+    /**
+     * Searches for the sharecart file, creating it if configured to.
+     *
+     * @return The sharecart file, or null if it could not be found or created.
+     */
+    static SharecartFile findSharecartFile(SharecartFileInterface fileInterface, SharecartConfig config) {
+        if (config.getStorage() instanceof MemorySharecartStorage) {
+            // Nothing is kept on the file system, so the file only serves as the key of the contents
+            return SharecartFileInterface.virtualIniFile(config.getApplicationPath());
+        } else if (config.willAutoCreateFile()) {
+            return fileInterface.findOrCreateIniFile(config.getDirectoryLevelsToCheck(), config.getApplicationPath());
         } else {
-            this.shareCartFile = this.fileInterface.findIniFile(this.config.getDirectoryLevelsToCheck(),
-                    this.config.getApplicationPath());
+            return fileInterface.findIniFile(config.getDirectoryLevelsToCheck(), config.getApplicationPath());
         }
+    }
 
-        this.valid = this.shareCartFile != null;
-        return this.valid;
+    /**
+     * Stops the background work of this manager: pending {@link SharecartConfig#isAutoSaveMode() automatic saves}
+     * are saved, and the file is no longer watched for reloads. Changes that have not been saved otherwise are not
+     * saved. Asynchronous operations that were already requested still run.
+     */
+    public void close() {
+        if (autoSaver != null) {
+            // Save what is still pending before the manager is dropped
+            autoSaver.stop();
+        }
+        synchronized (this) {
+            if (watcher != null) {
+                watcher.stop();
+                watcher = null;
+            }
+            if (config.getStorage() instanceof MappedSharecartStorage && this.shareCartFile != null) {
+                // Mapped again if the storage is used after this
+                ((MappedSharecartStorage) config.getStorage()).release(this.shareCartFile.getFile());
+            }
+        }
+        if (changeDispatcher != null) {
+            changeDispatcher.shutdownNow();
+        }
+        if (ownedAsyncExecutor != null) {
+            ownedAsyncExecutor.shutdown();
+        }
     }
 
     /**
-     * Loads the contents of a valid sharecart file. This will perform IO operations on the current thread.
+     * Loads the contents of a valid sharecart file. This will perform IO operations on the current thread,
+     * see {@link #loadAsync()} for loading in the background.
      * This method cannot be called before a successful call to {@link #validateSharecartFile()}.
      *
      * @return {@code true} if the contents of the file was successfully loaded. {@code false} otherwise.
@@ -79,33 +233,75 @@ public class SharecartManager {
      *                               {@link SharecartConfig#isStrictFileReadMode()} is false.
      */
     public boolean load() {
+        boolean loaded = loadFile();
+        dispatchImmediateChanges();
+        return loaded;
+    }
+
+    /**
+     * Loads the sharecart file, recording the parameters that changed for the listeners.
+     *
+     * @see #load()
+     */
+    private synchronized boolean loadFile() {
         if (!this.valid)
             throw new IllegalStateException("Cannot load file before validateSharecartFile() has been called.");
 
+        Sharecart previous = this.sharecart;
+        this.persistedState = null;
+
         if (shareCartFile.isAutoCreated()) {
-            this.loaded = true;
             this.sharecart = Sharecart.withDefaults();
+            this.loaded = true;
+            this.layout = null;
+            recordLoadedChanges(previous);
             save();
 
             // Clear auto created flag since the file has been properly initialized now
             shareCartFile.setIsAutoCreated(false);
+            startWatching();
             return true;
         }
 
+        if (isSnapshotMode()) {
+            SharecartFileLayout state = new SharecartFileLayout();
+            Sharecart restored = SharecartSnapshot.restore(this.shareCartFile.getFile(), config.isStrictFileReadMode(),
+                    constraints, state);
+            if (restored != null) {
+                // Only the file state is known, so the first save writes the whole file rather than patching it
+                return loaded(restored, state, previous);
+            }
+        }
+
         try {
-            SharecartFileReader reader = fileInterface.getNewSharecartFileReader(this.shareCartFile);
+            SharecartFileReader reader;
+            if (config.getStorage() != null) {
+                reader = SharecartFileReader.stored(this.shareCartFile.getFile(), config.getStorage());
+            } else if (config.isMemoryMappedReadMode()) {
+                reader = fileInterface.getNewMappedSharecartFileReader(this.shareCartFile);
+            } else {
+                reader = fileInterface.getNewSharecartFileReader(this.shareCartFile);
+            }
             reader.setIsStrict(config.isStrictFileReadMode());
-            this.sharecart = reader.read();
+            reader.setConstraintProfile(constraints);
+            reader.setLocking(config.getLockStrategy(), config.getLockTimeout(), lockStatistics);
+            Sharecart sharecart = config.isLazyDecodingMode() ? reader.readLazy() : reader.read();
+            if (config.isConcurrentMode() && sharecart instanceof LazySharecart) {
+                // Lazy decoding writes to the sharecart when it is read, which concurrent readers can not share
+                sharecart = new Sharecart(sharecart);
+            }
             reader.close();
-
-            this.saved = true;
-            return this.loaded = true;
+            if (isSnapshotMode()) {
+                SharecartSnapshot.take(this.shareCartFile.getFile(), sharecart, reader.getLayout());
+            }
+            return loaded(sharecart, reader.getLayout(), previous);
 
         } catch (IOException e) {
             e.printStackTrace();
             this.valid = false;
             this.loaded = false;
             this.sharecart = null;
+            this.layout = null;
             if (config.isStrictFileReadMode())
                 throw new SharecartException(e);
             return false;
@@ -115,8 +311,10 @@ public class SharecartManager {
                 throw e;
             } else {
                 e.printStackTrace();
-                this.loaded = true;
                 this.sharecart = Sharecart.withDefaults();
+                this.loaded = true;
+                this.layout = null;
+                recordLoadedChanges(previous);
                 save();
             }
             return true;
@@ -124,12 +322,45 @@ public class SharecartManager {
     }
 
     /**
-     * Saves changes to the sharecart file. This will perform IO operations on the current thread.
+     * Makes a sharecart that was read from the sharecart file the current one.
+     *
+     * @return {@code true}.
+     */
+    private boolean loaded(Sharecart sharecart, SharecartFileLayout layout, Sharecart previous) {
+        this.sharecart = sharecart;
+        this.layout = layout;
+        // A reader may come up empty, which leaves nothing to compare saves against
+        this.persistedState = sharecart != null && sharecart.dirtyMask() == 0 ? fingerprint(sharecart) : null;
+        recordLoadedChanges(previous);
+
+        this.saved = true;
+        if (autoSaver != null) {
+            // Any unsaved changes were discarded by loading the file
+            autoSaver.discard();
+        }
+        recordFileState();
+        startWatching();
+        return this.loaded = true;
+    }
+
+    /**
+     * @return Whether or not a snapshot of the sharecart file is kept.
+     */
+    private boolean isSnapshotMode() {
+        return config.isSnapshotMode() && config.getStorage() == null;
+    }
+
+    /**
+     * Saves changes to the sharecart file. This will perform IO operations on the current thread,
+     * see {@link #saveAsync()} for saving in the background.
+     * <p/>
+     * Nothing is written if the parameters are the same as when the file was last loaded or saved, and the file
+     * has not been changed since.
      *
      * @return {@code true} if the changes could be saved.
      * @throws IllegalStateException if {@link #validateSharecartFile()} or {@link #load()} have not been called.
      */
-    public boolean save() {
+    public synchronized boolean save() {
         if (!this.valid)
             throw new IllegalStateException(
                     "Cannot load file before validateSharecartFile() has been called.");
@@ -137,12 +368,49 @@ public class SharecartManager {
             throw new IllegalStateException(
                     "Cannot save file before it has been loaded at least once.");
 
+        if (isPersisted()) {
+            this.skippedSaveCount++;
+            this.sharecart.clearDirty();
+            this.saved = true;
+            if (autoSaver != null) {
+                autoSaver.onSaved();
+            }
+            return true;
+        }
+
         try {
-            SharecartFileWriter writer = fileInterface.getNewSharecartFileWriter(this.shareCartFile);
-            writer.write(this.sharecart);
-            writer.close();
+            if (config.getStorage() != null) {
+                config.getStorage().write(this.shareCartFile.getFile(), SharecartFileWriter.encode(this.sharecart));
+                this.layout = null;
+                this.sharecart.clearDirty();
+            } else if (!config.isPatchSaveMode() || config.isAtomicSaveMode() || !patch()) {
+                SharecartFileWriter writer = config.isAtomicSaveMode()
+                        ? fileInterface.getNewAtomicSharecartFileWriter(this.shareCartFile)
+                        : fileInterface.getNewSharecartFileWriter(this.shareCartFile);
+                try {
+                    writer.setDurability(config.getSaveDurability());
+                    writer.setLocking(config.getLockStrategy(), config.getLockTimeout(), lockStatistics);
+                    writer.write(this.sharecart);
+                } finally {
+                    writer.close();
+                }
+                this.layout = writer.getLayout();
+                this.sharecart.clearDirty();
+            }
 
-            return this.saved = true;
+            this.persistedState = fingerprint(this.sharecart);
+            this.saved = true;
+            if (autoSaver != null) {
+                autoSaver.onSaved();
+            }
+            if (isSnapshotMode()) {
+                SharecartSnapshot.take(this.shareCartFile.getFile(), this.sharecart, this.layout);
+            }
+            recordFileState();
+            if (watcher != null) {
+                watcher.forgetContents();
+            }
+            return true;
         } catch (FileNotFoundException e) {
             e.printStackTrace();
             return false;
@@ -153,15 +421,223 @@ public class SharecartManager {
 
     }
 
+    /**
+     * Adds a listener that is notified of the parameters that changed, when they are set, loaded or reloaded.
+     * When the listener is called depends on the {@link SharecartConfig#getChangeDispatchMode() change dispatch mode}.
+     *
+     * @param listener the listener to add.
+     */
+    public void addListener(SharecartListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Listener cannot be null");
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove.
+     */
+    public void removeListener(SharecartListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners of all parameters that changed since they were last notified, if any. With
+     * {@link SharecartConfig.ChangeDispatchMode#MANUAL}, this is the only time listeners are notified, so it should be
+     * called regularly, such as once per frame. Listeners are called on the calling thread.
+     */
+    public void dispatchChanges() {
+        int changed = pendingChanges.getAndSet(0);
+        if (changed == 0)
+            return;
+
+        for (SharecartListener listener : listeners) {
+            listener.onSharecartChanged(this, changed);
+        }
+    }
+
+    /**
+     * Adds a listener that is notified when the sharecart file has been reloaded because another application
+     * changed it. Only used in {@link SharecartConfig#isHotReloadMode() hot reload mode}.
+     *
+     * @param listener the listener to add.
+     */
+    public void addReloadListener(SharecartReloadListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Listener cannot be null");
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * @param listener the listener to remove.
+     */
+    public void removeReloadListener(SharecartReloadListener listener) {
+        reloadListeners.remove(listener);
+    }
+
+    /**
+     * Called by the watcher when the contents of the sharecart file have changed.
+     */
+    void reload() {
+        synchronized (this) {
+            if (!isReadable())
+                return;
+            try {
+                if (!loadFile())
+                    return;
+            } catch (SharecartException e) {
+                // The other application may still be writing, the next change will be picked up again
+                e.printStackTrace();
+                return;
+            }
+        }
+
+        // Listeners are notified outside of the lock, so that they can use the manager from other threads
+        dispatchImmediateChanges();
+        for (SharecartReloadListener listener : reloadListeners) {
+            listener.onSharecartReloaded(this);
+        }
+    }
+
+    /**
+     * @return Whether or not the sharecart file has the given size and modification time as of the last load or save.
+     */
+    synchronized boolean isKnownFileState(long length, long lastModified) {
+        return knownFileLength == length && knownFileLastModified == lastModified;
+    }
+
+    synchronized void setKnownFileState(long length, long lastModified) {
+        this.knownFileLength = length;
+        this.knownFileLastModified = lastModified;
+    }
+
+    /**
+     * Records the state of the sharecart file as the read or write that produced the layout saw it, while the file
+     * was locked. Looking at the file afterwards could pick up a write by another application, which would then
+     * never be reloaded.
+     */
+    private void recordFileState() {
+        if (this.layout != null && this.layout.hasFileState()) {
+            setKnownFileState(this.layout.fileLength(), this.layout.fileLastModified());
+        } else if (config.getStorage() != null) {
+            File file = this.shareCartFile.getFile();
+            setKnownFileState(config.getStorage().length(file), config.getStorage().lastModified(file));
+        } else {
+            setKnownFileState(-1, -1);
+        }
+    }
+
+    private void startWatching() {
+        // Contents kept in memory are not on the file system to be watched
+        if (!config.isHotReloadMode() || config.getStorage() instanceof MemorySharecartStorage)
+            return;
+
+        File file = this.shareCartFile.getFile().getAbsoluteFile();
+        if (watcher != null) {
+            if (watcher.getFile().equals(file))
+                return;
+            watcher.stop();
+        }
+
+        try {
+            watcher = new SharecartFileWatcher(this, file, config.getHotReloadDelay());
+            watcher.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Runs {@link #validateSharecartFile()} on the {@link SharecartConfig#getAsyncExecutor() async executor}.
+     *
+     * @return The future result of the validation.
+     */
+    public Future<Boolean> validateSharecartFileAsync() {
+        return submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return validateSharecartFile();
+            }
+        });
+    }
+
+    /**
+     * Runs {@link #load()} on the {@link SharecartConfig#getAsyncExecutor() async executor}. The parameters keep
+     * their previous values until the load completes.
+     *
+     * @return The future result of the load. Exceptions thrown by {@link #load()} are wrapped in an
+     * {@link java.util.concurrent.ExecutionException} when the result is retrieved.
+     */
+    public Future<Boolean> loadAsync() {
+        return submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return load();
+            }
+        });
+    }
+
+    /**
+     * Runs {@link #save()} on the {@link SharecartConfig#getAsyncExecutor() async executor}.
+     *
+     * @return The future result of the save. Exceptions thrown by {@link #save()} are wrapped in an
+     * {@link java.util.concurrent.ExecutionException} when the result is retrieved.
+     */
+    public Future<Boolean> saveAsync() {
+        return submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return save();
+            }
+        });
+    }
+
+    private Future<Boolean> submit(Callable<Boolean> operation) {
+        FutureTask<Boolean> future = new FutureTask<Boolean>(operation);
+        asyncExecutor.execute(future);
+        return future;
+    }
+
+    /**
+     * Overwrites only the changed values in the sharecart file, if they still fit where the old values were.
+     *
+     * @return {@code true} if the file was patched, {@code false} if the whole file has to be written instead.
+     */
+    private boolean patch() throws IOException {
+        if (this.layout == null)
+            return false;
+
+        SharecartFileWriter writer = fileInterface.getNewPatchingSharecartFileWriter(this.shareCartFile);
+        try {
+            writer.setDurability(config.getSaveDurability());
+            writer.setLocking(config.getLockStrategy(), config.getLockTimeout(), lockStatistics);
+            if (!writer.patch(this.sharecart, this.layout))
+                return false;
+        } finally {
+            writer.close();
+        }
+        this.sharecart.clearDirty();
+        return true;
+    }
+
     /**
      * @return the current value of the X parameter.
      * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
      */
     public int x() {
-        if (!isReadable())
-            throw new ParameterNotAccessibleException("x");
+        Sharecart sharecart = readable();
+        if (sharecart == null)
+            throw failure(SharecartResult.NOT_ACCESSIBLE, INDEX_X, 0, null);
+        return sharecart.x();
+    }
 
-        return this.sharecart.x();
+    /**
+     * @param fallback the value to return if the sharecart wasn't initialized.
+     * @return the current value of the X parameter, or the fallback.
+     */
+    public int tryGetX(int fallback) {
+        Sharecart sharecart = readable();
+        return sharecart != null ? sharecart.x() : fallback;
     }
 
     /**
@@ -169,10 +645,19 @@ public class SharecartManager {
      * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
      */
     public int y() {
-        if (!isReadable())
-            throw new ParameterNotAccessibleException("y");
+        Sharecart sharecart = readable();
+        if (sharecart == null)
+            throw failure(SharecartResult.NOT_ACCESSIBLE, INDEX_Y, 0, null);
+        return sharecart.y();
+    }
 
-        return this.sharecart.y();
+    /**
+     * @param fallback the value to return if the sharecart wasn't initialized.
+     * @return the current value of the Y parameter, or the fallback.
+     */
+    public int tryGetY(int fallback) {
+        Sharecart sharecart = readable();
+        return sharecart != null ? sharecart.y() : fallback;
     }
 
     /**
@@ -183,17 +668,38 @@ public class SharecartManager {
      * @throws InvalidParameterException       if the value did not fit the constraints.
      */
     public void x(int value) {
-        if (!isWritable())
-            throw new ParameterNotAccessibleException("x");
+        SharecartResult result = trySetX(value);
+        if (!result.isSuccess())
+            throw failure(result, INDEX_X, 0, value);
+    }
 
-        if (config.willClampToConstraints()) {
-            value = Constraints.clampX(value);
-        } else if (!Constraints.validX(value)) {
-            throw new InvalidParameterException("x", value);
-        }
+    /**
+     * Sets the x parameter to the given value, like {@link #x(int)}, but reports failures instead of throwing.
+     *
+     * @param value x value. Must be between zero and {@link Constraints#MAX_SIZE_X}.
+     * @return Whether the value was set, or why it could not be.
+     */
+    public SharecartResult trySetX(int value) {
+        synchronized (this) {
+            if (!isWritable())
+                return SharecartResult.NOT_ACCESSIBLE;
 
-        this.saved = false;
-        this.sharecart.x(value);
+            if (config.willClampToConstraints()) {
+                value = constraints.clampX(value);
+            } else if (!constraints.validX(value)) {
+                return SharecartResult.INVALID_VALUE;
+            }
+
+            // Storing the same value again is not a change, and does not need to be saved
+            if (this.sharecart.isReadable(INDEX_X) && this.sharecart.x() == value)
+                return SharecartResult.UNCHANGED;
+
+            Sharecart sharecart = beginChange();
+            sharecart.x(value);
+            publishChange(sharecart, SharecartFields.X);
+        }
+        dispatchImmediateChanges();
+        return SharecartResult.CHANGED;
     }
 
     /**
@@ -204,17 +710,37 @@ public class SharecartManager {
      * @throws InvalidParameterException       if the value did not fit the constraints.
      */
     public void y(int value) {
-        if (!isWritable())
-            throw new ParameterNotAccessibleException("y");
+        SharecartResult result = trySetY(value);
+        if (!result.isSuccess())
+            throw failure(result, INDEX_Y, 0, value);
+    }
 
-        if (config.willClampToConstraints()) {
-            value = Constraints.clampY(value);
-        } else if (!Constraints.validY(value)) {
-            throw new InvalidParameterException("y", value);
-        }
+    /**
+     * Sets the y parameter to the given value, like {@link #y(int)}, but reports failures instead of throwing.
+     *
+     * @param value y value. Must be between zero and {@link Constraints#MAX_SIZE_Y}.
+     * @return Whether the value was set, or why it could not be.
+     */
+    public SharecartResult trySetY(int value) {
+        synchronized (this) {
+            if (!isWritable())
+                return SharecartResult.NOT_ACCESSIBLE;
 
-        this.saved = false;
-        this.sharecart.y(value);
+            if (config.willClampToConstraints()) {
+                value = constraints.clampY(value);
+            } else if (!constraints.validY(value)) {
+                return SharecartResult.INVALID_VALUE;
+            }
+
+            if (this.sharecart.isReadable(INDEX_Y) && this.sharecart.y() == value)
+                return SharecartResult.UNCHANGED;
+
+            Sharecart sharecart = beginChange();
+            sharecart.y(value);
+            publishChange(sharecart, SharecartFields.Y);
+        }
+        dispatchImmediateChanges();
+        return SharecartResult.CHANGED;
     }
 
     /**
@@ -224,12 +750,22 @@ public class SharecartManager {
      * @throws IndexOutOfBoundsException       if the index is less than zero or greater or equal to {@link Constraints#MISC_ITEMS_LENGTH}.
      */
     public int misc(int index) {
-        if (!isReadable())
-            throw new ParameterNotAccessibleException("misc" + index);
+        Sharecart sharecart = readable();
+        if (sharecart == null)
+            throw failure(SharecartResult.NOT_ACCESSIBLE, INDEX_MISC, index, null);
         if (!Constraints.validMiscIndex(index))
-            throw new IndexOutOfBoundsException("misc" + index);
+            throw failure(SharecartResult.INVALID_INDEX, INDEX_MISC, index, null);
+        return sharecart.misc(index);
+    }
 
-        return this.sharecart.misc(index);
+    /**
+     * @param index    the index of the misc value.
+     * @param fallback the value to return if the sharecart wasn't initialized or the index is out of range.
+     * @return the current value for the misc parameter with the given index, or the fallback.
+     */
+    public int tryGetMisc(int index, int fallback) {
+        Sharecart sharecart = readable();
+        return sharecart != null && Constraints.validMiscIndex(index) ? sharecart.misc(index) : fallback;
     }
 
     /**
@@ -242,20 +778,42 @@ public class SharecartManager {
      * @throws IndexOutOfBoundsException       if the index is less than zero or greater or equal to {@link Constraints#MISC_ITEMS_LENGTH}.
      */
     public void misc(int index, int value) {
-        if (!isWritable())
-            throw new ParameterNotAccessibleException("misc" + index);
+        SharecartResult result = trySetMisc(index, value);
+        if (!result.isSuccess())
+            throw failure(result, INDEX_MISC, index, value);
+    }
 
-        if (config.willClampToConstraints()) {
-            value = Constraints.clampMisc(value);
-        } else if (!Constraints.validMisc(value)) {
-            throw new InvalidParameterException("misc" + index, value);
-        }
+    /**
+     * Sets the misc parameter with the given index to the provided value, like {@link #misc(int, int)}, but reports
+     * failures instead of throwing.
+     *
+     * @param index the index of the misc value. Must be at least zero and less than {@link Constraints#MISC_ITEMS_LENGTH}
+     * @param value misc value. Must be between zero and {@link Constraints#MAX_SIZE_MISC}.
+     * @return Whether the value was set, or why it could not be.
+     */
+    public SharecartResult trySetMisc(int index, int value) {
+        synchronized (this) {
+            if (!isWritable())
+                return SharecartResult.NOT_ACCESSIBLE;
 
-        if (!Constraints.validMiscIndex(index))
-            throw new IndexOutOfBoundsException("misc" + index);
+            if (config.willClampToConstraints()) {
+                value = constraints.clampMisc(value);
+            } else if (!constraints.validMisc(value)) {
+                return SharecartResult.INVALID_VALUE;
+            }
 
-        this.saved = false;
-        this.sharecart.misc(index, value);
+            if (!Constraints.validMiscIndex(index))
+                return SharecartResult.INVALID_INDEX;
+
+            if (this.sharecart.isReadable(INDEX_MISC + index) && this.sharecart.misc(index) == value)
+                return SharecartResult.UNCHANGED;
+
+            Sharecart sharecart = beginChange();
+            sharecart.misc(index, value);
+            publishChange(sharecart, SharecartFields.misc(index));
+        }
+        dispatchImmediateChanges();
+        return SharecartResult.CHANGED;
     }
 
     /**
@@ -263,9 +821,19 @@ public class SharecartManager {
      * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
      */
     public String name() {
-        if (!isReadable())
-            throw new ParameterNotAccessibleException("name");
-        return this.sharecart.name();
+        Sharecart sharecart = readable();
+        if (sharecart == null)
+            throw failure(SharecartResult.NOT_ACCESSIBLE, INDEX_NAME, 0, null);
+        return sharecart.name();
+    }
+
+    /**
+     * @param fallback the value to return if the sharecart wasn't initialized.
+     * @return the current value of the name parameter, or the fallback.
+     */
+    public String tryGetName(String fallback) {
+        Sharecart sharecart = readable();
+        return sharecart != null ? sharecart.name() : fallback;
     }
 
     /**
@@ -275,17 +843,38 @@ public class SharecartManager {
      * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
      */
     public void name(String value) {
-        if (!isWritable())
-            throw new ParameterNotAccessibleException("name");
+        SharecartResult result = trySetName(value);
+        if (!result.isSuccess())
+            throw failure(result, INDEX_NAME, 0, value);
+    }
 
-        if (config.willClampToConstraints()) {
-            value = Constraints.clampName(value);
-        } else if (!Constraints.validName(value)) {
-            throw new InvalidParameterException("name", value);
-        }
+    /**
+     * Sets the name parameter to the provided value, like {@link #name(String)}, but reports failures instead of
+     * throwing.
+     *
+     * @param value name value. Must be shorter than {@link Constraints#MAX_SIZE_NAME_LENGTH}.
+     * @return Whether the value was set, or why it could not be.
+     */
+    public SharecartResult trySetName(String value) {
+        synchronized (this) {
+            if (!isWritable())
+                return SharecartResult.NOT_ACCESSIBLE;
 
-        this.saved = false;
-        this.sharecart.name(value);
+            if (config.willClampToConstraints()) {
+                value = constraints.clampName(value);
+            } else if (!constraints.validName(value)) {
+                return SharecartResult.INVALID_VALUE;
+            }
+
+            if (this.sharecart.isReadable(INDEX_NAME) && this.sharecart.name().equals(value))
+                return SharecartResult.UNCHANGED;
+
+            Sharecart sharecart = beginChange();
+            sharecart.name(value);
+            publishChange(sharecart, SharecartFields.NAME);
+        }
+        dispatchImmediateChanges();
+        return SharecartResult.CHANGED;
     }
 
     /**
@@ -295,11 +884,22 @@ public class SharecartManager {
      * @throws IndexOutOfBoundsException       if the index is less than zero or greater or equal to {@link Constraints#SWITCH_ITEMS_LENGTH}.
      */
     public boolean switchValue(int index) {
-        if (!isReadable())
-            throw new ParameterNotAccessibleException("name");
+        Sharecart sharecart = readable();
+        if (sharecart == null)
+            throw failure(SharecartResult.NOT_ACCESSIBLE, INDEX_SWITCH, index, null);
         if (!Constraints.validSwitchIndex(index))
-            throw new IndexOutOfBoundsException("switch" + index);
-        return this.sharecart.switchValue(index);
+            throw failure(SharecartResult.INVALID_INDEX, INDEX_SWITCH, index, null);
+        return sharecart.switchValue(index);
+    }
+
+    /**
+     * @param index    the index of the switch value.
+     * @param fallback the value to return if the sharecart wasn't initialized or the index is out of range.
+     * @return the current value for the switch parameter with the given index, or the fallback.
+     */
+    public boolean tryGetSwitch(int index, boolean fallback) {
+        Sharecart sharecart = readable();
+        return sharecart != null && Constraints.validSwitchIndex(index) ? sharecart.switchValue(index) : fallback;
     }
 
     /**
@@ -311,13 +911,222 @@ public class SharecartManager {
      * @throws IndexOutOfBoundsException       if the index is less than zero or greater or equal to {@link Constraints#SWITCH_ITEMS_LENGTH}.
      */
     public void switchValue(int index, boolean value) {
+        SharecartResult result = trySetSwitch(index, value);
+        if (!result.isSuccess())
+            throw failure(result, INDEX_SWITCH, index, null);
+    }
+
+    /**
+     * Sets the switch parameter with the given index to the provided value, like {@link #switchValue(int, boolean)},
+     * but reports failures instead of throwing.
+     *
+     * @param index the index of the switch value. Must be at least zero and less than {@link Constraints#SWITCH_ITEMS_LENGTH}
+     * @param value switch value.
+     * @return Whether the value was set, or why it could not be.
+     */
+    public SharecartResult trySetSwitch(int index, boolean value) {
+        synchronized (this) {
+            if (!isWritable())
+                return SharecartResult.NOT_ACCESSIBLE;
+            if (!Constraints.validSwitchIndex(index))
+                return SharecartResult.INVALID_INDEX;
+
+            if (this.sharecart.isReadable(INDEX_SWITCH + index) && this.sharecart.switchValue(index) == value)
+                return SharecartResult.UNCHANGED;
+
+            Sharecart sharecart = beginChange();
+            sharecart.switchValue(index, value);
+            publishChange(sharecart, SharecartFields.switchValue(index));
+        }
+        dispatchImmediateChanges();
+        return SharecartResult.CHANGED;
+    }
+
+    /**
+     * @return All switch values as a bit mask, with switch0 in the lowest bit.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     */
+    public int switchMask() {
+        if (!isReadable())
+            throw notAccessible(SharecartFailures.ALL_SWITCHES);
+
+        return current(SharecartFailures.ALL_SWITCHES).switchMask();
+    }
+
+    /**
+     * Sets all switch parameters at once.
+     *
+     * @param mask all switch values as a bit mask, with switch0 in the lowest bit. Must not have any bits set
+     *             above the last switch.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     * @throws InvalidParameterException       if the mask has bits set above the last switch.
+     */
+    public void switchMask(int mask) {
+        synchronized (this) {
+            if (!isWritable())
+                throw notAccessible(SharecartFailures.ALL_SWITCHES);
+            if ((mask & ~((1 << Constraints.SWITCH_ITEMS_LENGTH) - 1)) != 0)
+                throw SharecartFailures.invalidSwitches(mask, config.isPreallocatedExceptionMode());
+
+            int changedSwitches = 0;
+            for (int i = 0; i < Constraints.SWITCH_ITEMS_LENGTH; i++) {
+                boolean value = (mask & (1 << i)) != 0;
+                if (!this.sharecart.isReadable(INDEX_SWITCH + i) || this.sharecart.switchValue(i) != value)
+                    changedSwitches |= 1 << i;
+            }
+            if (changedSwitches != 0) {
+                // Only the switches that changed are assigned, so only those differ from the file
+                Sharecart sharecart = beginChange();
+                for (int i = 0; i < Constraints.SWITCH_ITEMS_LENGTH; i++) {
+                    if ((changedSwitches & (1 << i)) != 0)
+                        sharecart.switchValue(i, (mask & (1 << i)) != 0);
+                }
+                publishChange(sharecart, SharecartFields.switches(changedSwitches));
+            }
+        }
+        dispatchImmediateChanges();
+    }
+
+    /**
+     * Copies all misc values into the given array.
+     *
+     * @param dst the array to copy into. Must be at least {@link Constraints#MISC_ITEMS_LENGTH} long.
+     * @return The given array.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     * @throws IllegalArgumentException        if the array is null or too short.
+     */
+    public int[] miscValues(int[] dst) {
+        if (!isReadable())
+            throw notAccessible(SharecartFailures.ALL_MISC);
+        if (dst == null || dst.length < Constraints.MISC_ITEMS_LENGTH)
+            throw new IllegalArgumentException("Array must hold at least " + Constraints.MISC_ITEMS_LENGTH + " values");
+
+        current(SharecartFailures.ALL_MISC).miscValues(dst);
+        return dst;
+    }
+
+    /**
+     * Sets all misc parameters at once. Either all values are assigned, or none are.
+     *
+     * @param src the values to assign, by index. Must be at least {@link Constraints#MISC_ITEMS_LENGTH} long, and each
+     *            value must be between zero and {@link Constraints#MAX_SIZE_MISC}.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     * @throws InvalidParameterException       if one of the values did not fit the constraints.
+     * @throws IllegalArgumentException        if the array is null or too short.
+     */
+    public void setMiscValues(int[] src) {
+        synchronized (this) {
+            if (!isWritable())
+                throw notAccessible(SharecartFailures.ALL_MISC);
+            if (src == null || src.length < Constraints.MISC_ITEMS_LENGTH)
+                throw new IllegalArgumentException("Array must hold at least " + Constraints.MISC_ITEMS_LENGTH + " values");
+
+            if (!config.willClampToConstraints()) {
+                for (int i = 0; i < Constraints.MISC_ITEMS_LENGTH; i++) {
+                    if (!constraints.validMisc(src[i]))
+                        throw failure(SharecartResult.INVALID_VALUE, INDEX_MISC, i, src[i]);
+                }
+            }
+
+            int changed = 0;
+            for (int i = 0; i < Constraints.MISC_ITEMS_LENGTH; i++) {
+                if (!this.sharecart.isReadable(INDEX_MISC + i) || this.sharecart.misc(i) != miscValue(src[i]))
+                    changed |= SharecartFields.misc(i);
+            }
+            if (changed != 0) {
+                Sharecart sharecart = beginChange();
+                for (int i = 0; i < Constraints.MISC_ITEMS_LENGTH; i++) {
+                    if ((changed & SharecartFields.misc(i)) != 0)
+                        sharecart.misc(i, miscValue(src[i]));
+                }
+                publishChange(sharecart, changed);
+            }
+        }
+        dispatchImmediateChanges();
+    }
+
+    /**
+     * Starts staging changes to several parameters, to be validated and applied together when
+     * {@link SharecartEditor#commit() committed}.
+     *
+     * @return A new editor for the sharecart.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     */
+    public SharecartEditor edit() {
         if (!isWritable())
-            throw new ParameterNotAccessibleException("switch" + index);
-        if (!Constraints.validSwitchIndex(index))
-            throw new IndexOutOfBoundsException("switch" + index);
+            throw notAccessible(SharecartFailures.ALL_PARAMETERS);
 
-        this.saved = false;
-        this.sharecart.switchValue(index, value);
+        return new SharecartEditor(this);
+    }
+
+    /**
+     * Stages the changes made by the transaction and commits them as one change.
+     *
+     * @param transaction the changes to make.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     * @throws InvalidParameterException       if one of the values did not fit the constraints, in which case
+     *                                         nothing is changed.
+     */
+    public void transaction(SharecartTransaction transaction) {
+        if (transaction == null)
+            throw new IllegalArgumentException("Transaction cannot be null");
+
+        SharecartEditor editor = edit();
+        transaction.edit(editor);
+        editor.commit();
+    }
+
+    void commit(SharecartEditor editor) {
+        synchronized (this) {
+            if (!isWritable())
+                throw notAccessible(SharecartFailures.ALL_PARAMETERS);
+            if (!editor.hasStagedValues())
+                return;
+
+            editor.validate(constraints, config.willClampToConstraints(), config.isPreallocatedExceptionMode());
+
+            Sharecart sharecart = beginChange();
+            publishChange(sharecart, editor.applyTo(sharecart));
+        }
+        dispatchImmediateChanges();
+    }
+
+    /**
+     * Takes a compact copy of all parameters, for instance to be able to undo later changes.
+     *
+     * @return An immutable copy of the current parameters.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     */
+    public CompactSharecart snapshot() {
+        if (!isReadable())
+            throw notAccessible(SharecartFailures.ALL_PARAMETERS);
+
+        return CompactSharecart.of(current(SharecartFailures.ALL_PARAMETERS), constraints);
+    }
+
+    /**
+     * Sets all parameters to the values of a snapshot. Snapshots taken with other constraints are checked against
+     * the constraints of this manager, and clamped if configured to.
+     *
+     * @param snapshot the parameter values to assign.
+     * @throws ParameterNotAccessibleException if the sharecart wasn't initialized.
+     * @throws InvalidParameterException       if one of the values did not fit the constraints, in which case
+     *                                         nothing is changed.
+     * @see #snapshot()
+     */
+    public void restore(CompactSharecart snapshot) {
+        synchronized (this) {
+            if (!isWritable())
+                throw notAccessible(SharecartFailures.ALL_PARAMETERS);
+            if (snapshot == null)
+                throw new IllegalArgumentException("Snapshot cannot be null");
+
+            snapshot = snapshot.constrainTo(constraints, config.willClampToConstraints(),
+                    config.isPreallocatedExceptionMode());
+            Sharecart sharecart = beginChange();
+            publishChange(sharecart, snapshot.copyTo(sharecart));
+        }
+        dispatchImmediateChanges();
     }
 
     /**
@@ -341,10 +1150,177 @@ public class SharecartManager {
         return !this.saved;
     }
 
+    /**
+     * @return The number of saves made while auto save mode is on, automatic or not. Always zero if {@link SharecartConfig#isAutoSaveMode()} is false.
+     */
+    public long getAutoSaveCount() {
+        return autoSaver != null ? autoSaver.getSaveCount() : 0;
+    }
+
+    /**
+     * @return The number of changes that did not need a save of their own, because they were saved together with
+     * other changes. Always zero if {@link SharecartConfig#isAutoSaveMode()} is false.
+     */
+    public long getCoalescedAutoSaveCount() {
+        return autoSaver != null ? autoSaver.getCoalescedSaveCount() : 0;
+    }
+
+    /**
+     * @return The number of automatic saves that failed, after which the changes were kept and saved again later.
+     * Always zero if {@link SharecartConfig#isAutoSaveMode()} is false.
+     */
+    public long getFailedAutoSaveCount() {
+        return autoSaver != null ? autoSaver.getFailedSaveCount() : 0;
+    }
+
+    /**
+     * @return The number of saves that did not write anything, because the sharecart file already held the
+     * parameters.
+     */
+    public long getSkippedSaveCount() {
+        return skippedSaveCount;
+    }
+
+    /**
+     * @return Counters for the locks taken on the sharecart file when it was loaded and saved.
+     * @see SharecartConfig.Builder#setLockStrategy(SharecartConfig.LockStrategy)
+     */
+    public SharecartLockStatistics getLockStatistics() {
+        return lockStatistics;
+    }
+
+    /**
+     * Called by the auto saver. Unlike {@link #save()}, this does nothing if the sharecart can not be saved.
+     */
+    synchronized boolean autoSave() {
+        if (!isWritable() || this.sharecart == null)
+            return false;
+        return save();
+    }
+
     SharecartConfig getConfig() {
         return config;
     }
 
+    /**
+     * @return The sharecart that the next change should be made to. In concurrent mode this is a copy of the current
+     * sharecart, so that readers never see a change half made.
+     */
+    private Sharecart beginChange() {
+        return config.isConcurrentMode() ? new Sharecart(this.sharecart) : this.sharecart;
+    }
+
+    /**
+     * Makes a changed sharecart the current one, unless nothing changed.
+     *
+     * @param changed the parameters that were assigned a different value, as {@link SharecartFields} bits.
+     */
+    private void publishChange(Sharecart sharecart, int changed) {
+        if (changed == 0)
+            return;
+
+        this.sharecart = sharecart;
+        this.saved = false;
+        if (autoSaver != null) {
+            autoSaver.onChanged();
+        }
+        recordChanges(changed);
+    }
+
+    /**
+     * @return Whether or not the sharecart file already holds the current parameters.
+     */
+    private boolean isPersisted() {
+        File file = this.shareCartFile.getFile();
+        SharecartStorage storage = config.getStorage();
+        long length = storage != null ? storage.length(file) : file.length();
+        long lastModified = storage != null ? storage.lastModified(file) : file.lastModified();
+        if (!isKnownFileState(length, lastModified))
+            return false;
+
+        // Parameters that were set back to the values they had in the file are still marked dirty
+        return this.sharecart.dirtyMask() == 0
+                || this.persistedState != null && this.persistedState.equals(fingerprint(this.sharecart));
+    }
+
+    /**
+     * @return The packed parameters of the sharecart, or null for lazily decoded sharecarts, which would have to be
+     * decoded in full, and for values that do not fit the packed format.
+     */
+    private CompactSharecart fingerprint(Sharecart sharecart) {
+        if (sharecart instanceof LazySharecart)
+            return null;
+        try {
+            return CompactSharecart.of(sharecart, constraints);
+        } catch (InvalidParameterException e) {
+            return null;
+        }
+    }
+
+    private int miscValue(int value) {
+        return config.willClampToConstraints() ? constraints.clampMisc(value) : value;
+    }
+
+    private void recordLoadedChanges(Sharecart previous) {
+        if (listeners.isEmpty())
+            return;
+        recordChanges(previous == null ? SharecartFields.ALL : this.sharecart.differences(previous));
+    }
+
+    private void recordChanges(int changed) {
+        if (changed == 0 || listeners.isEmpty())
+            return;
+
+        int pending;
+        do {
+            pending = pendingChanges.get();
+        } while (!pendingChanges.compareAndSet(pending, pending | changed));
+    }
+
+    /**
+     * Notifies the listeners right away in {@link SharecartConfig.ChangeDispatchMode#IMMEDIATE immediate} mode. Called
+     * outside of the lock, so that listeners can use the manager from other threads.
+     */
+    private void dispatchImmediateChanges() {
+        if (config.getChangeDispatchMode() == SharecartConfig.ChangeDispatchMode.IMMEDIATE)
+            dispatchChanges();
+    }
+
+    /**
+     * Returns the current sharecart, which has been checked to be readable. Reading the volatile field once
+     * keeps the result consistent when another thread loads or changes the sharecart.
+     */
+    private Sharecart current(String parameter) {
+        Sharecart sharecart = this.sharecart;
+        if (sharecart == null)
+            throw notAccessible(parameter);
+        return sharecart;
+    }
+
+    /**
+     * @return The current sharecart if it can be read, otherwise {@code null}.
+     */
+    private Sharecart readable() {
+        return isReadable() ? this.sharecart : null;
+    }
+
+    /**
+     * @param parameter the index of the parameter, or of the first misc or switch parameter.
+     * @param index     the index of the misc or switch parameter, otherwise zero.
+     * @return The exception for a failed access, preallocated if the config asks for it.
+     */
+    private RuntimeException notAccessible(String parameters) {
+        return SharecartFailures.notAccessible(parameters, config.isPreallocatedExceptionMode());
+    }
+
+    private RuntimeException failure(SharecartResult result, int parameter, int index, int value) {
+        return failure(result, parameter, index, String.valueOf(value));
+    }
+
+    private RuntimeException failure(SharecartResult result, int parameter, int index, String value) {
+        return SharecartFailures.failure(result, parameter, index, value, config.isPreallocatedExceptionMode());
+    }
+
     private boolean isReadable() {
         return this.valid && this.loaded;
     }
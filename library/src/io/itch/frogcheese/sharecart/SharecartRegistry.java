@@ -0,0 +1,157 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps independent {@link SharecartManager managers} for several sharecart files at once, for instance one per
+ * installed game, as an alternative to the single manager of {@link SharecartManager#initialize(SharecartConfig)}.
+ * <p/>
+ * Managers are keyed by the canonical path of their sharecart file, so configurations that resolve to the same file
+ * share a manager, created with the first of those configurations. At most {@link #getCapacity()} managers are kept:
+ * when another one is needed, the least recently used manager is {@link SharecartManager#close() closed} and dropped.
+ */
+public final class SharecartRegistry {
+
+    static final int DEFAULT_CAPACITY = 8;
+
+    private final int capacity;
+    private final LinkedHashMap<String, SharecartManager> managers;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a registry that keeps up to {@value #DEFAULT_CAPACITY} managers.
+     */
+    public SharecartRegistry() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of managers to keep.
+     */
+    public SharecartRegistry(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Registry capacity must be at least one. Number was " + capacity);
+
+        this.capacity = capacity;
+        // Access order, so that the first entry is always the least recently used
+        this.managers = new LinkedHashMap<String, SharecartManager>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the manager for the sharecart file that the configuration resolves to, creating it if there is none.
+     * New managers have already found their file, so they can be {@link SharecartManager#load() loaded} right away.
+     *
+     * @param config configuration for how the sharecart file should be found and handled.
+     * @return The manager for the sharecart file, or null if no sharecart file could be found or created.
+     */
+    public synchronized SharecartManager get(SharecartConfig config) {
+        if (config == null)
+            throw new IllegalArgumentException("Config cannot be null");
+
+        SharecartFile file = SharecartManager.findSharecartFile(SharecartFileInterface.get(), config);
+        if (file == null)
+            return null;
+
+        String key = keyOf(file.getFile());
+        SharecartManager manager = managers.get(key);
+        if (manager != null) {
+            hitCount++;
+            return manager;
+        }
+
+        missCount++;
+        manager = new SharecartManager(config);
+        manager.useSharecartFile(file);
+        managers.put(key, manager);
+        evictOverflow();
+        return manager;
+    }
+
+    /**
+     * Closes and drops the manager of the given sharecart file, if there is one.
+     *
+     * @param sharecartFile the sharecart file.
+     * @return Whether or not a manager was removed.
+     */
+    public synchronized boolean remove(File sharecartFile) {
+        SharecartManager manager = managers.remove(keyOf(sharecartFile));
+        if (manager == null)
+            return false;
+
+        manager.close();
+        return true;
+    }
+
+    /**
+     * Closes and drops all managers.
+     */
+    public synchronized void clear() {
+        List<SharecartManager> removed = new ArrayList<SharecartManager>(managers.values());
+        managers.clear();
+        for (SharecartManager manager : removed) {
+            manager.close();
+        }
+    }
+
+    /**
+     * @return The number of managers currently kept.
+     */
+    public synchronized int size() {
+        return managers.size();
+    }
+
+    /**
+     * @return The maximum number of managers kept.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return The number of requests that were answered with a manager that was already kept.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return The number of requests that created a new manager.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of managers that were dropped to stay within the capacity.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, SharecartManager>> iterator = managers.entrySet().iterator();
+        while (managers.size() > capacity && iterator.hasNext()) {
+            SharecartManager manager = iterator.next().getValue();
+            iterator.remove();
+            evictionCount++;
+            manager.close();
+        }
+    }
+
+    private static String keyOf(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+}
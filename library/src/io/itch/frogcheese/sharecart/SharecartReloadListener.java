@@ -0,0 +1,17 @@
+package io.itch.frogcheese.sharecart;
+
+/**
+ * Notified when the sharecart file has been reloaded because another application changed it.
+ *
+ * @see SharecartManager#addReloadListener(SharecartReloadListener)
+ * @see SharecartConfig#isHotReloadMode()
+ */
+public interface SharecartReloadListener {
+
+    /**
+     * Called on the watcher thread after the new contents have been loaded.
+     *
+     * @param manager the manager that reloaded the file.
+     */
+    void onSharecartReloaded(SharecartManager manager);
+}
@@ -0,0 +1,35 @@
+package io.itch.frogcheese.sharecart;
+
+/**
+ * Outcome of setting a sharecart parameter through one of the methods that report failures instead of throwing,
+ * such as {@link SharecartManager#trySetX(int)}.
+ */
+public enum SharecartResult {
+    /**
+     * The parameter was assigned a new value.
+     */
+    CHANGED,
+    /**
+     * The parameter already had the value.
+     */
+    UNCHANGED,
+    /**
+     * The sharecart file has not been validated and loaded.
+     */
+    NOT_ACCESSIBLE,
+    /**
+     * The value did not fit the constraints, and the manager does not clamp values.
+     */
+    INVALID_VALUE,
+    /**
+     * The index of the misc or switch parameter was out of range.
+     */
+    INVALID_INDEX;
+
+    /**
+     * @return Whether or not the parameter now holds the value it was set to.
+     */
+    public boolean isSuccess() {
+        return this == CHANGED || this == UNCHANGED;
+    }
+}
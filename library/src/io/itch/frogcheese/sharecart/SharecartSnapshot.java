@@ -0,0 +1,184 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.SharecartException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the sharecart parameters, kept in a file next to the sharecart file.
+ * <p/>
+ * A snapshot records the size, modification time and checksum of the sharecart file contents it was taken from, as
+ * the reader or writer saw them while holding the file. The parameters are restored from the snapshot without
+ * parsing the sharecart file as long as its size and checksum still match. The checksum is always compared, since
+ * a file rewritten within the resolution of its modification time keeps both its size and modification time.
+ * The snapshot carries a checksum of its own, so a damaged snapshot is ignored rather than restored. Since it
+ * may have been taken under another {@link ConstraintProfile}, its values are checked against the current one, and
+ * the file is parsed instead if any of them does not fit.
+ */
+class SharecartSnapshot {
+
+    static final String FILE_SUFFIX = ".snapshot";
+
+    private static final int MAGIC = 0x53435353;
+    private static final int VERSION = 1;
+
+    private SharecartSnapshot() {
+    }
+
+    /**
+     * @param file the sharecart file.
+     * @return The file that the snapshot of the sharecart file is kept in.
+     */
+    static File snapshotFile(File file) {
+        return new File(file.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Restores the parameters of a sharecart file from its snapshot.
+     *
+     * @param file        the sharecart file.
+     * @param strict      whether or not the sharecart file is read in strict mode. Snapshots of files with missing
+     *                    or faulty parameters are not restored in strict mode, so that the file is parsed and fails.
+     * @param constraints the constraints the restored parameters must fit.
+     * @param state       receives the state of the sharecart file that the snapshot was taken from, if restored.
+     * @return The restored parameters, or null if there is no snapshot, it is damaged or out of date, or its
+     * parameters do not fit the constraints.
+     */
+    static Sharecart restore(File file, boolean strict, ConstraintProfile constraints, SharecartFileLayout state) {
+        File snapshotFile = snapshotFile(file);
+        if (!snapshotFile.isFile())
+            return null;
+
+        try {
+            DataInputStream input = open(snapshotFile);
+            if (input == null)
+                return null;
+
+            long length = input.readLong();
+            long lastModified = input.readLong();
+            long checksum = input.readLong();
+            if (length != file.length() || checksum != SharecartFileUtils.checksum(file))
+                return null;
+
+            Sharecart sharecart = new Sharecart();
+            sharecart.x(input.readInt());
+            sharecart.y(input.readInt());
+            for (int i = 0; i < sharecart.miscLength(); i++) {
+                sharecart.misc(i, input.readInt());
+            }
+            sharecart.name(input.readUTF());
+            sharecart.switchMask(input.readInt());
+            if (!fits(sharecart, constraints))
+                return null;
+
+            int dirty = input.readInt();
+            if (strict && dirty != 0)
+                return null;
+            sharecart.setDirtyMask(dirty);
+            state.setFileState(length, lastModified, checksum);
+            return sharecart;
+        } catch (IOException e) {
+            // Missing, damaged or from an older version; the file is parsed instead
+            return null;
+        }
+    }
+
+    private static boolean fits(Sharecart sharecart, ConstraintProfile constraints) {
+        if (!constraints.validX(sharecart.x()) || !constraints.validY(sharecart.y())
+                || !constraints.validName(sharecart.name()))
+            return false;
+        for (int i = 0; i < sharecart.miscLength(); i++) {
+            if (!constraints.validMisc(sharecart.misc(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Opens the contents of a snapshot, after checking its header and checksum.
+     *
+     * @return The contents following the header, or null if the snapshot is damaged or of another version.
+     */
+    private static DataInputStream open(File snapshotFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshotFile.toPath());
+        if (bytes.length < 16)
+            return null;
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong())
+            return null;
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8));
+        if (input.readInt() != MAGIC || input.readInt() != VERSION)
+            return null;
+        return input;
+    }
+
+    /**
+     * Takes a snapshot of the parameters, as they are after the sharecart file has been read or written.
+     * Lazily decoded parameters are decoded in the process. Any error is reported and otherwise ignored, leaving
+     * no snapshot behind, since the sharecart file itself is all that is needed.
+     *
+     * @param file      the sharecart file.
+     * @param sharecart the parameters of the sharecart file.
+     * @param layout    the layout recorded by the read or write of the parameters. Without the state of the file
+     *                  contents that were read or written, no snapshot is taken.
+     */
+    static void take(File file, Sharecart sharecart, SharecartFileLayout layout) {
+        File snapshotFile = snapshotFile(file);
+        if (layout == null || !layout.hasFileState() || layout.fileChecksum() < 0) {
+            //noinspection ResultOfMethodCallIgnored
+            snapshotFile.delete();
+            return;
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(layout.fileLength());
+            output.writeLong(layout.fileLastModified());
+            output.writeLong(layout.fileChecksum());
+            output.writeInt(sharecart.x());
+            output.writeInt(sharecart.y());
+            for (int i = 0; i < sharecart.miscLength(); i++) {
+                output.writeInt(sharecart.misc(i));
+            }
+            output.writeUTF(sharecart.name());
+            output.writeInt(sharecart.switchMask());
+            // Last, since lazily decoded parameters that turn out faulty are marked dirty when first accessed
+            output.writeInt(sharecart.dirtyMask());
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            output.writeLong(crc.getValue());
+
+            OutputStream stream = new FileOutputStream(snapshotFile);
+            try {
+                bytes.writeTo(stream);
+            } finally {
+                stream.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            //noinspection ResultOfMethodCallIgnored
+            snapshotFile.delete();
+        } catch (SharecartException e) {
+            // A lazily decoded parameter was faulty in strict mode, which is reported when it is accessed
+            //noinspection ResultOfMethodCallIgnored
+            snapshotFile.delete();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.itch.frogcheese.sharecart;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stores the raw contents of sharecart files, as an alternative to reading and writing the files directly.
+ * Contents are keyed by the sharecart file that was found for a configuration. Implementations must be thread safe.
+ *
+ * @see SharecartConfig.Builder#setStorageBackend(SharecartConfig.StorageBackend)
+ * @see SharecartConfig.Builder#setStorage(SharecartStorage)
+ */
+public interface SharecartStorage {
+
+    /**
+     * Reads the contents of a sharecart file.
+     *
+     * @param file the sharecart file.
+     * @return The contents between the position and limit of the buffer. The contents of the buffer must not change
+     * when the file is written later on.
+     * @throws IOException if the contents could not be read.
+     */
+    ByteBuffer read(File file) throws IOException;
+
+    /**
+     * Replaces the contents of a sharecart file.
+     *
+     * @param file     the sharecart file.
+     * @param contents the new contents between the position and limit of the buffer. The buffer may be reused
+     *                 once this method returns.
+     * @throws IOException if the contents could not be written.
+     */
+    void write(File file, ByteBuffer contents) throws IOException;
+
+    /**
+     * Returns the length of the stored contents of a sharecart file. Along with {@link #lastModified(File)}, this
+     * tells whether the contents were changed by someone else since they were last read or written.
+     *
+     * @param file the sharecart file.
+     * @return The length of the contents in bytes, or 0 if nothing is stored.
+     */
+    long length(File file);
+
+    /**
+     * Returns when the contents of a sharecart file were last written.
+     *
+     * @param file the sharecart file.
+     * @return The modification time, or any other value that changes with every write. 0 if nothing is stored.
+     */
+    long lastModified(File file);
+}
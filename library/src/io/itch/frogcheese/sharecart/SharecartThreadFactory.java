@@ -0,0 +1,23 @@
+package io.itch.frogcheese.sharecart;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the daemon threads that sharecart IO runs on in the background, so that they never keep
+ * the application from exiting.
+ */
+class SharecartThreadFactory implements ThreadFactory {
+
+    private final String name;
+
+    SharecartThreadFactory(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
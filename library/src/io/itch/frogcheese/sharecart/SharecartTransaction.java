@@ -0,0 +1,17 @@
+package io.itch.frogcheese.sharecart;
+
+/**
+ * A set of changes to the sharecart parameters that are applied together.
+ *
+ * @see SharecartManager#transaction(SharecartTransaction)
+ */
+public interface SharecartTransaction {
+
+    /**
+     * Stages the changes of the transaction. The changes are committed once this method returns.
+     * If it throws an exception, none of the changes are applied.
+     *
+     * @param editor the editor to stage the changes in.
+     */
+    void edit(SharecartEditor editor);
+}
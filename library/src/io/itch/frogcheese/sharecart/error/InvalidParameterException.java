@@ -21,4 +21,19 @@ public class InvalidParameterException extends SharecartException {
         super(String.format(Locale.US, "'%s' is not a valid value for parameter '%s'", value, parameter));
     }
 
+    private InvalidParameterException(String parameter) {
+        super(String.format(Locale.US, "Invalid value for parameter '%s'", parameter), false);
+    }
+
+    /**
+     * Creates an exception without a stack trace, that does not name the invalid value. It can be created once
+     * and thrown for every invalid value of the parameter.
+     *
+     * @param parameter the name of the parameter.
+     * @return A new exception without a stack trace.
+     */
+    public static InvalidParameterException withoutStackTrace(String parameter) {
+        return new InvalidParameterException(parameter);
+    }
+
 }
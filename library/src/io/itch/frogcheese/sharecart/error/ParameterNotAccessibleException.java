@@ -14,6 +14,25 @@ public class ParameterNotAccessibleException extends SharecartException {
     private static final long serialVersionUID = 1L;
 
     public ParameterNotAccessibleException(String parameter) {
-        super(String.format(Locale.US, "Can't access parameter '%s' without valid sharecart file.", parameter));
+        super(message(parameter));
+    }
+
+    private ParameterNotAccessibleException(String parameter, boolean writableStackTrace) {
+        super(message(parameter), writableStackTrace);
+    }
+
+    /**
+     * Creates an exception without a stack trace. It can be created once and thrown whenever the parameter is
+     * accessed too early.
+     *
+     * @param parameter the name of the parameter.
+     * @return A new exception without a stack trace.
+     */
+    public static ParameterNotAccessibleException withoutStackTrace(String parameter) {
+        return new ParameterNotAccessibleException(parameter, false);
+    }
+
+    private static String message(String parameter) {
+        return String.format(Locale.US, "Can't access parameter '%s' without valid sharecart file.", parameter);
     }
 }
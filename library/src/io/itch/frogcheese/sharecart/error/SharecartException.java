@@ -21,4 +21,13 @@ public class SharecartException extends RuntimeException {
         super(throwable);
     }
 
+    /**
+     * @param s                  the message.
+     * @param writableStackTrace whether or not the stack trace should be filled in. Exceptions without a stack trace
+     *                           are cheap to throw, and can be created once and thrown repeatedly.
+     */
+    protected SharecartException(String s, boolean writableStackTrace) {
+        super(s, null, writableStackTrace, writableStackTrace);
+    }
+
 }
@@ -0,0 +1,141 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart.error.InvalidParameterException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class CompactSharecartTest {
+
+    private Sharecart sharecart;
+
+    @Before
+    public void setUp() throws Exception {
+        sharecart = Sharecart.withDefaults();
+        sharecart.x(Constraints.MAX_SIZE_X);
+        sharecart.y(17);
+        sharecart.misc(0, 1);
+        sharecart.misc(1, Constraints.MAX_SIZE_MISC);
+        sharecart.misc(3, 12345);
+        sharecart.name("Compact");
+        sharecart.switchValue(0, true);
+        sharecart.switchValue(7, true);
+    }
+
+    @Test
+    public void testPacks_all_parameters() throws Exception {
+        CompactSharecart compact = CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+
+        assertThat(compact.x()).isEqualTo(Constraints.MAX_SIZE_X);
+        assertThat(compact.y()).isEqualTo(17);
+        assertThat(compact.misc(0)).isEqualTo(1);
+        assertThat(compact.misc(1)).isEqualTo(Constraints.MAX_SIZE_MISC);
+        assertThat(compact.misc(2)).isEqualTo(0);
+        assertThat(compact.misc(3)).isEqualTo(12345);
+        assertThat(compact.name()).isEqualTo("Compact");
+        assertThat(compact.switchMask()).isEqualTo(0x81);
+        assertThat(compact.switchValue(0)).isTrue();
+        assertThat(compact.switchValue(1)).isFalse();
+        assertThat(compact.switchValue(7)).isTrue();
+    }
+
+    @Test
+    public void testCopy_to_sharecart() throws Exception {
+        Sharecart copy = new Sharecart();
+        CompactSharecart.of(sharecart, ConstraintProfile.STANDARD).copyTo(copy);
+
+        assertThat(copy).isEqualTo(sharecart);
+    }
+
+    @Test
+    public void testCopy_to_sharecart_assigns_only_differences() throws Exception {
+        Sharecart copy = new Sharecart(sharecart);
+        copy.y(sharecart.y() + 1);
+        copy.clearDirty();
+
+        assertThat(CompactSharecart.of(sharecart, ConstraintProfile.STANDARD).copyTo(copy)).isEqualTo(SharecartFields.Y);
+        assertThat(copy.dirtyMask()).isEqualTo(SharecartFields.Y);
+        assertThat(CompactSharecart.of(sharecart, ConstraintProfile.STANDARD).copyTo(copy)).isEqualTo(0);
+    }
+
+    @Test
+    public void testEquals_and_hash_code() throws Exception {
+        CompactSharecart compact = CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+        CompactSharecart same = CompactSharecart.of(new Sharecart(sharecart), ConstraintProfile.STANDARD);
+
+        assertThat(compact).isEqualTo(same);
+        assertThat(compact.hashCode()).isEqualTo(same.hashCode());
+        assertThat(compact).isNotEqualTo(compact.withMisc(2, 1));
+        assertThat(compact).isNotEqualTo(compact.withSwitchValue(3, true));
+        assertThat(compact).isNotEqualTo(compact.withName("Other"));
+        assertThat(compact.withX(3).withX(Constraints.MAX_SIZE_X)).isEqualTo(compact);
+    }
+
+    @Test
+    public void testWith_changes_only_one_parameter() throws Exception {
+        CompactSharecart compact = CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+
+        CompactSharecart changed = compact.withY(Constraints.MAX_SIZE_Y).withMisc(1, 0).withSwitchMask(0x0F);
+        assertThat(changed.x()).isEqualTo(Constraints.MAX_SIZE_X);
+        assertThat(changed.y()).isEqualTo(Constraints.MAX_SIZE_Y);
+        assertThat(changed.misc(0)).isEqualTo(1);
+        assertThat(changed.misc(1)).isEqualTo(0);
+        assertThat(changed.misc(3)).isEqualTo(12345);
+        assertThat(changed.switchMask()).isEqualTo(0x0F);
+        assertThat(changed.name()).isEqualTo("Compact");
+
+        // The original is left untouched
+        assertThat(compact.y()).isEqualTo(17);
+        assertThat(compact.misc(1)).isEqualTo(Constraints.MAX_SIZE_MISC);
+    }
+
+    @Test
+    public void testInvalid_values_cause_exception() throws Exception {
+        CompactSharecart compact = CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+        try {
+            compact.withX(Constraints.MAX_SIZE_X + 1);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+        try {
+            compact.withMisc(0, -1);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+        try {
+            compact.withName(null);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+
+        sharecart.y(-4);
+        try {
+            CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testInvalid_index_causes_exception() throws Exception {
+        CompactSharecart compact = CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+        try {
+            compact.misc(Constraints.MISC_ITEMS_LENGTH);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+        try {
+            compact.withSwitchValue(-1, true);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.Test;
+
+import static io.itch.frogcheese.sharecart.Constraints.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class ConstraintProfileTest {
+
+    @Test
+    public void testStandard_profile_matches_constraints() throws Exception {
+        ConstraintProfile profile = ConstraintProfile.STANDARD;
+
+        assertThat(profile.getMaxX()).isEqualTo(MAX_SIZE_X);
+        assertThat(profile.getMaxY()).isEqualTo(MAX_SIZE_Y);
+        assertThat(profile.getMaxMisc()).isEqualTo(MAX_SIZE_MISC);
+        assertThat(profile.getMaxNameLength()).isEqualTo(MAX_SIZE_NAME_LENGTH);
+    }
+
+    @Test
+    public void testValid_values() throws Exception {
+        ConstraintProfile profile = ConstraintProfile.STANDARD;
+
+        assertThat(profile.validX(MAX_SIZE_X)).isTrue();
+        assertThat(profile.validX(MAX_SIZE_X + 1)).isFalse();
+        assertThat(profile.validY(0)).isTrue();
+        assertThat(profile.validY(-1)).isFalse();
+        assertThat(profile.validMisc(MAX_SIZE_MISC)).isTrue();
+        assertThat(profile.validMisc(MAX_SIZE_MISC + 1)).isFalse();
+        assertThat(profile.validName("")).isTrue();
+        assertThat(profile.validName(null)).isFalse();
+    }
+
+    @Test
+    public void testWith_limits_returns_copy() throws Exception {
+        ConstraintProfile profile = ConstraintProfile.STANDARD
+                .withMaxX(10)
+                .withMaxY(20)
+                .withMaxMisc(30)
+                .withMaxNameLength(4);
+
+        assertThat(profile.getMaxX()).isEqualTo(10);
+        assertThat(profile.getMaxY()).isEqualTo(20);
+        assertThat(profile.getMaxMisc()).isEqualTo(30);
+        assertThat(profile.getMaxNameLength()).isEqualTo(4);
+        assertThat(ConstraintProfile.STANDARD.getMaxX()).isEqualTo(MAX_SIZE_X);
+
+        assertThat(profile.validX(11)).isFalse();
+        assertThat(profile.clampX(11)).isEqualTo(10);
+        assertThat(profile.clampY(-5)).isEqualTo(0);
+        assertThat(profile.clampMisc(31)).isEqualTo(30);
+        assertThat(profile.clampName("a name")).isEqualTo("a na");
+        assertThat(profile.clampName(null)).isEmpty();
+    }
+
+    @Test
+    public void testEquality() throws Exception {
+        ConstraintProfile profile = ConstraintProfile.STANDARD.withMaxX(10);
+
+        assertThat(profile).isEqualTo(ConstraintProfile.STANDARD.withMaxX(10));
+        assertThat(profile.hashCode()).isEqualTo(ConstraintProfile.STANDARD.withMaxX(10).hashCode());
+        assertThat(profile).isNotEqualTo(ConstraintProfile.STANDARD);
+        assertThat(profile.withMaxX(MAX_SIZE_X)).isEqualTo(ConstraintProfile.STANDARD);
+    }
+
+    @Test
+    public void testInvalid_limits_cause_exception() throws Exception {
+        try {
+            ConstraintProfile.STANDARD.withMaxX(-1);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException ignored) {
+
+        }
+        try {
+            ConstraintProfile.STANDARD.withMaxMisc(ConstraintProfile.MAX_VALUE_LIMIT + 1);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException ignored) {
+
+        }
+        try {
+            ConstraintProfile.STANDARD.withMaxNameLength(-1);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException ignored) {
+
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart._test.Constants;
+import io.itch.frogcheese.sharecart.error.SharecartFormatException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class LazySharecartTest {
+
+    private File correctFile;
+    private File constraintFailureFile;
+    private SharecartFileReader reader;
+
+    @Before
+    public void setUp() throws Exception {
+        correctFile = new File(Constants.TEST_RESOURCES_PATH, "sharecart_correct.ini");
+        constraintFailureFile = new File(Constants.TEST_RESOURCES_PATH, "sharecart_constraint_failure.ini");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (reader != null)
+            reader.close();
+        reader = null;
+    }
+
+    @Test
+    public void testPreconditions() throws Exception {
+        assertThat(correctFile).isFile();
+        assertThat(constraintFailureFile).isFile();
+    }
+
+    @Test
+    public void testNothing_decoded_after_read() throws Exception {
+        LazySharecart sharecart = readLazy(correctFile, false);
+
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            assertThat(sharecart.isDecoded(i)).isFalse();
+        }
+    }
+
+    @Test
+    public void testDecodes_only_accessed_parameters() throws Exception {
+        LazySharecart sharecart = readLazy(correctFile, false);
+
+        assertThat(sharecart.name()).isEqualTo("MY NAME IS HERE!");
+        assertThat(sharecart.switchValue(2)).isTrue();
+
+        assertThat(sharecart.isDecoded(INDEX_NAME)).isTrue();
+        assertThat(sharecart.isDecoded(INDEX_SWITCH + 2)).isTrue();
+        assertThat(sharecart.isDecoded(INDEX_X)).isFalse();
+        assertThat(sharecart.isDecoded(INDEX_MISC)).isFalse();
+        assertThat(sharecart.isDecoded(INDEX_SWITCH)).isFalse();
+    }
+
+    @Test
+    public void testAssigned_parameters_are_not_decoded() throws Exception {
+        LazySharecart sharecart = readLazy(correctFile, false);
+
+        sharecart.x(12);
+        sharecart.misc(3, 400);
+
+        assertThat(sharecart.x()).isEqualTo(12);
+        assertThat(sharecart.misc(3)).isEqualTo(400);
+        assertThat(sharecart.misc(2)).isEqualTo(60753);
+    }
+
+    @Test
+    public void testEquals_eagerly_read_sharecart() throws Exception {
+        LazySharecart lazy = readLazy(correctFile, true);
+
+        SharecartFileReader eagerReader = new SharecartFileReader(correctFile);
+        eagerReader.setIsStrict(true);
+        Sharecart eager = eagerReader.read();
+        eagerReader.close();
+
+        assertThat((Sharecart) lazy).isEqualTo(eager);
+        assertThat(eager).isEqualTo(lazy);
+        assertThat(lazy.hashCode()).isEqualTo(eager.hashCode());
+    }
+
+    @Test
+    public void testBulk_values_decode_on_access() throws Exception {
+        LazySharecart sharecart = readLazy(correctFile, false);
+
+        int[] misc = new int[Constraints.MISC_ITEMS_LENGTH];
+        sharecart.miscValues(misc);
+        assertThat(misc).hasSize(Constraints.MISC_ITEMS_LENGTH)
+                .containsSequence(sharecart.misc(0), sharecart.misc(1), sharecart.misc(2), sharecart.misc(3));
+
+        int mask = 0;
+        for (int i = 0; i < Constraints.SWITCH_ITEMS_LENGTH; i++) {
+            if (sharecart.switchValue(i))
+                mask |= 1 << i;
+        }
+        assertThat(sharecart.switchMask()).isEqualTo(mask);
+
+        LazySharecart assigned = readLazy(correctFile, false);
+        assigned.switchMask(0xFF);
+        for (int i = 0; i < Constraints.SWITCH_ITEMS_LENGTH; i++) {
+            assertThat(assigned.isDecoded(SharecartFileConstants.INDEX_SWITCH + i)).isTrue();
+            assertThat(assigned.switchValue(i)).isTrue();
+        }
+    }
+
+    @Test
+    public void testCopy_decodes_all_parameters() throws Exception {
+        LazySharecart lazy = readLazy(constraintFailureFile, false);
+
+        Sharecart copy = new Sharecart(lazy);
+        for (int i = 0; i < SharecartFileConstants.PARAMETER_COUNT; i++) {
+            assertThat(lazy.isDecoded(i)).isTrue();
+        }
+        assertThat(copy).isEqualTo(lazy);
+        assertThat(copy.dirtyMask()).isEqualTo(lazy.dirtyMask());
+    }
+
+    @Test
+    public void testConstraints_clamped_on_access() throws Exception {
+        LazySharecart sharecart = readLazy(constraintFailureFile, false);
+
+        assertThat(sharecart.y()).isEqualTo(Constraints.MAX_SIZE_Y);
+        assertThat(sharecart.misc(3)).isEqualTo(Constraints.MAX_SIZE_MISC);
+    }
+
+    @Test
+    public void testConstraints_fail_on_access_strict() throws Exception {
+        LazySharecart sharecart = readLazy(constraintFailureFile, true);
+
+        assertThat(sharecart.x()).isEqualTo(100);
+
+        try {
+            sharecart.y();
+            failBecauseExceptionWasNotThrown(SharecartFormatException.class);
+        } catch (SharecartFormatException e) {
+            assertThat(e).hasMessage("The MapY value '550000' does not fulfill the constraints of the parameter");
+        }
+    }
+
+    @Test
+    public void testConstraints_fail_on_every_access_strict() throws Exception {
+        LazySharecart sharecart = readLazy(constraintFailureFile, true);
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                sharecart.y();
+                failBecauseExceptionWasNotThrown(SharecartFormatException.class);
+            } catch (SharecartFormatException e) {
+                assertThat(e).hasMessage("The MapY value '550000' does not fulfill the constraints of the parameter");
+            }
+            assertThat(sharecart.isDecoded(INDEX_Y)).isFalse();
+        }
+    }
+
+    @Test
+    public void testRead_mapped_file_lazily() throws Exception {
+        reader = SharecartFileReader.mapped(correctFile);
+
+        Sharecart sharecart = reader.readLazy();
+
+        assertThat(sharecart.x()).isEqualTo(100);
+        assertThat(sharecart.name()).isEqualTo("MY NAME IS HERE!");
+        assertThat(sharecart.switchValue(5)).isTrue();
+    }
+
+    @Test
+    public void testMapped_file_rewritten_before_first_access() throws Exception {
+        File tempFile = File.createTempFile("lazy_sharecart_test", ".ini");
+        try {
+            Files.copy(correctFile.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            reader = SharecartFileReader.mapped(tempFile);
+            Sharecart sharecart = reader.readLazy();
+
+            // Another game rewrites the file, shorter than before, before anything has been decoded
+            Files.write(tempFile.toPath(), "[Main]\r\nMapX=7\r\n".getBytes("US-ASCII"));
+
+            assertThat(sharecart.x()).isEqualTo(100);
+            assertThat(sharecart.name()).isEqualTo("MY NAME IS HERE!");
+            assertThat(sharecart.switchValue(5)).isTrue();
+        } finally {
+            reader.close();
+            reader = null;
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    public void testInvalid_index_throws_exception() throws Exception {
+        LazySharecart sharecart = readLazy(correctFile, false);
+
+        try {
+            sharecart.misc(PARAMETER_MISC.length);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+
+        try {
+            sharecart.switchValue(-1);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+    }
+
+    private LazySharecart readLazy(File file, boolean strict) throws Exception {
+        reader = new SharecartFileReader(file);
+        reader.setIsStrict(strict);
+        return (LazySharecart) reader.readLazy();
+    }
+}
@@ -0,0 +1,115 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static io.itch.frogcheese.sharecart.MemorySharecartStorageTest.bytes;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class MappedSharecartStorageTest {
+
+    private MappedSharecartStorage storage;
+    private File tempFile;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = new MappedSharecartStorage();
+        tempFile = File.createTempFile("sharecart_mapped_storage_test", null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        storage.release(tempFile);
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+    }
+
+    @Test
+    public void testRead_missing_file_throws_exception() throws Exception {
+        try {
+            storage.read(new File(tempFile.getPath() + ".missing"));
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testWrite_then_read() throws Exception {
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        assertThat(bytes(storage.read(tempFile))).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testWrite_resizes_file() throws Exception {
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3, 4}));
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{5, 6}));
+
+        assertThat(tempFile.length()).isEqualTo(2);
+        assertThat(bytes(storage.read(tempFile))).isEqualTo(new byte[]{5, 6});
+    }
+
+    @Test
+    public void testRead_contents_do_not_change_on_write() throws Exception {
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        ByteBuffer read = storage.read(tempFile);
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{4, 5, 6}));
+
+        assertThat(bytes(read)).isEqualTo(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testRead_sees_changes_made_by_others() throws Exception {
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        Files.write(tempFile.toPath(), new byte[]{7, 8, 9, 10});
+
+        assertThat(bytes(storage.read(tempFile))).isEqualTo(new byte[]{7, 8, 9, 10});
+    }
+
+    @Test
+    public void testRead_sees_replaced_file_of_same_size() throws Exception {
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        File replacement = File.createTempFile("sharecart_mapped_storage_test", null, tempFile.getParentFile());
+        try {
+            Files.write(replacement.toPath(), new byte[]{7, 8, 9});
+            assertThat(replacement.setLastModified(tempFile.lastModified())).isTrue();
+            Files.move(replacement.toPath(), tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            replacement.delete();
+        }
+
+        assertThat(bytes(storage.read(tempFile))).isEqualTo(new byte[]{7, 8, 9});
+    }
+
+    @Test
+    public void testWrite_with_durability() throws Exception {
+        storage = new MappedSharecartStorage(SharecartConfig.Durability.DATA_AND_METADATA);
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testRelease_drops_mapping() throws Exception {
+        storage.write(tempFile, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        assertThat(storage.isMapped(tempFile)).isTrue();
+
+        storage.release(tempFile);
+        assertThat(storage.isMapped(tempFile)).isFalse();
+
+        // Mapped again when used
+        assertThat(bytes(storage.read(tempFile))).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(storage.isMapped(tempFile)).isTrue();
+    }
+}
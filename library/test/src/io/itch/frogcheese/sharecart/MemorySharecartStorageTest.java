@@ -0,0 +1,87 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MemorySharecartStorageTest {
+
+    private MemorySharecartStorage storage;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        storage = new MemorySharecartStorage();
+        file = new File("dat", "o_o.ini");
+    }
+
+    @Test
+    public void testRead_unwritten_file_is_empty() throws Exception {
+        assertThat(storage.read(file).remaining()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWrite_then_read() throws Exception {
+        storage.write(file, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        assertThat(bytes(storage.read(file))).isEqualTo(new byte[]{1, 2, 3});
+        // Relative and absolute paths name the same file
+        assertThat(bytes(storage.read(file.getAbsoluteFile()))).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(storage.read(new File("dat", "other.ini")).remaining()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWrite_copies_contents() throws Exception {
+        byte[] contents = {1, 2, 3};
+        storage.write(file, ByteBuffer.wrap(contents));
+        contents[0] = 9;
+
+        assertThat(bytes(storage.read(file))).isEqualTo(new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testWrite_writes_between_position_and_limit() throws Exception {
+        ByteBuffer contents = ByteBuffer.wrap(new byte[]{1, 2, 3, 4});
+        contents.position(1).limit(3);
+        storage.write(file, contents);
+
+        assertThat(bytes(storage.read(file))).isEqualTo(new byte[]{2, 3});
+        assertThat(contents.position()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRead_contents_do_not_change_on_write() throws Exception {
+        storage.write(file, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        ByteBuffer read = storage.read(file);
+        storage.write(file, ByteBuffer.wrap(new byte[]{4, 5}));
+
+        assertThat(bytes(read)).isEqualTo(new byte[]{1, 2, 3});
+        assertThat(bytes(storage.read(file))).isEqualTo(new byte[]{4, 5});
+    }
+
+    @Test
+    public void testWrite_changes_length_and_last_modified() throws Exception {
+        assertThat(storage.length(file)).isEqualTo(0);
+        assertThat(storage.lastModified(file)).isEqualTo(0);
+
+        storage.write(file, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        long lastModified = storage.lastModified(file);
+        assertThat(storage.length(file)).isEqualTo(3);
+        assertThat(lastModified).isNotEqualTo(0);
+
+        // Same contents, but written again
+        storage.write(file, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        assertThat(storage.length(file)).isEqualTo(3);
+        assertThat(storage.lastModified(file)).isNotEqualTo(lastModified);
+    }
+
+    static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.Executor;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 
@@ -35,6 +37,28 @@ public class SharecartConfigTest {
         assertThat(config.willClampToConstraints()).isFalse();
         assertThat(config.willAutoCreateFile()).isFalse();
         assertThat(config.isStrictFileReadMode()).isFalse();
+        assertThat(config.isMemoryMappedReadMode()).isFalse();
+        assertThat(config.isLazyDecodingMode()).isFalse();
+        assertThat(config.isAtomicSaveMode()).isFalse();
+        assertThat(config.isPatchSaveMode()).isFalse();
+        assertThat(config.isAutoSaveMode()).isFalse();
+        assertThat(config.getAsyncExecutor()).isNull();
+        assertThat(config.isConcurrentMode()).isFalse();
+        assertThat(config.isHotReloadMode()).isFalse();
+        assertThat(config.isSnapshotMode()).isFalse();
+        assertThat(config.isPreallocatedExceptionMode()).isFalse();
+        assertThat(config.getConstraintProfile()).isSameAs(ConstraintProfile.STANDARD);
+        assertThat(config.getHotReloadDelay()).isEqualTo(SharecartConfig.DEFAULT_HOT_RELOAD_DELAY_MILLIS);
+        assertThat(config.getAutoSaveDelay()).isEqualTo(SharecartConfig.DEFAULT_AUTO_SAVE_DELAY_MILLIS);
+        assertThat(config.getAutoSaveMaxDelay()).isEqualTo(SharecartConfig.DEFAULT_AUTO_SAVE_MAX_DELAY_MILLIS);
+        assertThat(config.getAutoSaveMaxChanges()).isEqualTo(SharecartConfig.DEFAULT_AUTO_SAVE_MAX_CHANGES);
+        assertThat(config.getSaveDurability()).isEqualTo(SharecartConfig.Durability.NONE);
+        assertThat(config.getLockStrategy()).isEqualTo(SharecartConfig.LockStrategy.NONE);
+        assertThat(config.getLockTimeout()).isEqualTo(SharecartConfig.DEFAULT_LOCK_TIMEOUT_MILLIS);
+        assertThat(config.getChangeDispatchMode()).isEqualTo(SharecartConfig.ChangeDispatchMode.IMMEDIATE);
+        assertThat(config.getChangeDispatchInterval()).isEqualTo(SharecartConfig.DEFAULT_CHANGE_DISPATCH_INTERVAL_MILLIS);
+        assertThat(config.getStorageBackend()).isEqualTo(SharecartConfig.StorageBackend.FILE);
+        assertThat(config.getStorage()).isNull();
         assertThat(SharecartConfig.DEFAULT_LEVELS_TO_CHECK).isEqualTo(4);
         assertThat(config.getDirectoryLevelsToCheck()).isEqualTo(SharecartConfig.DEFAULT_LEVELS_TO_CHECK);
         assertThat(config.getApplicationPath()).isEqualTo(SharecartFileUtils.getApplicationPath());
@@ -42,12 +66,40 @@ public class SharecartConfigTest {
 
     @Test
     public void testBuilder_values_propagate_to_config() throws Exception {
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        ConstraintProfile profile = ConstraintProfile.STANDARD.withMaxX(2000);
         SharecartConfig config = configBuilder
                 .setClampToConstraints(true)
                 .setAutoCreateFile(false)
                 .setApplicationPath("path/path/directory")
                 .setStrictFileReadMode(true)
                 .setDirectoryLevelsToCheck(11)
+                .setMemoryMappedReadMode(true)
+                .setLazyDecodingMode(true)
+                .setAtomicSaveMode(true)
+                .setPatchSaveMode(true)
+                .setAutoSaveMode(true)
+                .setAutoSaveDelay(20)
+                .setAutoSaveMaxDelay(200)
+                .setAutoSaveMaxChanges(7)
+                .setAsyncExecutor(executor)
+                .setConcurrentMode(true)
+                .setHotReloadMode(true)
+                .setSnapshotMode(true)
+                .setPreallocatedExceptionMode(true)
+                .setConstraintProfile(profile)
+                .setHotReloadDelay(30)
+                .setSaveDurability(SharecartConfig.Durability.DATA)
+                .setLockStrategy(SharecartConfig.LockStrategy.TRY_LOCK)
+                .setLockTimeout(40)
+                .setChangeDispatchMode(SharecartConfig.ChangeDispatchMode.PERIODIC)
+                .setChangeDispatchInterval(8)
+                .setStorageBackend(SharecartConfig.StorageBackend.MEMORY)
                 .build();
 
         assertThat(config).isNotNull();
@@ -56,6 +108,64 @@ public class SharecartConfigTest {
         assertThat(config.getApplicationPath()).isEqualTo("path/path/directory");
         assertThat(config.isStrictFileReadMode()).isTrue();
         assertThat(config.getDirectoryLevelsToCheck()).isEqualTo(11);
+        assertThat(config.isMemoryMappedReadMode()).isTrue();
+        assertThat(config.isLazyDecodingMode()).isTrue();
+        assertThat(config.isAtomicSaveMode()).isTrue();
+        assertThat(config.isPatchSaveMode()).isTrue();
+        assertThat(config.isAutoSaveMode()).isTrue();
+        assertThat(config.getAutoSaveDelay()).isEqualTo(20);
+        assertThat(config.getAutoSaveMaxDelay()).isEqualTo(200);
+        assertThat(config.getAutoSaveMaxChanges()).isEqualTo(7);
+        assertThat(config.getAsyncExecutor()).isSameAs(executor);
+        assertThat(config.isConcurrentMode()).isTrue();
+        assertThat(config.isHotReloadMode()).isTrue();
+        assertThat(config.isSnapshotMode()).isTrue();
+        assertThat(config.isPreallocatedExceptionMode()).isTrue();
+        assertThat(config.getConstraintProfile()).isSameAs(profile);
+        assertThat(config.getHotReloadDelay()).isEqualTo(30);
+        assertThat(config.getSaveDurability()).isEqualTo(SharecartConfig.Durability.DATA);
+        assertThat(config.getLockStrategy()).isEqualTo(SharecartConfig.LockStrategy.TRY_LOCK);
+        assertThat(config.getLockTimeout()).isEqualTo(40);
+        assertThat(config.getChangeDispatchMode()).isEqualTo(SharecartConfig.ChangeDispatchMode.PERIODIC);
+        assertThat(config.getChangeDispatchInterval()).isEqualTo(8);
+        assertThat(config.getStorageBackend()).isEqualTo(SharecartConfig.StorageBackend.MEMORY);
+        assertThat(config.getStorage()).isInstanceOf(MemorySharecartStorage.class);
+    }
+
+    @Test
+    public void testStorage_backends() throws Exception {
+        assertThat(configBuilder.setStorageBackend(SharecartConfig.StorageBackend.MEMORY_MAPPED).build().getStorage())
+                .isInstanceOf(MappedSharecartStorage.class);
+        MappedSharecartStorage mapped = (MappedSharecartStorage) configBuilder
+                .setSaveDurability(SharecartConfig.Durability.DATA).build().getStorage();
+        assertThat(mapped.getDurability()).isEqualTo(SharecartConfig.Durability.DATA);
+
+        // Each built config has its own storage
+        configBuilder.setStorageBackend(SharecartConfig.StorageBackend.MEMORY);
+        assertThat(configBuilder.build().getStorage()).isNotSameAs(configBuilder.build().getStorage());
+
+        SharecartStorage storage = new MemorySharecartStorage();
+        assertThat(configBuilder.setStorage(storage).build().getStorage()).isSameAs(storage);
+    }
+
+    @Test
+    public void testConstraint_profile_null_causes_exception() throws Exception {
+        try {
+            configBuilder.setConstraintProfile(null);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Constraint profile cannot be null.");
+        }
+    }
+
+    @Test
+    public void testStorage_backend_null_causes_exception() throws Exception {
+        try {
+            configBuilder.setStorageBackend(null);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Storage backend cannot be null.");
+        }
     }
 
     @Test
@@ -94,6 +204,76 @@ public class SharecartConfigTest {
         }
     }
 
+    @Test
+    public void testAuto_save_invalid_values_cause_exception() throws Exception {
+        try {
+            configBuilder.setAutoSaveDelay(-1);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Auto save delay cannot be a negative number. Number was -1");
+        }
+        try {
+            configBuilder.setAutoSaveMaxDelay(-5);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Auto save max delay cannot be a negative number. Number was -5");
+        }
+        try {
+            configBuilder.setAutoSaveMaxChanges(0);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Auto save max changes must be at least one. Number was 0");
+        }
+        try {
+            configBuilder.setHotReloadDelay(-2);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Hot reload delay cannot be a negative number. Number was -2");
+        }
+        try {
+            configBuilder.setLockTimeout(-3);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Lock timeout cannot be a negative number. Number was -3");
+        }
+        try {
+            configBuilder.setChangeDispatchInterval(0);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Change dispatch interval must be at least one. Number was 0");
+        }
+    }
+
+    @Test
+    public void testSave_durability_null_causes_exception() throws Exception {
+        try {
+            configBuilder.setSaveDurability(null);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Save durability cannot be null.");
+        }
+    }
+
+    @Test
+    public void testLock_strategy_null_causes_exception() throws Exception {
+        try {
+            configBuilder.setLockStrategy(null);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Lock strategy cannot be null.");
+        }
+    }
+
+    @Test
+    public void testChange_dispatch_mode_null_causes_exception() throws Exception {
+        try {
+            configBuilder.setChangeDispatchMode(null);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Change dispatch mode cannot be null.");
+        }
+    }
+
     @Test
     public void testBuilder_is_reusable() throws Exception {
         SharecartConfig config1 = configBuilder.setClampToConstraints(true)
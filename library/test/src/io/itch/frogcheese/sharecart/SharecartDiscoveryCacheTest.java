@@ -0,0 +1,148 @@
+package io.itch.frogcheese.sharecart;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharecartDiscoveryCacheTest {
+
+    private static final String DAT = "dat";
+    private static final String FILE = "o_o.ini";
+
+    private File root;
+    private File game;
+    private SharecartDiscoveryCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("sharecart_discovery_test").toFile();
+        game = new File(root, "games/game");
+        assertThat(game.mkdirs()).isTrue();
+
+        cache = new SharecartDiscoveryCache(DAT, FILE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testFind_caches_found_file() throws Exception {
+        File file = createSharecartFile(root);
+        settle();
+
+        SharecartDiscoveryCache.Result result = cache.find(2, game.getPath(), false);
+        assertThat(result.getFile().getCanonicalFile()).isEqualTo(file.getCanonicalFile());
+        assertThat(cache.find(2, game.getPath(), false)).isSameAs(result);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFind_caches_missing_file() throws Exception {
+        settle();
+
+        assertThat(cache.find(2, game.getPath(), false).getFile()).isNull();
+        assertThat(cache.find(2, game.getPath(), false).getFile()).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+
+        File file = createSharecartFile(new File(root, "games"));
+        SharecartDiscoveryCache.Result result = cache.find(2, game.getPath(), false);
+        assertThat(result.getFile().getCanonicalFile()).isEqualTo(file.getCanonicalFile());
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFind_notices_closer_sharecart_file() throws Exception {
+        createSharecartFile(root);
+        settle();
+        cache.find(2, game.getPath(), false);
+
+        File closer = createSharecartFile(game);
+        SharecartDiscoveryCache.Result result = cache.find(2, game.getPath(), false);
+        assertThat(result.getFile().getCanonicalFile()).isEqualTo(closer.getCanonicalFile());
+        assertThat(cache.getHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFind_notices_deleted_file() throws Exception {
+        File file = createSharecartFile(root);
+        settle();
+        cache.find(2, game.getPath(), false);
+
+        assertThat(file.delete()).isTrue();
+        assertThat(cache.find(2, game.getPath(), false).getFile()).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFind_stops_at_dat_directory() throws Exception {
+        createSharecartFile(root);
+        File datDirectory = new File(game, DAT);
+        assertThat(datDirectory.mkdir()).isTrue();
+        settle();
+
+        SharecartDiscoveryCache.Result result = cache.find(2, game.getPath(), true);
+        assertThat(result.getFile()).isNull();
+        assertThat(result.getDatDirectory().getCanonicalFile()).isEqualTo(datDirectory.getCanonicalFile());
+
+        assertThat(cache.find(2, game.getPath(), false).getFile()).isNotNull();
+    }
+
+    @Test
+    public void testRecently_changed_directories_are_not_cached() throws Exception {
+        createSharecartFile(root);
+
+        cache.find(2, game.getPath(), false);
+        cache.find(2, game.getPath(), false);
+        assertThat(cache.getHitCount()).isEqualTo(0);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testFind_stops_at_file_system_root() throws Exception {
+        settle();
+
+        SharecartDiscoveryCache.Result result = cache.find(Integer.MAX_VALUE - 1, game.getPath(), false);
+        assertThat(result.getFile()).isNull();
+        assertThat(result.getDatDirectory()).isNull();
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        createSharecartFile(root);
+        settle();
+
+        cache.find(2, game.getPath(), false);
+        cache.invalidate();
+        cache.find(2, game.getPath(), false);
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    private static File createSharecartFile(File directory) throws Exception {
+        File datDirectory = new File(directory, DAT);
+        assertThat(datDirectory.isDirectory() || datDirectory.mkdir()).isTrue();
+        File file = new File(datDirectory, FILE);
+        assertThat(file.createNewFile()).isTrue();
+        return file;
+    }
+
+    /**
+     * Moves the modification times of all directories into the past, as if they had not changed in a while.
+     */
+    private void settle() {
+        long past = System.currentTimeMillis() - 10 * SharecartDiscoveryCache.UNSTABLE_MILLIS;
+        for (File directory : FileUtils.listFilesAndDirs(root, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE)) {
+            //noinspection ResultOfMethodCallIgnored
+            directory.setLastModified(past);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.Test;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class SharecartFieldsTest {
+
+    @Test
+    public void testFields_match_parameter_indices() throws Exception {
+        assertThat(SharecartFields.X).isEqualTo(1 << INDEX_X);
+        assertThat(SharecartFields.Y).isEqualTo(1 << INDEX_Y);
+        assertThat(SharecartFields.NAME).isEqualTo(1 << INDEX_NAME);
+
+        int misc = 0;
+        for (int i = 0; i < Constraints.MISC_ITEMS_LENGTH; i++) {
+            assertThat(SharecartFields.misc(i)).isEqualTo(1 << (INDEX_MISC + i));
+            misc |= SharecartFields.misc(i);
+        }
+        assertThat(SharecartFields.MISC).isEqualTo(misc);
+
+        int switches = 0;
+        for (int i = 0; i < Constraints.SWITCH_ITEMS_LENGTH; i++) {
+            assertThat(SharecartFields.switchValue(i)).isEqualTo(1 << (INDEX_SWITCH + i));
+            switches |= SharecartFields.switchValue(i);
+        }
+        assertThat(SharecartFields.SWITCHES).isEqualTo(switches);
+        assertThat(SharecartFields.switches(0xFFFF)).isEqualTo(switches);
+
+        assertThat(SharecartFields.ALL).isEqualTo(SharecartFields.X | SharecartFields.Y | SharecartFields.MISC
+                | SharecartFields.NAME | SharecartFields.SWITCHES);
+    }
+
+    @Test
+    public void testInvalid_index_causes_exception() throws Exception {
+        try {
+            SharecartFields.misc(Constraints.MISC_ITEMS_LENGTH);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+        try {
+            SharecartFields.switchValue(-1);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+    }
+}
@@ -88,6 +88,28 @@ public class SharecartFileInterfaceTest {
         assertThat(reader).isNotNull();
     }
 
+    @Test
+    public void testNew_mapped_sharecart_reader() throws Exception {
+        SharecartFileInterface instance = SharecartFileInterface.get();
+
+        SharecartFileReader reader = instance.getNewMappedSharecartFileReader(validSharecartFile);
+
+        assertThat(reader).isNotNull();
+        reader.close();
+    }
+
+    @Test
+    public void testNew_mapped_sharecart_reader_filenotfound_for_invalid_file() throws Exception {
+        SharecartFileInterface instance = SharecartFileInterface.get();
+
+        try {
+            instance.getNewMappedSharecartFileReader(invalidSharecartFile);
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException ignored) {
+
+        }
+    }
+
     @Test
     public void testNew_sharecart_reader_filenotfound_for_invalid_file() throws Exception {
         SharecartFileInterface instance = SharecartFileInterface.get();
@@ -112,6 +134,30 @@ public class SharecartFileInterfaceTest {
         }
     }
 
+    @Test
+    public void testNew_atomic_sharecart_writer_filenotfound_for_invalid_file() throws Exception {
+        SharecartFileInterface instance = SharecartFileInterface.get();
+
+        try {
+            instance.getNewAtomicSharecartFileWriter(invalidSharecartFile);
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testNew_patching_sharecart_writer_filenotfound_for_invalid_file() throws Exception {
+        SharecartFileInterface instance = SharecartFileInterface.get();
+
+        try {
+            instance.getNewPatchingSharecartFileWriter(invalidSharecartFile);
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException ignored) {
+
+        }
+    }
+
     @Test
     public void testFind_ini_file_from_same_directory() throws Exception {
         SharecartFileInterface instance = SharecartFileInterface.get();
@@ -186,6 +232,17 @@ public class SharecartFileInterfaceTest {
         assertThat(normalizePath(file)).isEqualTo(normalizePath(new File(Constants.TEST_SUBFOLDER_INI_FILE_PATH)));
     }
 
+    @Test
+    public void testFound_files_have_canonical_paths() throws Exception {
+        SharecartFileInterface instance = SharecartFileInterface.get();
+
+        SharecartFile fromSameDirectory = instance.findIniFile(0, Constants.TEST_RESOURCES_PATH);
+        SharecartFile fromSubdirectory = instance.findIniFile(3, Constants.TEST_EMPTY_SUBFOLDER_PATH);
+        assertThat(fromSubdirectory).isEqualTo(fromSameDirectory);
+        assertThat(fromSubdirectory.hashCode()).isEqualTo(fromSameDirectory.hashCode());
+        assertThat(fromSubdirectory.getFile()).isEqualTo(fromSubdirectory.getFile().getCanonicalFile());
+    }
+
     private static String normalizePath(File file) {
         return FilenameUtils.normalize(file.getAbsolutePath());
     }
@@ -0,0 +1,45 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.Test;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharecartFileLayoutTest {
+
+    @Test
+    public void testNew_layout_has_no_values() throws Exception {
+        SharecartFileLayout layout = new SharecartFileLayout();
+
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            assertThat(layout.hasValue(i)).isFalse();
+            assertThat(layout.valueStart(i)).isEqualTo(-1);
+            assertThat(layout.valueLength(i)).isEqualTo(-1);
+        }
+        assertThat(layout.matchesFileState(0, 0)).isFalse();
+    }
+
+    @Test
+    public void testValue_bounds() throws Exception {
+        SharecartFileLayout layout = new SharecartFileLayout();
+        layout.setValueBounds(INDEX_NAME, 20, 26);
+
+        assertThat(layout.hasValue(INDEX_NAME)).isTrue();
+        assertThat(layout.valueStart(INDEX_NAME)).isEqualTo(20);
+        assertThat(layout.valueLength(INDEX_NAME)).isEqualTo(6);
+
+        layout.invalidate(INDEX_NAME);
+        assertThat(layout.hasValue(INDEX_NAME)).isFalse();
+        assertThat(layout.valueLength(INDEX_NAME)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testFile_state() throws Exception {
+        SharecartFileLayout layout = new SharecartFileLayout();
+        layout.setFileState(200, 1000);
+
+        assertThat(layout.matchesFileState(200, 1000)).isTrue();
+        assertThat(layout.matchesFileState(201, 1000)).isFalse();
+        assertThat(layout.matchesFileState(200, 2000)).isFalse();
+    }
+}
@@ -0,0 +1,104 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+public class SharecartFileLocksTest {
+
+    private File tempFile;
+    private RandomAccessFile holderFile;
+    private RandomAccessFile lockerFile;
+    private FileChannel channel;
+    private SharecartLockStatistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        tempFile = File.createTempFile("sharecart_locks_test", null);
+        holderFile = new RandomAccessFile(tempFile, "rw");
+        lockerFile = new RandomAccessFile(tempFile, "rw");
+        channel = lockerFile.getChannel();
+        statistics = new SharecartLockStatistics();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        holderFile.close();
+        lockerFile.close();
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+    }
+
+    @Test
+    public void testAcquire_none_does_not_lock() throws Exception {
+        FileLock lock = SharecartFileLocks.acquire(channel, false, SharecartConfig.LockStrategy.NONE, 0, statistics);
+        assertThat(lock).isNull();
+        assertThat(statistics.getAcquiredCount()).isEqualTo(0);
+
+        SharecartFileLocks.release(lock);
+    }
+
+    @Test
+    public void testAcquire_uncontended() throws Exception {
+        FileLock lock = SharecartFileLocks.acquire(channel, false, SharecartConfig.LockStrategy.WAIT, 0, statistics);
+        assertThat(lock).isNotNull();
+        assertThat(lock.isShared()).isFalse();
+        assertThat(statistics.getAcquiredCount()).isEqualTo(1);
+        assertThat(statistics.getContendedCount()).isEqualTo(0);
+
+        SharecartFileLocks.release(lock);
+        assertThat(lock.isValid()).isFalse();
+    }
+
+    @Test
+    public void testAcquire_try_lock_times_out() throws Exception {
+        FileLock held = holderFile.getChannel().lock();
+        try {
+            SharecartFileLocks.acquire(channel, false, SharecartConfig.LockStrategy.TRY_LOCK, 20, statistics);
+            failBecauseExceptionWasNotThrown(IOException.class);
+        } catch (IOException ignored) {
+
+        } finally {
+            held.release();
+        }
+
+        assertThat(statistics.getAcquiredCount()).isEqualTo(0);
+        assertThat(statistics.getFailedCount()).isEqualTo(1);
+        assertThat(statistics.getTotalWaitNanos()).isGreaterThanOrEqualTo(20 * 1000000L);
+    }
+
+    @Test
+    public void testAcquire_waits_for_contended_lock() throws Exception {
+        final FileLock held = holderFile.getChannel().lock();
+        Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                    held.release();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        releaser.start();
+
+        FileLock lock = SharecartFileLocks.acquire(channel, false, SharecartConfig.LockStrategy.WAIT, 0, statistics);
+        releaser.join();
+
+        assertThat(lock).isNotNull();
+        assertThat(statistics.getAcquiredCount()).isEqualTo(1);
+        assertThat(statistics.getContendedCount()).isEqualTo(1);
+        assertThat(statistics.getFailedCount()).isEqualTo(0);
+        SharecartFileLocks.release(lock);
+    }
+}
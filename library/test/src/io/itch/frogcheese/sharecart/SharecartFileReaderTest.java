@@ -8,7 +8,11 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
 
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 
@@ -21,6 +25,7 @@ public class SharecartFileReaderTest {
     private File constraintFailureFile;
     private File invalidParamDefinitionFile;
     private File invalidParamNameFile;
+    private File unorderedFile;
     private File invalidFile;
     private SharecartFileReader reader;
 
@@ -31,6 +36,7 @@ public class SharecartFileReaderTest {
         constraintFailureFile = new File(TEST_RESOURCES_PATH, "sharecart_constraint_failure.ini");
         invalidParamDefinitionFile = new File(TEST_RESOURCES_PATH, "sharecart_invalid_parameter_definition.ini");
         invalidParamNameFile = new File(TEST_RESOURCES_PATH, "sharecart_invalid_parameter_name.ini");
+        unorderedFile = new File(TEST_RESOURCES_PATH, "sharecart_unordered.ini");
         invalidFile = new File(TEST_RESOURCES_PATH, "invalidFile");
     }
 
@@ -48,6 +54,7 @@ public class SharecartFileReaderTest {
         assertThat(constraintFailureFile).isFile();
         assertThat(invalidParamDefinitionFile).isFile();
         assertThat(invalidParamNameFile).isFile();
+        assertThat(unorderedFile).isFile();
     }
 
     @Test
@@ -70,6 +77,33 @@ public class SharecartFileReaderTest {
         }
     }
 
+    @Test
+    public void testMapped_with_invalid_file_throws_exception() throws Exception {
+        try {
+            SharecartFileReader.mapped(invalidFile);
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testRead_with_lock_strategy() throws Exception {
+        SharecartLockStatistics statistics = new SharecartLockStatistics();
+        reader = new SharecartFileReader(correctFile);
+        reader.setLocking(SharecartConfig.LockStrategy.TRY_LOCK, 100, statistics);
+
+        assertCorrectFileMatchesParameters(reader.read());
+        assertThat(statistics.getAcquiredCount()).isEqualTo(1);
+
+        reader.close();
+        reader = SharecartFileReader.mapped(correctFile);
+        reader.setLocking(SharecartConfig.LockStrategy.WAIT, 0, statistics);
+
+        assertCorrectFileMatchesParameters(reader.readLazy());
+        assertThat(statistics.getAcquiredCount()).isEqualTo(2);
+    }
+
     @Test
     public void testReader_initial_state() throws Exception {
         SharecartFileReader reader = new SharecartFileReader(correctFile);
@@ -94,6 +128,105 @@ public class SharecartFileReaderTest {
         assertCorrectFileMatchesParameters(sharecart);
     }
 
+    @Test
+    public void testRead_correct_file_mapped() throws Exception {
+        SharecartFileReader reader = SharecartFileReader.mapped(correctFile);
+        reader.setIsStrict(true);
+
+        Sharecart sharecart = reader.read();
+        assertCorrectFileMatchesParameters(sharecart);
+
+        // The mapped contents can be read more than once
+        assertThat(reader.read()).isEqualTo(sharecart);
+    }
+
+    @Test
+    public void testRead_correct_file_stored() throws Exception {
+        SharecartStorage storage = new MemorySharecartStorage();
+        storage.write(correctFile, ByteBuffer.wrap(Files.readAllBytes(correctFile.toPath())));
+        SharecartFileReader reader = SharecartFileReader.stored(correctFile, storage);
+        reader.setIsStrict(true);
+
+        assertCorrectFileMatchesParameters(reader.read());
+        assertCorrectFileMatchesParameters(reader.readLazy());
+        // The storage has no file state to patch against
+        assertThat(reader.getLayout().matchesFileState(correctFile.length(), correctFile.lastModified())).isFalse();
+        reader.close();
+    }
+
+    @Test
+    public void testRead_empty_storage_is_missing_all_parameters() throws Exception {
+        SharecartFileReader reader = SharecartFileReader.stored(correctFile, new MemorySharecartStorage());
+
+        Sharecart sharecart = reader.read();
+        assertThat(sharecart.x()).isEqualTo(0);
+        assertThat(sharecart.name()).isEmpty();
+        assertThat(sharecart.dirtyMask()).isEqualTo((1 << PARAMETER_COUNT) - 1);
+    }
+
+    @Test
+    public void testRead_missing_param_file_mapped() throws Exception {
+        SharecartFileReader reader = SharecartFileReader.mapped(missingParameterFile);
+        reader.setIsStrict(false);
+
+        Sharecart sharecart = reader.read();
+        assertMissingParamFileMatchesParameters(sharecart);
+    }
+
+    @Test
+    public void testRead_records_layout() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(correctFile);
+        assertThat(reader.getLayout()).isNull();
+        Sharecart sharecart = reader.read();
+        reader.close();
+
+        SharecartFileLayout layout = reader.getLayout();
+        assertThat(layout.matchesFileState(correctFile.length(), correctFile.lastModified())).isTrue();
+        String contents = new String(Files.readAllBytes(correctFile.toPath()), "US-ASCII");
+        for (int i = 0; i < PARAMETER_COUNT; i++) {
+            assertThat(layout.hasValue(i)).isTrue();
+            assertThat(contents.substring(0, layout.valueStart(i))).endsWith(PARAMETER_KEYS[i] + DELIMITER_VALUE);
+        }
+        assertThat(contents.substring(layout.valueStart(INDEX_NAME), layout.valueStart(INDEX_NAME) + layout.valueLength(INDEX_NAME)))
+                .isEqualTo(sharecart.name());
+        assertThat(sharecart.dirtyMask()).isZero();
+    }
+
+    @Test
+    public void testRead_marks_missing_and_clamped_parameters_dirty() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(missingParameterFile);
+        Sharecart sharecart = reader.read();
+        reader.close();
+
+        assertThat(sharecart.dirtyMask()).isEqualTo(1 << (INDEX_MISC + 2));
+        assertThat(reader.getLayout().hasValue(INDEX_MISC + 2)).isFalse();
+
+        reader = new SharecartFileReader(constraintFailureFile);
+        sharecart = reader.read();
+        reader.close();
+
+        assertThat(sharecart.dirtyMask()).isEqualTo(1 << INDEX_Y | 1 << (INDEX_MISC + 3));
+    }
+
+    @Test
+    public void testRead_lazy_marks_only_missing_parameters_dirty() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(constraintFailureFile);
+        Sharecart sharecart = reader.readLazy();
+        reader.close();
+
+        assertThat(sharecart.dirtyMask()).isZero();
+        sharecart.x();
+        assertThat(sharecart.dirtyMask()).isZero();
+        sharecart.y();
+        assertThat(sharecart.dirtyMask()).isEqualTo(1 << INDEX_Y);
+
+        reader = new SharecartFileReader(missingParameterFile);
+        sharecart = reader.readLazy();
+        reader.close();
+
+        assertThat(sharecart.dirtyMask()).isEqualTo(1 << (INDEX_MISC + 2));
+    }
+
     @Test
     public void testRead_missing_param_file() throws Exception {
         SharecartFileReader reader = new SharecartFileReader(missingParameterFile);
@@ -138,6 +271,30 @@ public class SharecartFileReaderTest {
         }
     }
 
+    @Test
+    public void testRead_clamps_to_constraint_profile() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(constraintFailureFile);
+        assertThat(reader.getConstraintProfile()).isSameAs(ConstraintProfile.STANDARD);
+
+        reader.setConstraintProfile(ConstraintProfile.STANDARD.withMaxX(50).withMaxNameLength(2));
+        Sharecart sharecart = reader.read();
+
+        assertThat(sharecart.x()).isEqualTo(50);
+        assertThat(sharecart.y()).isEqualTo(Constraints.MAX_SIZE_Y);
+        assertThat(sharecart.name()).isEqualTo("MY");
+    }
+
+    @Test
+    public void testConstraint_profile_null_causes_exception() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(correctFile);
+        try {
+            reader.setConstraintProfile(null);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException ignored) {
+
+        }
+    }
+
     @Test
     public void testRead_invalid_param_definition_file() throws Exception {
         SharecartFileReader reader = new SharecartFileReader(invalidParamDefinitionFile);
@@ -182,6 +339,121 @@ public class SharecartFileReaderTest {
         }
     }
 
+    @Test
+    public void testRead_unordered_file() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(unorderedFile);
+        reader.setIsStrict(false);
+
+        Sharecart sharecart = reader.read();
+        assertCorrectFileMatchesParameters(sharecart);
+    }
+
+    @Test
+    public void testRead_unordered_file_strict() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(unorderedFile);
+        reader.setIsStrict(true);
+
+        try {
+            reader.read();
+            failBecauseExceptionWasNotThrown(SharecartFormatException.class);
+        } catch (SharecartFormatException e) {
+            assertThat(e).hasMessage("Found 'Switch5' where parameter 'MapX' was expected");
+        }
+    }
+
+    @Test
+    public void testRead_truncated_contents() throws Exception {
+        byte[] contents = "[Main]\nMapX=100\nMapY=1\nMisc0=38424\n".getBytes("US-ASCII");
+
+        SharecartFileReader reader = new SharecartFileReader(correctFile);
+        reader.setIsStrict(false);
+
+        Sharecart sharecart = reader.parse(ByteBuffer.wrap(contents));
+        reader.close();
+        assertThat(sharecart.x()).isEqualTo(100);
+        assertThat(sharecart.y()).isEqualTo(1);
+        assertThat(sharecart.misc(0)).isEqualTo(38424);
+        assertThat(sharecart.misc(1)).isZero();
+        assertThat(sharecart.name()).isEmpty();
+        assertThat(sharecart.switchValue(7)).isFalse();
+    }
+
+    @Test
+    public void testRead_truncated_contents_strict() throws Exception {
+        byte[] contents = "[Main]\nMapX=100\nMapY=1\nMisc0=38424\n".getBytes("US-ASCII");
+
+        SharecartFileReader reader = new SharecartFileReader(correctFile);
+        reader.setIsStrict(true);
+
+        try {
+            reader.parse(ByteBuffer.wrap(contents));
+            failBecauseExceptionWasNotThrown(SharecartFormatException.class);
+        } catch (SharecartFormatException e) {
+            assertThat(e).hasMessage("Parameter 'Misc1' is missing");
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRead_crlf_line_breaks_and_quoted_values() throws Exception {
+        File tempFile = File.createTempFile("sharecart_reader_test", null);
+        try {
+            FileOutputStream out = new FileOutputStream(tempFile);
+            out.write(("[Main]\r\nMapX=\"100\"\r\nMapY=1\r\nMisc0=38424\r\nMisc1=61499\r\nMisc2=60753\r\n" +
+                    "Misc3=15107\r\nPlayerName=\"MY NAME IS HERE!\"\r\nSwitch0=FALSE\r\nSwitch1=false\r\n" +
+                    "Switch2=TRUE\r\nSwitch3=FALSE\r\nSwitch4=FALSE\r\nSwitch5=True\r\nSwitch6=FALSE\r\n" +
+                    "Switch7=FALSE\r\n").getBytes("US-ASCII"));
+            out.close();
+
+            SharecartFileReader reader = new SharecartFileReader(tempFile);
+            reader.setIsStrict(true);
+
+            Sharecart sharecart = reader.read();
+            reader.close();
+            assertCorrectFileMatchesParameters(sharecart);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    public void testParse_reads_from_buffer_position() throws Exception {
+        byte[] contents = ("garbage[Main]\nMapX=100\nMapY=1\nMisc0=38424\nMisc1=61499\nMisc2=60753\nMisc3=15107\n" +
+                "PlayerName=MY NAME IS HERE!\nSwitch0=FALSE\nSwitch1=FALSE\nSwitch2=TRUE\nSwitch3=FALSE\n" +
+                "Switch4=FALSE\nSwitch5=TRUE\nSwitch6=FALSE\nSwitch7=FALSE\n").getBytes("US-ASCII");
+
+        SharecartFileReader reader = new SharecartFileReader(correctFile);
+        reader.setIsStrict(true);
+
+        Sharecart sharecart = reader.parse(ByteBuffer.wrap(contents, 7, contents.length - 7));
+        reader.close();
+        assertCorrectFileMatchesParameters(sharecart);
+    }
+
+    @Test
+    public void testRead_numeric_switch_values() throws Exception {
+        File tempFile = File.createTempFile("sharecart_reader_test", null);
+        try {
+            FileOutputStream out = new FileOutputStream(tempFile);
+            out.write(("[Main]\nMapX=100\nMapY=1\nMisc0=38424\nMisc1=61499\nMisc2=60753\nMisc3=15107\n" +
+                    "PlayerName=MY NAME IS HERE!\nSwitch0=0\nSwitch1=0\nSwitch2=1\nSwitch3=0\nSwitch4=0\n" +
+                    "Switch5=12\nSwitch6=0000\nSwitch7=maybe\n").getBytes("US-ASCII"));
+            out.close();
+
+            SharecartFileReader reader = new SharecartFileReader(tempFile);
+            reader.setIsStrict(false);
+
+            Sharecart sharecart = reader.read();
+            reader.close();
+            assertCorrectFileMatchesParameters(sharecart);
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+    }
+
     private void assertCorrectFileMatchesParameters(Sharecart sharecart) {
         assertThat(sharecart.x()).isEqualTo(100);
         assertThat(sharecart.y()).isEqualTo(1);
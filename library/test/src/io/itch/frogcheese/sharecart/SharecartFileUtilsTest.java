@@ -1,10 +1,13 @@
 package io.itch.frogcheese.sharecart;
 
+import io.itch.frogcheese.sharecart._test.Constants;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -72,4 +75,23 @@ public class SharecartFileUtilsTest {
         assertThat(SharecartFileUtils.getFileAboveDirectory(1, "a/dir/", "file"))
                 .isEqualTo(new File("a/dir/../file"));
     }
+
+    @Test
+    public void testCanonical_path() throws Exception {
+        File resources = new File(Constants.TEST_RESOURCES_PATH).getCanonicalFile();
+        assertThat(SharecartFileUtils.getCanonicalPath(Constants.TEST_DAT_FOLDER_PATH + "../").toFile())
+                .isEqualTo(resources);
+
+        assertThat(SharecartFileUtils.getCanonicalPath("missing/dir/../file").toFile())
+                .isEqualTo(new File(runningDirectory, "missing/file"));
+    }
+
+    @Test
+    public void testChecksum() throws Exception {
+        File file = new File(Constants.TEST_INI_FILE_PATH);
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(file.toPath()));
+
+        assertThat(SharecartFileUtils.checksum(file)).isEqualTo(crc.getValue());
+    }
 }
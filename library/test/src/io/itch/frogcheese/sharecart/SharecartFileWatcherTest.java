@@ -0,0 +1,100 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SharecartFileWatcherTest {
+
+    private static final long DELAY_MILLIS = 50;
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private File directory;
+    private File file;
+    private SharecartManager manager;
+    private SharecartFileWatcher watcher;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("sharecart_watcher_test", ".ini");
+        directory = file.getParentFile();
+        write(file, "[Main]\r\n");
+
+        manager = mock(SharecartManager.class);
+        watcher = new SharecartFileWatcher(manager, file, DELAY_MILLIS);
+        watcher.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        watcher.stop();
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    @Test
+    public void testReloads_changed_file() throws Exception {
+        when(manager.isKnownFileState(anyLong(), anyLong())).thenReturn(false);
+
+        write(file, "[Main]\r\nMapX=1\r\n");
+
+        Mockito.verify(manager, Mockito.timeout(TIMEOUT_MILLIS)).reload();
+    }
+
+    @Test
+    public void testIgnores_known_file_state() throws Exception {
+        when(manager.isKnownFileState(anyLong(), anyLong())).thenReturn(true);
+
+        write(file, "[Main]\r\nMapX=1\r\n");
+
+        Mockito.verify(manager, Mockito.timeout(TIMEOUT_MILLIS)).isKnownFileState(anyLong(), anyLong());
+        Mockito.verify(manager, Mockito.never()).reload();
+    }
+
+    @Test
+    public void testIgnores_unchanged_contents() throws Exception {
+        when(manager.isKnownFileState(anyLong(), anyLong())).thenReturn(false);
+        write(file, "[Main]\r\nMapX=1\r\n");
+        Mockito.verify(manager, Mockito.timeout(TIMEOUT_MILLIS)).reload();
+
+        // Same contents written again
+        write(file, "[Main]\r\nMapX=1\r\n");
+        Mockito.verify(manager, Mockito.timeout(TIMEOUT_MILLIS)).setKnownFileState(anyLong(), anyLong());
+        Mockito.verify(manager, Mockito.times(1)).reload();
+    }
+
+    @Test
+    public void testIgnores_other_files() throws Exception {
+        when(manager.isKnownFileState(anyLong(), anyLong())).thenReturn(false);
+
+        File other = new File(directory, file.getName() + ".other");
+        try {
+            write(other, "contents");
+            Thread.sleep(DELAY_MILLIS * 4);
+            Mockito.verify(manager, Mockito.never()).isKnownFileState(anyLong(), anyLong());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            other.delete();
+        }
+        assertThat(watcher.getFile()).isEqualTo(file.getAbsoluteFile());
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(contents.getBytes("US-ASCII"));
+        } finally {
+            output.close();
+        }
+    }
+}
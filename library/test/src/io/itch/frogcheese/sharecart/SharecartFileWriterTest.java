@@ -1,6 +1,7 @@
 package io.itch.frogcheese.sharecart;
 
 import io.itch.frogcheese.sharecart._test.Constants;
+import io.itch.frogcheese.sharecart._test.Utils;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -10,6 +11,11 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
 import java.util.Locale;
 
 import static io.itch.frogcheese.sharecart.SharecartFileConstants.*;
@@ -185,6 +191,292 @@ public class SharecartFileWriterTest {
         assertThat(cart).isEqualTo(miscCart);
     }
 
+    @Test
+    public void testAtomic_write_replaces_file_on_close() throws Exception {
+        writer.write(defaultCart);
+        writer.close();
+        long originalLength = tempFile.length();
+
+        SharecartFileWriter atomicWriter = SharecartFileWriter.atomic(tempFile);
+        atomicWriter.write(miscCart);
+        assertThat(tempFile.length()).isEqualTo(originalLength);
+        atomicWriter.close();
+
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        reader.setIsStrict(true);
+        Sharecart cart = reader.read();
+        reader.close();
+
+        assertThat(cart).isEqualTo(miscCart);
+        assertNoTemporaryFilesLeft();
+    }
+
+    @Test
+    public void testAtomic_write_records_state_of_replaced_file() throws Exception {
+        SharecartFileWriter atomicWriter = SharecartFileWriter.atomic(tempFile);
+        atomicWriter.write(miscCart);
+        atomicWriter.close();
+
+        assertThat(atomicWriter.getLayout().matchesFileState(tempFile.length(), tempFile.lastModified())).isTrue();
+    }
+
+    @Test
+    public void testAtomic_writer_without_write_leaves_file() throws Exception {
+        writer.write(miscCart);
+        writer.close();
+        long originalLength = tempFile.length();
+
+        SharecartFileWriter atomicWriter = SharecartFileWriter.atomic(tempFile);
+        atomicWriter.close();
+
+        assertThat(tempFile.length()).isEqualTo(originalLength);
+        assertNoTemporaryFilesLeft();
+    }
+
+    @Test
+    public void testAtomic_with_invalid_file_throws_exception() throws Exception {
+        try {
+            SharecartFileWriter.atomic(invalidFile);
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testWrite_with_durability() throws Exception {
+        assertThat(writer.getDurability()).isEqualTo(SharecartConfig.Durability.NONE);
+
+        for (SharecartConfig.Durability durability : SharecartConfig.Durability.values()) {
+            SharecartFileWriter durableWriter = SharecartFileWriter.atomic(tempFile);
+            durableWriter.setDurability(durability);
+            durableWriter.write(miscCart);
+            durableWriter.close();
+
+            SharecartFileReader reader = new SharecartFileReader(tempFile);
+            assertThat(reader.read()).isEqualTo(miscCart);
+            reader.close();
+        }
+        writer.close();
+    }
+
+    @Test
+    public void testEncode_exact_bytes() throws Exception {
+        miscCart.x(0);
+        miscCart.misc(2, 65535);
+
+        ByteBuffer buffer = SharecartFileWriter.encode(miscCart);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+
+        assertThat(new String(bytes, "US-ASCII")).isEqualTo("[Main]\r\n" +
+                "MapX=0\r\nMapY=56\r\nMisc0=1000\r\nMisc1=1\r\nMisc2=65535\r\nMisc3=145\r\n" +
+                "PlayerName=Rob Robertson\r\n" +
+                "Switch0=TRUE\r\nSwitch1=FALSE\r\nSwitch2=TRUE\r\nSwitch3=TRUE\r\n" +
+                "Switch4=FALSE\r\nSwitch5=TRUE\r\nSwitch6=FALSE\r\nSwitch7=FALSE\r\n");
+    }
+
+    @Test
+    public void testWrite_with_lock_strategy() throws Exception {
+        SharecartLockStatistics statistics = new SharecartLockStatistics();
+        writer.setLocking(SharecartConfig.LockStrategy.TRY_LOCK, 100, statistics);
+        writer.write(miscCart);
+        assertThat(statistics.getAcquiredCount()).isEqualTo(1);
+
+        miscCart.clearDirty();
+        miscCart.x(X_VALUE + 1);
+        assertThat(writer.patch(miscCart, writer.getLayout())).isTrue();
+        assertThat(statistics.getAcquiredCount()).isEqualTo(2);
+        writer.close();
+
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        assertThat(reader.read()).isEqualTo(miscCart);
+        reader.close();
+    }
+
+    @Test
+    public void testWrite_locked_file_is_left_untouched() throws Exception {
+        writer.write(miscCart);
+        writer.close();
+        byte[] contents = Files.readAllBytes(tempFile.toPath());
+
+        SharecartLockStatistics statistics = new SharecartLockStatistics();
+        RandomAccessFile holder = new RandomAccessFile(tempFile, "rw");
+        try {
+            FileLock held = holder.getChannel().lock();
+            SharecartFileWriter lockedWriter = new SharecartFileWriter(tempFile);
+            lockedWriter.setLocking(SharecartConfig.LockStrategy.TRY_LOCK, 20, statistics);
+            try {
+                lockedWriter.write(defaultCart);
+                failBecauseExceptionWasNotThrown(IOException.class);
+            } catch (IOException ignored) {
+
+            } finally {
+                lockedWriter.close();
+                held.release();
+            }
+        } finally {
+            holder.close();
+        }
+
+        assertThat(statistics.getFailedCount()).isEqualTo(1);
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(contents);
+    }
+
+    @Test
+    public void testWrite_long_name() throws Exception {
+        String name = Utils.getStringBuilderWithLength(SharecartFileWriter.WRITE_BUFFER_SIZE, 'n').toString();
+        miscCart.name(name);
+        writer.write(miscCart);
+        writer.close();
+
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        Sharecart cart = reader.read();
+        reader.close();
+
+        // The name is clamped by the reader
+        assertThat(cart.name()).isEqualTo(Constraints.clampName(name));
+        assertThat(cart.switchValue(7)).isEqualTo(SWITCH_VALUES[7]);
+    }
+
+    @Test
+    public void testWrite_records_layout() throws Exception {
+        assertThat(writer.getLayout()).isNull();
+        writer.write(miscCart);
+        writer.close();
+
+        SharecartFileLayout layout = writer.getLayout();
+        assertThat(layout).isNotNull();
+        assertThat(layout.matchesFileState(tempFile.length(), tempFile.lastModified())).isTrue();
+
+        String contents = new String(Files.readAllBytes(tempFile.toPath()), "US-ASCII");
+        assertThat(contents.substring(layout.valueStart(INDEX_X), layout.valueStart(INDEX_X) + layout.valueLength(INDEX_X)))
+                .isEqualTo(String.valueOf(X_VALUE));
+        assertThat(contents.substring(layout.valueStart(INDEX_NAME), layout.valueStart(INDEX_NAME) + layout.valueLength(INDEX_NAME)))
+                .isEqualTo(NAME_VALUE);
+    }
+
+    @Test
+    public void testPatch_rewrites_changed_values() throws Exception {
+        writer.write(miscCart);
+        writer.close();
+        long length = tempFile.length();
+
+        miscCart.clearDirty();
+        miscCart.x(X_VALUE + 10);
+        miscCart.misc(3, 999);
+        miscCart.switchValue(2, true);
+
+        SharecartFileWriter patchingWriter = SharecartFileWriter.patching(tempFile);
+        assertThat(patchingWriter.patch(miscCart, writer.getLayout())).isTrue();
+        patchingWriter.close();
+
+        assertThat(tempFile.length()).isEqualTo(length);
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        reader.setIsStrict(true);
+        assertThat(reader.read()).isEqualTo(miscCart);
+        reader.close();
+    }
+
+    @Test
+    public void testPatch_with_different_width_leaves_file() throws Exception {
+        writer.write(miscCart);
+        writer.close();
+        byte[] original = Files.readAllBytes(tempFile.toPath());
+
+        miscCart.clearDirty();
+        miscCart.x(X_VALUE + 10);
+        miscCart.switchValue(1, true);
+
+        SharecartFileWriter patchingWriter = SharecartFileWriter.patching(tempFile);
+        assertThat(patchingWriter.patch(miscCart, writer.getLayout())).isFalse();
+        patchingWriter.close();
+
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(original);
+    }
+
+    @Test
+    public void testPatch_with_stale_layout_leaves_file() throws Exception {
+        writer.write(miscCart);
+        writer.close();
+        SharecartFileLayout layout = writer.getLayout();
+
+        SharecartFileWriter otherWriter = new SharecartFileWriter(tempFile);
+        otherWriter.write(defaultCart);
+        otherWriter.close();
+        byte[] original = Files.readAllBytes(tempFile.toPath());
+
+        miscCart.clearDirty();
+        miscCart.x(X_VALUE + 10);
+        SharecartFileWriter patchingWriter = SharecartFileWriter.patching(tempFile);
+        assertThat(patchingWriter.patch(miscCart, layout)).isFalse();
+        assertThat(patchingWriter.patch(miscCart, null)).isFalse();
+        patchingWriter.close();
+
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(original);
+    }
+
+    @Test
+    public void testPatch_with_reordered_keys_leaves_file() throws Exception {
+        writer.write(miscCart);
+        writer.close();
+        long lastModified = tempFile.lastModified();
+
+        // Same length and modification time, but the values of MapX and MapY swap places
+        String contents = new String(Files.readAllBytes(tempFile.toPath()), "US-ASCII");
+        String xLine = PARAMETER_X + DELIMITER_VALUE + X_VALUE + DELIMITER_PARAMETER;
+        String yLine = PARAMETER_Y + DELIMITER_VALUE + Y_VALUE + DELIMITER_PARAMETER;
+        contents = contents.replace(xLine + yLine, yLine + xLine);
+        assertThat(contents).contains(yLine + xLine);
+        Files.write(tempFile.toPath(), contents.getBytes("US-ASCII"));
+        assertThat(tempFile.setLastModified(lastModified)).isTrue();
+        byte[] original = Files.readAllBytes(tempFile.toPath());
+
+        miscCart.clearDirty();
+        miscCart.x(X_VALUE + 1);
+        SharecartFileWriter patchingWriter = SharecartFileWriter.patching(tempFile);
+        assertThat(patchingWriter.patch(miscCart, writer.getLayout())).isFalse();
+        patchingWriter.close();
+
+        assertThat(Files.readAllBytes(tempFile.toPath())).isEqualTo(original);
+    }
+
+    @Test
+    public void testPatching_writer_write_truncates_file() throws Exception {
+        miscCart.name(Utils.getStringBuilderWithLength(Constraints.MAX_SIZE_NAME_LENGTH, 'n').toString());
+        writer.write(miscCart);
+        writer.close();
+
+        SharecartFileWriter patchingWriter = SharecartFileWriter.patching(tempFile);
+        patchingWriter.write(defaultCart);
+        patchingWriter.close();
+
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        reader.setIsStrict(true);
+        assertThat(reader.read()).isEqualTo(defaultCart);
+        reader.close();
+    }
+
+    @Test
+    public void testPatching_with_invalid_file_throws_exception() throws Exception {
+        try {
+            SharecartFileWriter.patching(invalidFile);
+            failBecauseExceptionWasNotThrown(FileNotFoundException.class);
+        } catch (FileNotFoundException ignored) {
+
+        }
+    }
+
+    private void assertNoTemporaryFilesLeft() {
+        File[] files = tempFile.getAbsoluteFile().getParentFile().listFiles();
+        assertThat(files).isNotNull();
+        for (File file : files) {
+            if (file.getName().startsWith(tempFile.getName())) {
+                assertThat(file.getName()).isEqualTo(tempFile.getName());
+            }
+        }
+    }
+
     private void assertNextLineEquals(String value) throws Exception {
         assertThat(fileReader.readLine()).isEqualTo(value);
     }
@@ -1,11 +1,22 @@
 package io.itch.frogcheese.sharecart;
 
 
+import io.itch.frogcheese.sharecart._test.Constants;
 import io.itch.frogcheese.sharecart._test.Utils;
 import io.itch.frogcheese.sharecart.error.InvalidParameterException;
+import io.itch.frogcheese.sharecart.error.ParameterNotAccessibleException;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static io.itch.frogcheese.sharecart.Constraints.*;
 import static org.assertj.core.api.Assertions.anyOf;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -261,6 +272,385 @@ public class SharecartManagerTest extends SharecartManagerTestBase {
         testFailing_switch_index_constraints_throws_exception();
     }
 
+    @Test
+    public void testTry_get_before_load_returns_fallback() throws Exception {
+        assertThat(manager.tryGetX(-1)).isEqualTo(-1);
+        assertThat(manager.tryGetY(-2)).isEqualTo(-2);
+        assertThat(manager.tryGetMisc(0, -3)).isEqualTo(-3);
+        assertThat(manager.tryGetName("fallback")).isEqualTo("fallback");
+        assertThat(manager.tryGetSwitch(0, true)).isTrue();
+    }
+
+    @Test
+    public void testTry_get_after_load() throws Exception {
+        loadSharecart();
+
+        assertThat(manager.tryGetX(-1)).isEqualTo(manager.x());
+        assertThat(manager.tryGetY(-1)).isEqualTo(manager.y());
+        assertThat(manager.tryGetMisc(1, -1)).isEqualTo(manager.misc(1));
+        assertThat(manager.tryGetName(null)).isEqualTo(manager.name());
+        assertThat(manager.tryGetSwitch(2, !manager.switchValue(2))).isEqualTo(manager.switchValue(2));
+
+        assertThat(manager.tryGetMisc(-1, -3)).isEqualTo(-3);
+        assertThat(manager.tryGetMisc(MISC_ITEMS_LENGTH, -3)).isEqualTo(-3);
+        assertThat(manager.tryGetSwitch(SWITCH_ITEMS_LENGTH, true)).isTrue();
+    }
+
+    @Test
+    public void testTry_set_before_load_is_not_accessible() throws Exception {
+        assertThat(manager.trySetX(1)).isEqualTo(SharecartResult.NOT_ACCESSIBLE);
+        assertThat(manager.trySetY(1)).isEqualTo(SharecartResult.NOT_ACCESSIBLE);
+        assertThat(manager.trySetMisc(0, 1)).isEqualTo(SharecartResult.NOT_ACCESSIBLE);
+        assertThat(manager.trySetName("name")).isEqualTo(SharecartResult.NOT_ACCESSIBLE);
+        assertThat(manager.trySetSwitch(0, true)).isEqualTo(SharecartResult.NOT_ACCESSIBLE);
+    }
+
+    @Test
+    public void testTry_set_after_load() throws Exception {
+        loadSharecart();
+
+        assertThat(manager.trySetX(manager.x())).isEqualTo(SharecartResult.UNCHANGED);
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+
+        assertThat(manager.trySetX(manager.x() + 1)).isEqualTo(SharecartResult.CHANGED);
+        assertThat(manager.trySetY(MAX_SIZE_Y + 1)).isEqualTo(SharecartResult.INVALID_VALUE);
+        assertThat(manager.trySetMisc(1, 42)).isEqualTo(SharecartResult.CHANGED);
+        assertThat(manager.trySetMisc(1, -1)).isEqualTo(SharecartResult.INVALID_VALUE);
+        assertThat(manager.trySetMisc(MISC_ITEMS_LENGTH, 1)).isEqualTo(SharecartResult.INVALID_INDEX);
+        assertThat(manager.trySetName(null)).isEqualTo(SharecartResult.INVALID_VALUE);
+        assertThat(manager.trySetName("Tried")).isEqualTo(SharecartResult.CHANGED);
+        assertThat(manager.trySetSwitch(-1, true)).isEqualTo(SharecartResult.INVALID_INDEX);
+        assertThat(manager.trySetSwitch(3, !manager.switchValue(3))).isEqualTo(SharecartResult.CHANGED);
+
+        assertThat(manager.misc(1)).isEqualTo(42);
+        assertThat(manager.name()).isEqualTo("Tried");
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+    }
+
+    @Test
+    public void testTry_set_clamps_to_constraints() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setClampToConstraints(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        assertThat(manager.trySetX(MAX_SIZE_X + 1)).isEqualTo(SharecartResult.CHANGED);
+        assertThat(manager.x()).isEqualTo(MAX_SIZE_X);
+        assertThat(manager.trySetMisc(MISC_ITEMS_LENGTH, 1)).isEqualTo(SharecartResult.INVALID_INDEX);
+    }
+
+    @Test
+    public void testTry_set_repairs_faulty_lazy_value() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setLazyDecodingMode(true)
+                .setStrictFileReadMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        SharecartFileReader reader = new SharecartFileReader(
+                new File(Constants.TEST_RESOURCES_PATH, "sharecart_constraint_failure.ini"));
+        try {
+            reader.setIsStrict(true);
+            Mockito.when(mockReader.readLazy()).thenReturn(reader.readLazy());
+        } finally {
+            reader.close();
+        }
+        mockFileSearchResult(sharecartFile);
+        manager.validateSharecartFile();
+        assertThat(manager.load()).isTrue();
+
+        // Both y and misc3 are out of range in the file, and cannot be read in strict mode
+        assertThat(manager.trySetY(5)).isEqualTo(SharecartResult.CHANGED);
+        assertThat(manager.y()).isEqualTo(5);
+        manager.setMiscValues(new int[]{1, 2, 3, 4});
+        assertThat(manager.misc(3)).isEqualTo(4);
+        assertThat(manager.trySetX(100)).isEqualTo(SharecartResult.UNCHANGED);
+    }
+
+    @Test
+    public void testPreallocated_exceptions_are_reused() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setPreallocatedExceptionMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        ParameterNotAccessibleException notAccessible = null;
+        for (int i = 0; i < 2; i++) {
+            try {
+                manager.misc(1);
+                failBecauseExceptionWasNotThrown(ParameterNotAccessibleException.class);
+            } catch (ParameterNotAccessibleException e) {
+                assertThat(e).hasMessage("Can't access parameter 'misc1' without valid sharecart file.");
+                assertThat(e.getStackTrace()).isEmpty();
+                if (notAccessible != null)
+                    assertThat(e).isSameAs(notAccessible);
+                notAccessible = e;
+            }
+        }
+
+        loadSharecart();
+
+        InvalidParameterException invalid = null;
+        for (int value : new int[]{-1, MAX_SIZE_X + 1}) {
+            try {
+                manager.x(value);
+                failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+            } catch (InvalidParameterException e) {
+                assertThat(e).hasMessage("Invalid value for parameter 'x'");
+                assertThat(e.getStackTrace()).isEmpty();
+                if (invalid != null)
+                    assertThat(e).isSameAs(invalid);
+                invalid = e;
+            }
+        }
+
+        try {
+            manager.switchValue(SWITCH_ITEMS_LENGTH, true);
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException e) {
+            assertThat(e).hasMessage("switch");
+            assertThat(e.getStackTrace()).isEmpty();
+        }
+    }
+
+    @Test
+    public void testPreallocated_exceptions_are_reused_by_bulk_accessors() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setPreallocatedExceptionMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        ParameterNotAccessibleException notAccessible = null;
+        for (int i = 0; i < 2; i++) {
+            try {
+                manager.snapshot();
+                failBecauseExceptionWasNotThrown(ParameterNotAccessibleException.class);
+            } catch (ParameterNotAccessibleException e) {
+                assertThat(e.getStackTrace()).isEmpty();
+                if (notAccessible != null)
+                    assertThat(e).isSameAs(notAccessible);
+                notAccessible = e;
+            }
+        }
+        try {
+            manager.switchMask();
+            failBecauseExceptionWasNotThrown(ParameterNotAccessibleException.class);
+        } catch (ParameterNotAccessibleException e) {
+            assertThat(e).hasMessage("Can't access parameter 'switches' without valid sharecart file.");
+            assertThat(e.getStackTrace()).isEmpty();
+        }
+
+        loadSharecart();
+
+        try {
+            manager.setMiscValues(new int[]{0, MAX_SIZE_MISC + 1, 0, 0});
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException e) {
+            assertThat(e).hasMessage("Invalid value for parameter 'misc1'");
+            assertThat(e.getStackTrace()).isEmpty();
+        }
+        try {
+            manager.edit().x(-1).commit();
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException e) {
+            assertThat(e).hasMessage("Invalid value for parameter 'x'");
+            assertThat(e.getStackTrace()).isEmpty();
+        }
+        try {
+            manager.switchMask(1 << SWITCH_ITEMS_LENGTH);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException e) {
+            assertThat(e.getStackTrace()).isEmpty();
+        }
+    }
+
+    @Test
+    public void testSwitch_before_load_names_switch() throws Exception {
+        try {
+            manager.switchValue(3);
+            failBecauseExceptionWasNotThrown(ParameterNotAccessibleException.class);
+        } catch (ParameterNotAccessibleException e) {
+            assertThat(e).hasMessage("Can't access parameter 'switch3' without valid sharecart file.");
+        }
+    }
+
+    @Test
+    public void testConstraint_profile_limits_parameters() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setConstraintProfile(ConstraintProfile.STANDARD.withMaxX(2000).withMaxMisc(10))
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(2000);
+        assertThat(manager.x()).isEqualTo(2000);
+        assertThat(manager.snapshot().x()).isEqualTo(2000);
+        assertThat(manager.trySetX(2001)).isEqualTo(SharecartResult.INVALID_VALUE);
+        assertThat(manager.trySetMisc(0, 11)).isEqualTo(SharecartResult.INVALID_VALUE);
+
+        try {
+            manager.edit().misc(1, 11).commit();
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException e) {
+            assertThat(e).hasMessage("'11' is not a valid value for parameter 'misc1'");
+        }
+
+        Mockito.verify(mockReader).setConstraintProfile(config.getConstraintProfile());
+    }
+
+    @Test
+    public void testLoad_memory_mapped() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setMemoryMappedReadMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        Mockito.verify(mockFileInterface).getNewMappedSharecartFileReader(sharecartFile);
+        Mockito.verify(mockFileInterface, Mockito.never()).getNewSharecartFileReader(any(SharecartFile.class));
+        Mockito.verify(mockReader).read();
+    }
+
+    @Test
+    public void testLoad_restores_snapshot() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setSnapshotMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        Sharecart sharecart = Sharecart.withDefaults();
+        sharecart.x(42);
+        sharecart.name("snapshot");
+        sharecart.clearDirty();
+        SharecartFileLayout layout = new SharecartFileLayout();
+        layout.setFileState(sharecartFile.getFile().length(), sharecartFile.getFile().lastModified(),
+                SharecartFileUtils.checksum(sharecartFile.getFile()));
+        SharecartSnapshot.take(sharecartFile.getFile(), sharecart, layout);
+        try {
+            mockFileSearchResult(sharecartFile);
+            manager.validateSharecartFile();
+            assertThat(manager.load()).isTrue();
+
+            Mockito.verify(mockFileInterface, Mockito.never()).getNewSharecartFileReader(any(SharecartFile.class));
+            assertThat(manager.x()).isEqualTo(42);
+            assertThat(manager.name()).isEqualTo("snapshot");
+            assertThat(manager.hasUnsavedChanges()).isFalse();
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            SharecartSnapshot.snapshotFile(sharecartFile.getFile()).delete();
+        }
+    }
+
+    @Test
+    public void testLoad_lazy_decoding() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setLazyDecodingMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        mockFileSearchResult(sharecartFile);
+        Mockito.when(mockReader.readLazy()).thenReturn(Sharecart.withDefaults());
+        manager.validateSharecartFile();
+        assertThat(manager.load()).isTrue();
+
+        Mockito.verify(mockReader).readLazy();
+        Mockito.verify(mockReader, Mockito.never()).read();
+        assertThat(manager.name()).isEqualTo(Sharecart.DEFAULT_NAME);
+    }
+
+    @Test
+    public void testLoad_and_save_with_storage() throws Exception {
+        SharecartStorage storage = new MemorySharecartStorage();
+        config = new SharecartConfig.Builder()
+                .setStorage(storage)
+                .setPatchSaveMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        // Contents kept in memory do not need a file on the file system
+        assertThat(manager.validateSharecartFile()).isTrue();
+        assertThat(manager.load()).isTrue();
+        // Nothing has been stored for the file yet
+        assertThat(manager.name()).isEmpty();
+
+        manager.x(10);
+        manager.name("stored");
+        assertThat(manager.save()).isTrue();
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+
+        File file = SharecartFileInterface.virtualIniFile(APPLICATION_PATH).getFile();
+        SharecartFileReader reader = SharecartFileReader.stored(file, storage);
+        Sharecart stored = reader.read();
+        assertThat(stored.x()).isEqualTo(10);
+        assertThat(stored.name()).isEqualTo("stored");
+
+        assertThat(manager.load()).isTrue();
+        assertThat(manager.x()).isEqualTo(10);
+
+        Mockito.verifyZeroInteractions(mockReader, mockWriter, mockFileInterface);
+    }
+
+    @Test
+    public void testSave_with_storage_written_by_someone_else() throws Exception {
+        SharecartStorage storage = new MemorySharecartStorage();
+        config = new SharecartConfig.Builder()
+                .setStorage(storage)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        manager.validateSharecartFile();
+        manager.load();
+        manager.x(10);
+        manager.save();
+
+        File file = SharecartFileInterface.virtualIniFile(APPLICATION_PATH).getFile();
+        storage.write(file, SharecartFileWriter.encode(Sharecart.withDefaults()));
+
+        // The parameters did not change, but the stored contents did
+        assertThat(manager.save()).isTrue();
+        assertThat(manager.getSkippedSaveCount()).isEqualTo(0);
+        assertThat(SharecartFileReader.stored(file, storage).read().x()).isEqualTo(10);
+    }
+
+    @Test
+    public void testClose_releases_mapped_storage() throws Exception {
+        MappedSharecartStorage storage = new MappedSharecartStorage();
+        config = new SharecartConfig.Builder()
+                .setStorage(storage)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+
+        mockFileSearchResult(sharecartFile);
+        manager.validateSharecartFile();
+        assertThat(manager.load()).isTrue();
+        assertThat(storage.isMapped(sharecartFile.getFile())).isTrue();
+
+        manager.close();
+        assertThat(storage.isMapped(sharecartFile.getFile())).isFalse();
+    }
+
     @Test
     public void testSave() throws Exception {
         loadSharecart();
@@ -276,4 +666,848 @@ public class SharecartManagerTest extends SharecartManagerTestBase {
 
         assertThat(manager.x()).isEqualTo(10);
     }
+
+    @Test
+    public void testSetting_same_value_is_not_a_change() throws Exception {
+        loadSharecart();
+        manager.x(10);
+        manager.switchMask(0x0F);
+        assertThat(manager.save()).isTrue();
+
+        final List<Integer> changes = new ArrayList<Integer>();
+        manager.addListener(new SharecartListener() {
+            @Override
+            public void onSharecartChanged(SharecartManager manager, int changedFields) {
+                changes.add(changedFields);
+            }
+        });
+
+        manager.x(10);
+        manager.name(Sharecart.DEFAULT_NAME);
+        manager.switchMask(0x0F);
+        manager.setMiscValues(new int[]{0, 0, 0, 0});
+        manager.edit().y(0).switchValue(2, true).commit();
+        manager.restore(manager.snapshot());
+
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+        assertThat(changes).isEmpty();
+
+        manager.switchMask(0x1F);
+        assertThat(changes).containsExactly(SharecartFields.switchValue(4));
+    }
+
+    @Test
+    public void testSave_skipped_when_nothing_changed() throws Exception {
+        loadSharecart();
+        manager.x(10);
+        assertThat(manager.save()).isTrue();
+        Mockito.verify(mockWriter, Mockito.times(1)).write(any(Sharecart.class));
+
+        assertThat(manager.save()).isTrue();
+        assertThat(manager.getSkippedSaveCount()).isEqualTo(1);
+
+        // Changed and changed back
+        manager.x(11);
+        manager.x(10);
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+        assertThat(manager.save()).isTrue();
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+        assertThat(manager.getSkippedSaveCount()).isEqualTo(2);
+
+        Mockito.verify(mockWriter, Mockito.times(1)).write(any(Sharecart.class));
+    }
+
+    @Test
+    public void testSave_writes_when_file_changed() throws Exception {
+        loadSharecart();
+        manager.x(10);
+        assertThat(manager.save()).isTrue();
+
+        File file = sharecartFile.getFile();
+        long lastModified = file.lastModified();
+        assertThat(file.setLastModified(lastModified + 10000)).isTrue();
+        try {
+            assertThat(manager.save()).isTrue();
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(lastModified);
+        }
+
+        Mockito.verify(mockWriter, Mockito.times(2)).write(any(Sharecart.class));
+        assertThat(manager.getSkippedSaveCount()).isZero();
+    }
+
+    @Test
+    public void testSave_atomic_with_durability() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAtomicSaveMode(true)
+                .setSaveDurability(SharecartConfig.Durability.DATA_AND_METADATA)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(10);
+        assertThat(manager.save()).isTrue();
+
+        Mockito.verify(mockFileInterface).getNewAtomicSharecartFileWriter(sharecartFile);
+        Mockito.verify(mockFileInterface, Mockito.never()).getNewSharecartFileWriter(any(SharecartFile.class));
+        Mockito.verify(mockWriter).setDurability(SharecartConfig.Durability.DATA_AND_METADATA);
+        Mockito.verify(mockWriter).write(any(Sharecart.class));
+        Mockito.verify(mockWriter).close();
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testLoad_and_save_with_lock_strategy() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setLockStrategy(SharecartConfig.LockStrategy.TRY_LOCK)
+                .setLockTimeout(50)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(10);
+        assertThat(manager.save()).isTrue();
+
+        SharecartLockStatistics statistics = manager.getLockStatistics();
+        assertThat(statistics).isNotNull();
+        Mockito.verify(mockReader).setLocking(SharecartConfig.LockStrategy.TRY_LOCK, 50, statistics);
+        Mockito.verify(mockWriter).setLocking(SharecartConfig.LockStrategy.TRY_LOCK, 50, statistics);
+    }
+
+    @Test
+    public void testSave_patch() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setPatchSaveMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        SharecartFileLayout layout = new SharecartFileLayout();
+        Mockito.when(mockReader.getLayout()).thenReturn(layout);
+        Mockito.when(mockWriter.patch(any(Sharecart.class), Mockito.eq(layout))).thenReturn(true);
+        loadSharecart();
+
+        manager.x(10);
+        assertThat(manager.save()).isTrue();
+
+        Mockito.verify(mockFileInterface).getNewPatchingSharecartFileWriter(sharecartFile);
+        Mockito.verify(mockWriter).patch(any(Sharecart.class), Mockito.eq(layout));
+        Mockito.verify(mockWriter, Mockito.never()).write(any(Sharecart.class));
+        Mockito.verify(mockWriter).close();
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testSave_patch_falls_back_to_write() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setPatchSaveMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        Mockito.when(mockReader.getLayout()).thenReturn(new SharecartFileLayout());
+        Mockito.when(mockWriter.patch(any(Sharecart.class), any(SharecartFileLayout.class))).thenReturn(false);
+        loadSharecart();
+
+        manager.name("A much longer name");
+        assertThat(manager.save()).isTrue();
+
+        Mockito.verify(mockWriter).patch(any(Sharecart.class), any(SharecartFileLayout.class));
+        Mockito.verify(mockWriter).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testAuto_save_coalesces_changes() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAutoSaveMode(true)
+                .setAutoSaveDelay(50)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        for (int i = 0; i < 10; i++) {
+            manager.x(i + 1);
+        }
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+
+        Mockito.verify(mockWriter, Mockito.timeout(2000)).close();
+        awaitSaveFinished();
+        Mockito.verify(mockWriter, Mockito.times(1)).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+        assertThat(manager.getAutoSaveCount()).isEqualTo(1);
+        assertThat(manager.getCoalescedAutoSaveCount()).isEqualTo(9);
+    }
+
+    @Test
+    public void testAuto_save_max_changes_saves_right_away() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAutoSaveMode(true)
+                .setAutoSaveDelay(60000)
+                .setAutoSaveMaxDelay(60000)
+                .setAutoSaveMaxChanges(3)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(1);
+        manager.y(2);
+        manager.misc(0, 3);
+
+        Mockito.verify(mockWriter, Mockito.timeout(2000)).write(any(Sharecart.class));
+        Mockito.verify(mockWriter, Mockito.timeout(2000)).close();
+        awaitSaveFinished();
+        assertThat(manager.getCoalescedAutoSaveCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testAuto_save_flushes_when_replaced() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAutoSaveMode(true)
+                .setAutoSaveDelay(60000)
+                .setAutoSaveMaxDelay(60000)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.name("name");
+        Mockito.verify(mockWriter, Mockito.never()).write(any(Sharecart.class));
+
+        SharecartManager.initialize(config);
+        Mockito.verify(mockWriter).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testAuto_save_retries_failed_save() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAutoSaveMode(true)
+                .setAutoSaveDelay(10)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+        Mockito.doThrow(new IOException("Locked by another game")).doNothing()
+                .when(mockWriter).write(any(Sharecart.class));
+
+        manager.x(1);
+
+        Mockito.verify(mockWriter, Mockito.timeout(2000).times(2)).write(any(Sharecart.class));
+        Mockito.verify(mockWriter, Mockito.timeout(2000).times(2)).close();
+        awaitSaveFinished();
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+        assertThat(manager.getFailedAutoSaveCount()).isEqualTo(1);
+        assertThat(manager.getAutoSaveCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAuto_saver_no_longer_saves_on_shutdown_when_stopped() throws Exception {
+        SharecartAutoSaver autoSaver = new SharecartAutoSaver(manager, config);
+        assertThat(autoSaver.isSavedOnShutdown()).isTrue();
+
+        autoSaver.stop();
+        assertThat(autoSaver.isSavedOnShutdown()).isFalse();
+    }
+
+    @Test
+    public void testAuto_saver_thread_ends_when_idle() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAutoSaveDelay(10)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+        manager.x(1);
+
+        SharecartAutoSaver autoSaver = new SharecartAutoSaver(manager, config);
+        autoSaver.onChanged();
+        assertThat(autoSaver.hasThread()).isTrue();
+
+        Mockito.verify(mockWriter, Mockito.timeout(2000)).write(any(Sharecart.class));
+        long timeout = System.currentTimeMillis() + SharecartAutoSaver.IDLE_THREAD_TIMEOUT_MILLIS + 2000;
+        while (autoSaver.hasThread() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertThat(autoSaver.hasThread()).isFalse();
+        autoSaver.stop();
+    }
+
+    @Test
+    public void testAuto_save_off_by_default() throws Exception {
+        loadSharecart();
+
+        manager.x(10);
+        Thread.sleep(SharecartConfig.DEFAULT_AUTO_SAVE_DELAY_MILLIS * 2);
+
+        Mockito.verify(mockWriter, Mockito.never()).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+        assertThat(manager.getAutoSaveCount()).isZero();
+    }
+
+    @Test
+    public void testLoad_async() throws Exception {
+        mockFileSearchResult(sharecartFile);
+        Sharecart loaded = Sharecart.withDefaults();
+        loaded.x(25);
+        Mockito.when(mockReader.read()).thenReturn(loaded);
+
+        assertThat(manager.validateSharecartFileAsync().get()).isTrue();
+        assertThat(manager.loadAsync().get()).isTrue();
+
+        assertThat(manager.isLoaded()).isTrue();
+        assertThat(manager.x()).isEqualTo(25);
+    }
+
+    @Test
+    public void testSave_async() throws Exception {
+        loadSharecart();
+
+        manager.x(10);
+        assertThat(manager.saveAsync().get()).isTrue();
+
+        Mockito.verify(mockWriter).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testLoad_async_wraps_exceptions() throws Exception {
+        try {
+            manager.loadAsync().get();
+            failBecauseExceptionWasNotThrown(ExecutionException.class);
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    public void testAsync_operations_run_on_configured_executor() throws Exception {
+        final List<Runnable> operations = new ArrayList<Runnable>();
+        config = new SharecartConfig.Builder()
+                .setAsyncExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        operations.add(command);
+                    }
+                })
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(10);
+        Future<Boolean> result = manager.saveAsync();
+        assertThat(result.isDone()).isFalse();
+        Mockito.verify(mockWriter, Mockito.never()).write(any(Sharecart.class));
+        assertThat(manager.x()).isEqualTo(10);
+
+        assertThat(operations).hasSize(1);
+        operations.get(0).run();
+        assertThat(result.get()).isTrue();
+        Mockito.verify(mockWriter).write(any(Sharecart.class));
+    }
+
+    @Test
+    public void testConcurrent_mode_reads_while_changing() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setConcurrentMode(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        final int changes = MAX_SIZE_X;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    int last = 0;
+                    while (last < changes) {
+                        int x = manager.x();
+                        assertThat(x).isGreaterThanOrEqualTo(last);
+                        last = x;
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        };
+        reader.start();
+        for (int i = 1; i <= changes; i++) {
+            manager.x(i);
+            manager.name(String.valueOf(i));
+        }
+        reader.join(5000);
+
+        assertThat(failure.get()).isNull();
+        assertThat(reader.isAlive()).isFalse();
+        assertThat(manager.x()).isEqualTo(changes);
+        assertThat(manager.name()).isEqualTo(String.valueOf(changes));
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+    }
+
+    @Test
+    public void testSnapshot_and_restore() throws Exception {
+        loadSharecart();
+
+        manager.x(10);
+        manager.name("before");
+        CompactSharecart snapshot = manager.snapshot();
+
+        manager.x(20);
+        manager.switchValue(4, true);
+        manager.name("after");
+
+        manager.restore(snapshot);
+        assertThat(manager.x()).isEqualTo(10);
+        assertThat(manager.switchValue(4)).isFalse();
+        assertThat(manager.name()).isEqualTo("before");
+        assertThat(manager.snapshot()).isEqualTo(snapshot);
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+    }
+
+    @Test
+    public void testRestore_checks_snapshot_against_constraints() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setConstraintProfile(ConstraintProfile.STANDARD.withMaxX(100))
+                .setClampToConstraints(false)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(10);
+        Sharecart sharecart = Sharecart.withDefaults();
+        sharecart.x(500);
+        sharecart.name("restored");
+        CompactSharecart snapshot = CompactSharecart.of(sharecart, ConstraintProfile.STANDARD);
+
+        try {
+            manager.restore(snapshot);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException e) {
+            assertThat(e).hasMessage("'500' is not a valid value for parameter 'x'");
+        }
+        assertThat(manager.x()).isEqualTo(10);
+        assertThat(manager.name()).isNotEqualTo("restored");
+
+        config = new SharecartConfig.Builder()
+                .setConstraintProfile(ConstraintProfile.STANDARD.withMaxX(100))
+                .setClampToConstraints(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.restore(snapshot);
+        assertThat(manager.x()).isEqualTo(100);
+        assertThat(manager.name()).isEqualTo("restored");
+    }
+
+    @Test
+    public void testSnapshot_before_load_causes_exception() throws Exception {
+        try {
+            manager.snapshot();
+            failBecauseExceptionWasNotThrown(ParameterNotAccessibleException.class);
+        } catch (ParameterNotAccessibleException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testSwitch_mask() throws Exception {
+        loadSharecart();
+
+        manager.switchMask(0x42);
+        assertThat(manager.switchMask()).isEqualTo(0x42);
+        assertThat(manager.switchValue(1)).isTrue();
+        assertThat(manager.switchValue(6)).isTrue();
+        assertThat(manager.switchValue(0)).isFalse();
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+
+        try {
+            manager.switchMask(1 << SWITCH_ITEMS_LENGTH);
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+        assertThat(manager.switchMask()).isEqualTo(0x42);
+    }
+
+    @Test
+    public void testMisc_values() throws Exception {
+        loadSharecart();
+
+        manager.setMiscValues(new int[]{1, 2, 3, MAX_SIZE_MISC});
+        assertThat(manager.miscValues(new int[MISC_ITEMS_LENGTH])).hasSize(MISC_ITEMS_LENGTH).containsSequence(1, 2, 3, MAX_SIZE_MISC);
+        assertThat(manager.misc(3)).isEqualTo(MAX_SIZE_MISC);
+
+        try {
+            manager.setMiscValues(new int[]{5, 6, -1, 8});
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+        // Nothing is assigned when one of the values is invalid
+        assertThat(manager.misc(0)).isEqualTo(1);
+
+        try {
+            manager.miscValues(new int[MISC_ITEMS_LENGTH - 1]);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testMisc_values_clamped() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setClampToConstraints(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        int[] values = new int[]{-5, 10, MAX_SIZE_MISC + 1, 20};
+        manager.setMiscValues(values);
+        assertThat(manager.miscValues(new int[MISC_ITEMS_LENGTH])).hasSize(MISC_ITEMS_LENGTH).containsSequence(0, 10, MAX_SIZE_MISC, 20);
+        // The given array is left untouched
+        assertThat(values[0]).isEqualTo(-5);
+    }
+
+    @Test
+    public void testEdit_commit_applies_all_changes() throws Exception {
+        loadSharecart();
+
+        manager.edit()
+                .x(12)
+                .y(34)
+                .misc(0, 56)
+                .misc(2, 78)
+                .name("Level 2")
+                .switchValue(3, true)
+                .commit();
+
+        assertThat(manager.x()).isEqualTo(12);
+        assertThat(manager.y()).isEqualTo(34);
+        assertThat(manager.misc(0)).isEqualTo(56);
+        assertThat(manager.misc(1)).isEqualTo(0);
+        assertThat(manager.misc(2)).isEqualTo(78);
+        assertThat(manager.name()).isEqualTo("Level 2");
+        assertThat(manager.switchMask()).isEqualTo(1 << 3);
+        assertThat(manager.hasUnsavedChanges()).isTrue();
+        Mockito.verify(mockWriter, Mockito.never()).write(any(Sharecart.class));
+    }
+
+    @Test
+    public void testEdit_invalid_value_applies_nothing() throws Exception {
+        loadSharecart();
+
+        SharecartEditor editor = manager.edit()
+                .x(12)
+                .misc(1, MAX_SIZE_MISC + 1)
+                .name("Level 2");
+        try {
+            editor.commit();
+            failBecauseExceptionWasNotThrown(InvalidParameterException.class);
+        } catch (InvalidParameterException ignored) {
+
+        }
+
+        assertThat(manager.x()).isEqualTo(0);
+        assertThat(manager.name()).isEqualTo(Sharecart.DEFAULT_NAME);
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testEdit_clamps_values() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setClampToConstraints(true)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.edit().x(-3).y(MAX_SIZE_Y + 10).commit();
+
+        assertThat(manager.x()).isEqualTo(0);
+        assertThat(manager.y()).isEqualTo(MAX_SIZE_Y);
+    }
+
+    @Test
+    public void testEdit_commit_and_save_writes_once() throws Exception {
+        loadSharecart();
+
+        assertThat(manager.edit().x(1).y(2).switchMask(0xFF).commitAndSave()).isTrue();
+
+        Mockito.verify(mockWriter, Mockito.times(1)).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+        assertThat(manager.switchMask()).isEqualTo(0xFF);
+
+        // Nothing staged, nothing written
+        assertThat(manager.edit().commitAndSave()).isTrue();
+        Mockito.verify(mockWriter, Mockito.times(1)).write(any(Sharecart.class));
+    }
+
+    @Test
+    public void testEdit_cannot_be_reused() throws Exception {
+        loadSharecart();
+
+        SharecartEditor editor = manager.edit().x(1);
+        editor.commit();
+        try {
+            editor.x(2);
+            failBecauseExceptionWasNotThrown(IllegalStateException.class);
+        } catch (IllegalStateException ignored) {
+
+        }
+        assertThat(manager.x()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEdit_before_load_causes_exception() throws Exception {
+        try {
+            manager.edit();
+            failBecauseExceptionWasNotThrown(ParameterNotAccessibleException.class);
+        } catch (ParameterNotAccessibleException ignored) {
+
+        }
+    }
+
+    @Test
+    public void testTransaction() throws Exception {
+        loadSharecart();
+
+        manager.transaction(new SharecartTransaction() {
+            @Override
+            public void edit(SharecartEditor editor) {
+                editor.x(5).misc(3, 9).name("transaction");
+            }
+        });
+
+        assertThat(manager.x()).isEqualTo(5);
+        assertThat(manager.misc(3)).isEqualTo(9);
+        assertThat(manager.name()).isEqualTo("transaction");
+    }
+
+    @Test
+    public void testTransaction_exception_applies_nothing() throws Exception {
+        loadSharecart();
+
+        try {
+            manager.transaction(new SharecartTransaction() {
+                @Override
+                public void edit(SharecartEditor editor) {
+                    editor.x(5);
+                    editor.misc(MISC_ITEMS_LENGTH, 1);
+                }
+            });
+            failBecauseExceptionWasNotThrown(IndexOutOfBoundsException.class);
+        } catch (IndexOutOfBoundsException ignored) {
+
+        }
+
+        assertThat(manager.x()).isEqualTo(0);
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    @Test
+    public void testReload_notifies_listeners() throws Exception {
+        loadSharecart();
+        final List<SharecartManager> reloaded = new ArrayList<SharecartManager>();
+        SharecartReloadListener listener = new SharecartReloadListener() {
+            @Override
+            public void onSharecartReloaded(SharecartManager manager) {
+                reloaded.add(manager);
+            }
+        };
+        manager.addReloadListener(listener);
+
+        Sharecart changed = Sharecart.withDefaults();
+        changed.x(99);
+        Mockito.when(mockReader.read()).thenReturn(changed);
+        manager.reload();
+
+        assertThat(manager.x()).isEqualTo(99);
+        assertThat(reloaded).containsExactly(manager);
+
+        manager.removeReloadListener(listener);
+        manager.reload();
+        assertThat(reloaded).hasSize(1);
+    }
+
+    @Test
+    public void testReload_before_load_does_nothing() throws Exception {
+        manager.reload();
+
+        Mockito.verify(mockReader, Mockito.never()).read();
+        assertThat(manager.isLoaded()).isFalse();
+    }
+
+    @Test
+    public void testKnown_file_state_after_load() throws Exception {
+        loadSharecart();
+
+        File file = sharecartFile.getFile();
+        assertThat(manager.isKnownFileState(file.length(), file.lastModified())).isTrue();
+        assertThat(manager.isKnownFileState(file.length() + 1, file.lastModified())).isFalse();
+    }
+
+    @Test
+    public void testKnown_file_state_is_the_state_the_reader_saw() throws Exception {
+        SharecartFileLayout layout = new SharecartFileLayout();
+        layout.setFileState(1, 2);
+        Mockito.when(mockReader.getLayout()).thenReturn(layout);
+        loadSharecart();
+
+        File file = sharecartFile.getFile();
+        assertThat(manager.isKnownFileState(1, 2)).isTrue();
+        assertThat(manager.isKnownFileState(file.length(), file.lastModified())).isFalse();
+    }
+
+    @Test
+    public void testListener_notified_of_changed_fields() throws Exception {
+        final List<Integer> changes = new ArrayList<Integer>();
+        SharecartListener listener = new SharecartListener() {
+            @Override
+            public void onSharecartChanged(SharecartManager manager, int changedFields) {
+                changes.add(changedFields);
+            }
+        };
+        manager.addListener(listener);
+        loadSharecart();
+        assertThat(changes).containsExactly(SharecartFields.ALL);
+        changes.clear();
+
+        manager.x(10);
+        manager.x(10);
+        manager.misc(2, 5);
+        manager.name(Sharecart.DEFAULT_NAME);
+        manager.switchMask(0x81);
+        assertThat(changes).containsExactly(SharecartFields.X, SharecartFields.misc(2),
+                SharecartFields.switchValue(0) | SharecartFields.switchValue(7));
+        changes.clear();
+
+        manager.removeListener(listener);
+        manager.y(10);
+        assertThat(changes).isEmpty();
+    }
+
+    @Test
+    public void testListener_notified_once_per_transaction() throws Exception {
+        loadSharecart();
+        final List<Integer> changes = new ArrayList<Integer>();
+        manager.addListener(new SharecartListener() {
+            @Override
+            public void onSharecartChanged(SharecartManager manager, int changedFields) {
+                changes.add(changedFields);
+            }
+        });
+
+        manager.transaction(new SharecartTransaction() {
+            @Override
+            public void edit(SharecartEditor editor) {
+                editor.x(1).y(0).misc(3, 7).switchValue(4, true);
+            }
+        });
+
+        assertThat(changes).containsExactly(SharecartFields.X | SharecartFields.misc(3) | SharecartFields.switchValue(4));
+    }
+
+    @Test
+    public void testListener_manual_dispatch_coalesces_changes() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setChangeDispatchMode(SharecartConfig.ChangeDispatchMode.MANUAL)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        final List<Integer> changes = new ArrayList<Integer>();
+        manager.addListener(new SharecartListener() {
+            @Override
+            public void onSharecartChanged(SharecartManager manager, int changedFields) {
+                changes.add(changedFields);
+            }
+        });
+
+        manager.x(1);
+        manager.x(2);
+        manager.name("Other");
+        assertThat(changes).isEmpty();
+
+        manager.dispatchChanges();
+        assertThat(changes).containsExactly(SharecartFields.X | SharecartFields.NAME);
+
+        manager.dispatchChanges();
+        assertThat(changes).hasSize(1);
+    }
+
+    @Test
+    public void testListener_notified_of_reloaded_fields() throws Exception {
+        loadSharecart();
+        final List<Integer> changes = new ArrayList<Integer>();
+        manager.addListener(new SharecartListener() {
+            @Override
+            public void onSharecartChanged(SharecartManager manager, int changedFields) {
+                changes.add(changedFields);
+            }
+        });
+
+        Sharecart changed = Sharecart.withDefaults();
+        changed.y(99);
+        changed.switchValue(2, true);
+        Mockito.when(mockReader.read()).thenReturn(changed);
+        manager.reload();
+
+        assertThat(changes).containsExactly(SharecartFields.Y | SharecartFields.switchValue(2));
+    }
+
+    @Test
+    public void testClose_saves_pending_auto_save_changes() throws Exception {
+        config = new SharecartConfig.Builder()
+                .setAutoSaveMode(true)
+                .setAutoSaveDelay(60000)
+                .setAutoSaveMaxDelay(60000)
+                .setApplicationPath(APPLICATION_PATH)
+                .build();
+        SharecartManager.initialize(config);
+        manager = SharecartManager.get();
+        loadSharecart();
+
+        manager.x(10);
+        Mockito.verify(mockWriter, Mockito.never()).write(any(Sharecart.class));
+
+        manager.close();
+        Mockito.verify(mockWriter).write(any(Sharecart.class));
+        assertThat(manager.hasUnsavedChanges()).isFalse();
+    }
+
+    private void awaitSaveFinished() {
+        // The manager is locked for the whole save, so this waits for the background save to complete
+        //noinspection EmptySynchronizedStatement
+        synchronized (manager) {
+
+        }
+    }
 }
@@ -10,6 +10,8 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.mockito.internal.util.MockUtil;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.File;
 
@@ -42,11 +44,27 @@ public abstract class SharecartManagerTestBase {
         mockFileInterface = mock(SharecartFileInterface.class);
 
         when(mockFileInterface.getNewSharecartFileReader(any(SharecartFile.class))).thenReturn(mockReader);
+        when(mockFileInterface.getNewMappedSharecartFileReader(any(SharecartFile.class))).thenReturn(mockReader);
         when(mockFileInterface.getNewSharecartFileWriter(any(SharecartFile.class))).thenReturn(mockWriter);
+        when(mockFileInterface.getNewAtomicSharecartFileWriter(any(SharecartFile.class))).thenReturn(mockWriter);
+        when(mockFileInterface.getNewPatchingSharecartFileWriter(any(SharecartFile.class))).thenReturn(mockWriter);
 
         SharecartFileInterface.inject(mockFileInterface);
 
         sharecartFile = SharecartFile.fromFile(new File(Constants.TEST_RESOURCES_PATH, "dat/o_o.ini"));
+
+        // Like real readers and writers, report the state of the file as it was while they had it locked
+        Answer<SharecartFileLayout> fileLayout = new Answer<SharecartFileLayout>() {
+            @Override
+            public SharecartFileLayout answer(InvocationOnMock invocation) throws Throwable {
+                File file = sharecartFile.getFile();
+                SharecartFileLayout layout = new SharecartFileLayout();
+                layout.setFileState(file.length(), file.lastModified());
+                return layout;
+            }
+        };
+        when(mockReader.getLayout()).thenAnswer(fileLayout);
+        when(mockWriter.getLayout()).thenAnswer(fileLayout);
         config = new SharecartConfig.Builder()
                 .setDirectoryLevelsToCheck(3)
                 .setAutoCreateFile(false)
@@ -261,7 +279,7 @@ public abstract class SharecartManagerTestBase {
         }
     }
 
-    protected void loadSharecart() {
+    protected void loadSharecart() throws Exception {
         mockFileSearchResult(sharecartFile);
         when(mockReader.read()).thenReturn(Sharecart.withDefaults());
         manager.validateSharecartFile();
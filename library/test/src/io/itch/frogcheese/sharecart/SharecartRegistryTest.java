@@ -0,0 +1,112 @@
+package io.itch.frogcheese.sharecart;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SharecartRegistryTest {
+
+    private SharecartFileInterface mockFileInterface;
+    private SharecartRegistry registry;
+    private File[] files;
+
+    @Before
+    public void setUp() throws Exception {
+        mockFileInterface = mock(SharecartFileInterface.class);
+        SharecartFileInterface.inject(mockFileInterface);
+
+        files = new File[3];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = File.createTempFile("sharecart_registry_test", null);
+            when(mockFileInterface.findIniFile(anyInt(), eq("game" + i))).thenReturn(SharecartFile.fromFile(files[i]));
+        }
+
+        registry = new SharecartRegistry(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.clear();
+        for (File file : files) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testInvalid_capacity_causes_exception() throws Exception {
+        try {
+            new SharecartRegistry(0);
+            failBecauseExceptionWasNotThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage("Registry capacity must be at least one. Number was 0");
+        }
+        assertThat(new SharecartRegistry().getCapacity()).isEqualTo(SharecartRegistry.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void testGet_returns_validated_manager_per_file() throws Exception {
+        SharecartManager manager0 = registry.get(config(0));
+        SharecartManager manager1 = registry.get(config(1));
+
+        assertThat(manager0).isNotNull();
+        assertThat(manager1).isNotNull().isNotSameAs(manager0);
+        assertThat(manager0.isValidSharecartFile()).isTrue();
+        assertThat(manager0.shareCartFile.getFile()).isEqualTo(files[0]);
+        assertThat(manager1.shareCartFile.getFile()).isEqualTo(files[1]);
+
+        assertThat(registry.get(config(0))).isSameAs(manager0);
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.getHitCount()).isEqualTo(1);
+        assertThat(registry.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testGet_missing_file_returns_null() throws Exception {
+        assertThat(registry.get(config(5))).isNull();
+        assertThat(registry.size()).isEqualTo(0);
+        assertThat(registry.getMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testLeast_recently_used_manager_is_evicted() throws Exception {
+        SharecartManager manager0 = registry.get(config(0));
+        SharecartManager manager1 = registry.get(config(1));
+        assertThat(registry.get(config(0))).isSameAs(manager0);
+
+        registry.get(config(2));
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.getEvictionCount()).isEqualTo(1);
+        assertThat(registry.get(config(0))).isSameAs(manager0);
+        assertThat(registry.get(config(1))).isNotSameAs(manager1);
+        assertThat(registry.getMissCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testRemove_and_clear() throws Exception {
+        registry.get(config(0));
+        registry.get(config(1));
+
+        assertThat(registry.remove(files[0])).isTrue();
+        assertThat(registry.remove(files[0])).isFalse();
+        assertThat(registry.size()).isEqualTo(1);
+
+        registry.clear();
+        assertThat(registry.size()).isEqualTo(0);
+    }
+
+    private static SharecartConfig config(int game) {
+        return new SharecartConfig.Builder()
+                .setApplicationPath("game" + game)
+                .build();
+    }
+}
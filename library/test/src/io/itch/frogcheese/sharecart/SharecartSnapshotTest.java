@@ -0,0 +1,214 @@
+package io.itch.frogcheese.sharecart;
+
+import io.itch.frogcheese.sharecart._test.Constants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static io.itch.frogcheese.sharecart.SharecartFileConstants.INDEX_MISC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharecartSnapshotTest {
+
+    private File tempFile;
+    private File snapshotFile;
+    private SharecartFileLayout layout;
+
+    @Before
+    public void setUp() throws Exception {
+        tempFile = File.createTempFile("sharecart_snapshot_test", ".ini");
+        copyFixture("sharecart_correct.ini");
+        snapshotFile = SharecartSnapshot.snapshotFile(tempFile);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+        //noinspection ResultOfMethodCallIgnored
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void testSnapshot_file_is_next_to_sharecart_file() throws Exception {
+        assertThat(snapshotFile.getParentFile()).isEqualTo(tempFile.getParentFile());
+        assertThat(snapshotFile.getName()).isEqualTo(tempFile.getName() + SharecartSnapshot.FILE_SUFFIX);
+    }
+
+    @Test
+    public void testRestore_without_snapshot() throws Exception {
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testRestore_unchanged_file() throws Exception {
+        Sharecart sharecart = read(true);
+        SharecartSnapshot.take(tempFile, sharecart, layout);
+
+        Sharecart restored = SharecartSnapshot.restore(tempFile, true, ConstraintProfile.STANDARD, new SharecartFileLayout());
+        assertThat(restored).isEqualTo(sharecart);
+        assertThat(restored.dirtyMask()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRestore_records_state_of_snapshot_file() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+
+        SharecartFileLayout state = new SharecartFileLayout();
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, state)).isNotNull();
+        assertThat(state.fileLength()).isEqualTo(layout.fileLength());
+        assertThat(state.fileLastModified()).isEqualTo(layout.fileLastModified());
+        assertThat(state.fileChecksum()).isEqualTo(layout.fileChecksum());
+    }
+
+    @Test
+    public void testTake_records_contents_that_were_read() throws Exception {
+        Sharecart sharecart = read(false);
+        // Changed after the read, without changing its size
+        RandomAccessFile file = new RandomAccessFile(tempFile, "rw");
+        try {
+            file.seek(file.length() - 2);
+            file.write('X');
+        } finally {
+            file.close();
+        }
+        SharecartSnapshot.take(tempFile, sharecart, layout);
+
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testTake_without_file_state() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+        assertThat(snapshotFile).isFile();
+
+        SharecartSnapshot.take(tempFile, read(false), new SharecartFileLayout());
+        assertThat(snapshotFile.exists()).isFalse();
+    }
+
+    @Test
+    public void testRestore_touched_file() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+        assertThat(tempFile.setLastModified(tempFile.lastModified() - 10000)).isTrue();
+
+        // The checksum shows the contents are the same
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNotNull();
+    }
+
+    @Test
+    public void testRestore_changed_file_of_same_size_and_time() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+        long lastModified = tempFile.lastModified();
+        RandomAccessFile file = new RandomAccessFile(tempFile, "rw");
+        try {
+            file.seek(file.length() - 2);
+            file.write('X');
+        } finally {
+            file.close();
+        }
+        assertThat(tempFile.setLastModified(lastModified)).isTrue();
+
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testRestore_changed_file() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+        copyFixture("sharecart_unordered.ini");
+
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testRestore_changed_file_of_same_size() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+        long lastModified = tempFile.lastModified();
+        RandomAccessFile file = new RandomAccessFile(tempFile, "rw");
+        try {
+            file.seek(file.length() - 2);
+            file.write('X');
+        } finally {
+            file.close();
+        }
+        assertThat(tempFile.setLastModified(lastModified + 10000)).isTrue();
+
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testRestore_damaged_snapshot() throws Exception {
+        SharecartSnapshot.take(tempFile, read(false), layout);
+        RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw");
+        try {
+            file.seek(file.length() - 12);
+            file.write(0xFF);
+        } finally {
+            file.close();
+        }
+
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testRestore_keeps_dirty_parameters() throws Exception {
+        copyFixture("sharecart_missing_parameter.ini");
+        Sharecart sharecart = read(false);
+        assertThat(sharecart.dirtyMask()).isNotEqualTo(0);
+        SharecartSnapshot.take(tempFile, sharecart, layout);
+
+        Sharecart restored = SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD, new SharecartFileLayout());
+        assertThat(restored).isEqualTo(sharecart);
+        assertThat(restored.dirtyMask()).isEqualTo(sharecart.dirtyMask());
+
+        // A strict reader has to parse the file to fail on it
+        assertThat(SharecartSnapshot.restore(tempFile, true, ConstraintProfile.STANDARD, new SharecartFileLayout())).isNull();
+    }
+
+    @Test
+    public void testRestore_checks_constraint_profile() throws Exception {
+        Sharecart sharecart = read(false);
+        assertThat(sharecart.x()).isEqualTo(100);
+        SharecartSnapshot.take(tempFile, sharecart, layout);
+
+        // Taken under the standard profile, but the file has to be parsed to apply the stricter one
+        ConstraintProfile profile = ConstraintProfile.STANDARD.withMaxX(50);
+        assertThat(SharecartSnapshot.restore(tempFile, false, profile, new SharecartFileLayout())).isNull();
+        assertThat(SharecartSnapshot.restore(tempFile, false, ConstraintProfile.STANDARD.withMaxX(100),
+                new SharecartFileLayout())).isEqualTo(sharecart);
+    }
+
+    @Test
+    public void testTake_decodes_lazy_sharecart() throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        Sharecart sharecart = reader.readLazy();
+        layout = reader.getLayout();
+        reader.close();
+        SharecartSnapshot.take(tempFile, sharecart, layout);
+
+        Sharecart restored = SharecartSnapshot.restore(tempFile, true, ConstraintProfile.STANDARD, new SharecartFileLayout());
+        assertThat(restored).isEqualTo(read(true));
+        assertThat(restored.dirtyMask() & (1 << INDEX_MISC)).isEqualTo(0);
+    }
+
+    private void copyFixture(String name) throws Exception {
+        Files.copy(new File(Constants.TEST_RESOURCES_PATH, name).toPath(), tempFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Sharecart read(boolean strict) throws Exception {
+        SharecartFileReader reader = new SharecartFileReader(tempFile);
+        try {
+            reader.setIsStrict(strict);
+            Sharecart sharecart = reader.read();
+            layout = reader.getLayout();
+            return sharecart;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -328,6 +328,84 @@ public class SharecartTest {
         }
     }
 
+    @Test
+    public void testDirty_mask() throws Exception {
+        int all = (1 << SharecartFileConstants.PARAMETER_COUNT) - 1;
+        assertThat(sharecart.dirtyMask()).isEqualTo(all);
+
+        sharecart.clearDirty();
+        assertThat(sharecart.dirtyMask()).isZero();
+
+        sharecart.y(4);
+        sharecart.misc(2, 10);
+        sharecart.switchValue(7, true);
+        assertThat(sharecart.dirtyMask()).isEqualTo(1 << SharecartFileConstants.INDEX_Y
+                | 1 << (SharecartFileConstants.INDEX_MISC + 2)
+                | 1 << (SharecartFileConstants.INDEX_SWITCH + 7));
+
+        sharecart.setDirtyMask(1 << SharecartFileConstants.INDEX_NAME);
+        sharecart.name("name");
+        assertThat(sharecart.dirtyMask()).isEqualTo(1 << SharecartFileConstants.INDEX_NAME);
+    }
+
+    @Test
+    public void testCopy_constructor() throws Exception {
+        sharecart.x(5);
+        sharecart.misc(3, 400);
+        sharecart.name("copied");
+        sharecart.switchValue(6, true);
+        sharecart.setDirtyMask(1 << SharecartFileConstants.INDEX_NAME);
+
+        Sharecart copy = new Sharecart(sharecart);
+        assertThat(copy).isEqualTo(sharecart);
+        assertThat(copy.dirtyMask()).isEqualTo(sharecart.dirtyMask());
+
+        copy.misc(3, 1);
+        assertThat(sharecart.misc(3)).isEqualTo(400);
+    }
+
+    @Test
+    public void testBulk_values() throws Exception {
+        sharecart.clearDirty();
+
+        sharecart.switchMask(0xA5);
+        for (int i = 0; i < Constraints.SWITCH_ITEMS_LENGTH; i++) {
+            assertThat(sharecart.switchValue(i)).isEqualTo((0xA5 & (1 << i)) != 0);
+        }
+        assertThat(sharecart.switchMask()).isEqualTo(0xA5);
+
+        sharecart.setMiscValues(new int[]{4, 3, 2, 1});
+        int[] misc = new int[Constraints.MISC_ITEMS_LENGTH];
+        sharecart.miscValues(misc);
+        assertThat(misc).hasSize(4).containsSequence(4, 3, 2, 1);
+        assertThat(sharecart.misc(0)).isEqualTo(4);
+
+        int expected = 0;
+        for (int i = SharecartFileConstants.INDEX_MISC; i < SharecartFileConstants.INDEX_NAME; i++) {
+            expected |= 1 << i;
+        }
+        for (int i = SharecartFileConstants.INDEX_SWITCH; i < SharecartFileConstants.PARAMETER_COUNT; i++) {
+            expected |= 1 << i;
+        }
+        assertThat(sharecart.dirtyMask()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testDifferences() throws Exception {
+        Sharecart other = new Sharecart(sharecart);
+        assertThat(sharecart.differences(other)).isEqualTo(0);
+        assertThat(sharecart.differences(sharecart)).isEqualTo(0);
+
+        other.y(sharecart.y() + 1);
+        other.misc(1, sharecart.misc(1) + 1);
+        other.name(sharecart.name() + "!");
+        other.switchValue(5, !sharecart.switchValue(5));
+
+        assertThat(sharecart.differences(other)).isEqualTo(SharecartFields.Y | SharecartFields.misc(1)
+                | SharecartFields.NAME | SharecartFields.switchValue(5));
+        assertThat(other.differences(sharecart)).isEqualTo(sharecart.differences(other));
+    }
+
     private void resetSharecart() {
         sharecart = new Sharecart();
     }
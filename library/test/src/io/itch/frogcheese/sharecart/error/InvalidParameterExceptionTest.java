@@ -21,6 +21,14 @@ public class InvalidParameterExceptionTest {
         assertThat(exception).hasMessage("'a string!!' is not a valid value for parameter 'testValString'");
     }
 
+    @Test
+    public void testWithout_stack_trace() throws Exception {
+        InvalidParameterException exception = InvalidParameterException.withoutStackTrace("testVal");
+
+        assertThat(exception).hasMessage("Invalid value for parameter 'testVal'");
+        assertThat(exception.getStackTrace()).isEmpty();
+    }
+
     @Test
     public void testExtends_sharecart_exception() throws Exception {
         InvalidParameterException exception = new InvalidParameterException("test", 0);
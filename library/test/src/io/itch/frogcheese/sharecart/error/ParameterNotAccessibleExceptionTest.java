@@ -14,6 +14,14 @@ public class ParameterNotAccessibleExceptionTest {
         assertThat(exception).hasMessage("Can't access parameter 'aTestParam' without valid sharecart file.");
     }
 
+    @Test
+    public void testWithout_stack_trace() throws Exception {
+        ParameterNotAccessibleException exception = ParameterNotAccessibleException.withoutStackTrace("aTestParam");
+
+        assertThat(exception).hasMessage("Can't access parameter 'aTestParam' without valid sharecart file.");
+        assertThat(exception.getStackTrace()).isEmpty();
+    }
+
     @Test
     public void testExtends_sharecart_exception() throws Exception {
         ParameterNotAccessibleException exception = new ParameterNotAccessibleException("test");